@@ -0,0 +1,82 @@
+package kleve.PartAndProductManager.DAO;
+
+import javafx.collections.ObservableList;
+import kleve.PartAndProductManager.datamodel.Part;
+import kleve.PartAndProductManager.datamodel.Product;
+import kleve.PartAndProductManager.utilities.IntObjectHashMap;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Loads the associated parts of products that were loaded together (e.g., by one list query) lazily and in batches.
+ * <p>
+ * Each product of the batch gets a loader that runs the first time its {@link Product#getAssociatedParts()}
+ * is called. That first call loads the parts of up to {@link #MAX_BATCH_SIZE} products of the batch that are
+ * still pending with a single query, on the assumption that a screen needing one product's parts will soon
+ * need its neighbours' too. A screen that never looks at associated parts never runs the query at all.
+ * </p>
+ *
+ * @author Jonathan Kleve
+ */
+class AssociationBatch {
+
+    /**
+     * The largest number of products whose parts are loaded by one query.
+     */
+    static final int MAX_BATCH_SIZE = 500;
+
+    private final List<Product> pending;
+
+    private AssociationBatch(Collection<Product> products) {
+        this.pending = new ArrayList<>(products);
+    }
+
+    /**
+     * Makes the associated parts of the given products load lazily, in batches drawn from these products.
+     * Only pass products that were just created by the calling DAO method: the loader replaces any parts they hold.
+     *
+     * @param products The products loaded together.
+     */
+    static void attach(Collection<Product> products) {
+        if (products.isEmpty()) {
+            return;
+        }
+        AssociationBatch batch = new AssociationBatch(products);
+        for (Product product : products) {
+            product.setAssociatedPartsLoader(() -> batch.load(product));
+        }
+    }
+
+    /**
+     * Loads the parts of the requesting product and of other products of the batch that are still pending.
+     */
+    private synchronized ObservableList<Part> load(Product requester) {
+        List<Product> group = new ArrayList<>();
+        group.add(requester);
+        for (Iterator<Product> iterator = pending.iterator(); iterator.hasNext(); ) {
+            Product product = iterator.next();
+            if (product == requester || product.areAssociatedPartsLoaded()) {
+                iterator.remove();
+            } else if (group.size() < MAX_BATCH_SIZE) {
+                group.add(product);
+                iterator.remove();
+            }
+        }
+
+        int[] productIds = new int[group.size()];
+        for (int i = 0; i < productIds.length; i++) {
+            productIds[i] = group.get(i).getId();
+        }
+        IntObjectHashMap<ObservableList<Part>> partsByProduct = ProductDAO.loadAssociatedParts(productIds);
+
+        for (Product product : group) {
+            if (product != requester && !product.areAssociatedPartsLoaded()) {
+                product.setAssociatedParts(partsByProduct.get(product.getId()));
+            }
+        }
+        return partsByProduct.get(requester.getId());
+    }
+}
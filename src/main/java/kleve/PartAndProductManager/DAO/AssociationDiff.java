@@ -0,0 +1,93 @@
+package kleve.PartAndProductManager.DAO;
+
+import kleve.PartAndProductManager.datamodel.Part;
+import kleve.PartAndProductManager.utilities.IntIntHashMap;
+
+import java.util.List;
+
+/**
+ * The difference between two states of a product's associated parts, each given as a part ID to quantity map.
+ * Each association is a single `product_parts` row with a quantity, so the difference is simply the set of parts
+ * whose quantity changed: each of them is either written with its new quantity or, if it dropped to 0, deleted.
+ * <p>
+ * Both states and the difference are kept in {@link IntIntHashMap}s, so computing it allocates no boxed
+ * keys or counts no matter how many parts a product uses.
+ * </p>
+ *
+ * @author Jonathan Kleve
+ */
+final class AssociationDiff {
+    private final IntIntHashMap desired;
+    private final IntIntHashMap deltas;
+
+    private AssociationDiff(IntIntHashMap desired, int expectedSize) {
+        this.desired = desired;
+        this.deltas = new IntIntHashMap(expectedSize);
+    }
+
+    /**
+     * Counts the units of each part in a list of associated parts.
+     *
+     * @param parts The associated parts, with one entry per unit.
+     * @return The part ID to quantity map.
+     */
+    static IntIntHashMap quantitiesOf(List<Part> parts) {
+        IntIntHashMap quantities = new IntIntHashMap(parts.size());
+        for (Part part : parts) {
+            quantities.addTo(part.getId(), 1);
+        }
+        return quantities;
+    }
+
+    /**
+     * Computes the changes that turn the current associations into the desired ones.
+     *
+     * @param current The part ID to quantity map stored now.
+     * @param desired The part ID to quantity map to store. It must not be modified while the difference is used.
+     * @return The difference; empty if the two states are equal.
+     */
+    static AssociationDiff between(IntIntHashMap current, IntIntHashMap desired) {
+        AssociationDiff diff = new AssociationDiff(desired, Math.max(current.size(), desired.size()));
+        desired.forEach((partId, quantity) -> diff.record(partId, quantity - current.get(partId)));
+        current.forEach((partId, quantity) -> {
+            if (!desired.containsKey(partId)) {
+                diff.record(partId, -quantity);
+            }
+        });
+        return diff;
+    }
+
+    private void record(int partId, int delta) {
+        if (delta != 0) {
+            deltas.put(partId, delta);
+        }
+    }
+
+    /**
+     * Checks whether the two states were equal.
+     *
+     * @return {@code true} if no association needs to be written or deleted.
+     */
+    boolean isEmpty() {
+        return deltas.isEmpty();
+    }
+
+    /**
+     * Retrieves the parts whose quantity changed.
+     *
+     * @return The part IDs, sorted in ascending order.
+     */
+    int[] getChangedPartIds() {
+        return deltas.keys();
+    }
+
+    /**
+     * Retrieves the new quantity of a part.
+     *
+     * @param partId The ID of the part.
+     * @return The desired quantity; 0 if the association is to be deleted.
+     */
+    int getQuantity(int partId) {
+        return desired.get(partId);
+    }
+}
@@ -0,0 +1,251 @@
+package kleve.PartAndProductManager.DAO;
+
+import kleve.PartAndProductManager.monitoring.DAOEvent;
+import kleve.PartAndProductManager.utilities.IntIntHashMap;
+import kleve.PartAndProductManager.utilities.IntObjectHashMap;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * An in-memory index of the `product_parts` associations in both directions: the parts each product uses
+ * and the products each part is used by, with the number of units of the part in the product.
+ * <p>
+ * The index is built from `product_parts` in a single pass on first use and kept current by the
+ * {@link ProductDAO} and {@link PartDAO} writes that change associations, so where-used lookups and delete guards are answered
+ * with two hash lookups instead of a query. Both directions are primitive int-keyed maps
+ * ({@link IntObjectHashMap} of {@link IntIntHashMap}), so millions of associations take no boxed keys or entry objects.
+ * Like the {@link Catalog}, the index is rebuilt once it is older than {@link Catalog#MAX_AGE}, which bounds
+ * how long associations written on other workstations go unseen.
+ * </p>
+ * <p>
+ * The index also remembers the {@link kleve.PartAndProductManager.datamodel.Product#getVersion() version} of each
+ * product whose associations it holds. Every write of a product's associations increments its version, so an update
+ * that has checked the product's version can trust the index's associations if the versions agree, and must read
+ * them from the database otherwise (see {@link #getPartQuantities(int, int)}).
+ * </p>
+ * <p>
+ * All methods are synchronized; the maps they return are copies.
+ * </p>
+ *
+ * @author Jonathan Kleve
+ */
+public class AssociationIndex {
+    private static IntObjectHashMap<IntIntHashMap> partsByProduct;
+    private static IntObjectHashMap<IntIntHashMap> productsByPart;
+    private static IntIntHashMap versionByProduct;
+    private static long loadedAt;
+
+    /**
+     * Builds the index from the database, replacing any previous contents.
+     * This is intended to be run in the background during startup; queries build the index on demand otherwise.
+     */
+    public static synchronized void load() {
+        IntObjectHashMap<IntIntHashMap> newPartsByProduct = new IntObjectHashMap<>();
+        IntObjectHashMap<IntIntHashMap> newProductsByPart = new IntObjectHashMap<>();
+        IntIntHashMap newVersionByProduct = new IntIntHashMap();
+        DAOEvent daoEvent = DAOEvent.start("loadAssociationIndex", "ProductPart", 0);
+        int rowCount = 0;
+
+        // The versions are read first: associations written in between then show up under an older version,
+        // which makes updates read them from the database rather than trust them
+        try (PreparedStatement versionStatement = JDBC.connection.prepareStatement("SELECT id, version FROM products");
+             ResultSet versions = versionStatement.executeQuery()) {
+            while (versions.next()) {
+                newVersionByProduct.put(versions.getInt(1), versions.getInt(2));
+            }
+        } catch (SQLException e) {
+            System.err.println("Error loading the association index: " + e.getMessage());
+            e.printStackTrace();
+            invalidate();
+            daoEvent.end(0);
+            return;
+        }
+
+        try (PreparedStatement statement = JDBC.connection.prepareStatement("SELECT product_id, part_id, quantity FROM product_parts");
+             ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                int productId = resultSet.getInt(1);
+                int partId = resultSet.getInt(2);
+                int quantity = resultSet.getInt(3);
+                newPartsByProduct.computeIfAbsent(productId, key -> new IntIntHashMap()).addTo(partId, quantity);
+                newProductsByPart.computeIfAbsent(partId, key -> new IntIntHashMap()).addTo(productId, quantity);
+                rowCount++;
+            }
+        } catch (SQLException e) {
+            System.err.println("Error loading the association index: " + e.getMessage());
+            e.printStackTrace();
+            invalidate();
+            return;
+        } finally {
+            daoEvent.end(rowCount);
+        }
+
+        partsByProduct = newPartsByProduct;
+        productsByPart = newProductsByPart;
+        versionByProduct = newVersionByProduct;
+        loadedAt = System.nanoTime();
+    }
+
+    /**
+     * Discards the index so the next query rebuilds it.
+     */
+    public static synchronized void invalidate() {
+        partsByProduct = null;
+        productsByPart = null;
+        versionByProduct = null;
+    }
+
+    /**
+     * Checks whether any product uses the given part.
+     *
+     * @param partId The ID of the part.
+     * @return {@code true} if at least one product uses the part; {@code false} otherwise.
+     * Falls back to {@link PartDAO#isPartInUse(int)} if the index cannot be built.
+     */
+    public static synchronized boolean isPartInUse(int partId) {
+        if (!ensureLoaded()) {
+            return PartDAO.isPartInUse(partId);
+        }
+        return productsByPart.get(partId) != null;
+    }
+
+    /**
+     * Counts the distinct products that use the given part.
+     *
+     * @param partId The ID of the part.
+     * @return The number of products using the part.
+     * Falls back to {@link PartDAO#countPartProducts(int)} if the index cannot be built.
+     */
+    public static synchronized int countProductsUsing(int partId) {
+        if (!ensureLoaded()) {
+            return PartDAO.countPartProducts(partId);
+        }
+        IntIntHashMap products = productsByPart.get(partId);
+        return products == null ? 0 : products.size();
+    }
+
+    /**
+     * Retrieves the IDs of the distinct products that use the given part.
+     *
+     * @param partId The ID of the part.
+     * @return The product IDs in ascending order; empty if no product uses the part.
+     */
+    public static synchronized int[] getProductIdsUsing(int partId) {
+        if (!ensureLoaded()) {
+            return PartDAO.getPartProductIds(partId).stream().mapToInt(Integer::intValue).toArray();
+        }
+        IntIntHashMap products = productsByPart.get(partId);
+        return products == null ? new int[0] : products.keys();
+    }
+
+    /**
+     * Checks whether the given product has any associated parts.
+     *
+     * @param productId The ID of the product.
+     * @return {@code true} if the product uses at least one part; {@code false} otherwise.
+     * Falls back to querying the product's parts if the index cannot be built.
+     */
+    public static synchronized boolean hasParts(int productId) {
+        if (!ensureLoaded()) {
+            return !ProductDAO.getProductParts(productId).isEmpty();
+        }
+        return partsByProduct.get(productId) != null;
+    }
+
+    /**
+     * Retrieves the parts the given product uses, with the number of units of each, as they were stored
+     * at the given version of the product.
+     *
+     * @param productId The ID of the product.
+     * @param version The version of the product the associations are needed for.
+     * @return A copy of the part ID to quantity map, or {@code null} if the index cannot be built or does not hold
+     * the associations of that version; they must then be read from the database.
+     */
+    public static synchronized IntIntHashMap getPartQuantities(int productId, int version) {
+        if (!ensureLoaded() || !versionByProduct.containsKey(productId) || versionByProduct.get(productId) != version) {
+            return null;
+        }
+        IntIntHashMap parts = partsByProduct.get(productId);
+        return parts == null ? new IntIntHashMap() : parts.copy();
+    }
+
+    /**
+     * Records the associations a {@link ProductDAO} write has stored for a product, replacing those the index held.
+     * Does nothing if the index has not been built, since it will read them from the database when it is, or if
+     * the index already holds a newer version of the product.
+     *
+     * @param productId The ID of the product.
+     * @param version The version of the product the write left it with.
+     * @param quantities The part ID to quantity map now stored for the product.
+     */
+    static synchronized void productWritten(int productId, int version, IntIntHashMap quantities) {
+        if (partsByProduct == null || (versionByProduct.containsKey(productId) && versionByProduct.get(productId) > version)) {
+            return;
+        }
+        removeProduct(productId);
+        quantities.forEach((partId, quantity) -> {
+            adjust(partsByProduct, productId, partId, quantity);
+            adjust(productsByPart, partId, productId, quantity);
+        });
+        versionByProduct.put(productId, version);
+    }
+
+    /**
+     * Records that a product and all of its associations were deleted.
+     *
+     * @param productId The ID of the deleted product.
+     */
+    static synchronized void productRemoved(int productId) {
+        if (partsByProduct == null) {
+            return;
+        }
+        removeProduct(productId);
+        versionByProduct.remove(productId);
+    }
+
+    /**
+     * Records that a part and all of its associations were deleted.
+     *
+     * @param partId The ID of the deleted part.
+     */
+    static synchronized void partRemoved(int partId) {
+        if (productsByPart == null) {
+            return;
+        }
+        IntIntHashMap products = productsByPart.remove(partId);
+        if (products != null) {
+            products.forEach((productId, quantity) -> adjust(partsByProduct, productId, partId, -quantity));
+        }
+    }
+
+    private static void removeProduct(int productId) {
+        IntIntHashMap parts = partsByProduct.remove(productId);
+        if (parts != null) {
+            parts.forEach((partId, quantity) -> adjust(productsByPart, partId, productId, -quantity));
+        }
+    }
+
+    private static void adjust(IntObjectHashMap<IntIntHashMap> index, int key, int otherKey, int count) {
+        IntIntHashMap counts = index.computeIfAbsent(key, k -> new IntIntHashMap());
+        if (counts.addTo(otherKey, count) <= 0) {
+            counts.remove(otherKey);
+        }
+        if (counts.isEmpty()) {
+            index.remove(key);
+        }
+    }
+
+    /**
+     * Builds the index if it has not been built or has become stale.
+     *
+     * @return {@code true} if the index is available; {@code false} if it could not be built.
+     */
+    private static boolean ensureLoaded() {
+        if (partsByProduct == null || System.nanoTime() - loadedAt > Catalog.MAX_AGE.toNanos()) {
+            load();
+        }
+        return partsByProduct != null;
+    }
+}
@@ -0,0 +1,310 @@
+package kleve.PartAndProductManager.DAO;
+
+import javafx.collections.ObservableList;
+import kleve.PartAndProductManager.datamodel.Part;
+import kleve.PartAndProductManager.datamodel.Product;
+import kleve.PartAndProductManager.utilities.IntIntHashMap;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * Caches the full part and product catalog shown on the main menu and the other screens that list every part.
+ * The catalog can be prefetched in the background (see {@link #prefetch()}) so that the first screen
+ * that needs it does not wait for the database. A cached list is reused until it is older than
+ * {@link #MAX_AGE}, after which the next request reloads it; the age limit keeps changes made
+ * on other workstations from going unseen for long.
+ * Writes made by this application are applied to the cached lists in place, as they are published to the
+ * {@link DataChangeBus}: an added, updated or removed entity becomes a single add, set or remove on the list,
+ * so tables showing it update one row and keep their scroll position and selection. Each loaded list keeps
+ * the position of every ID in it, so a change finds its row without scanning the list, and a change is applied
+ * to the last loaded list even when the cache is stale and will be reloaded, since tables may still show it.
+ * While a list is fresh, searches are answered from it in memory (see {@link SearchCriteria});
+ * once it is stale or has not been loaded, searches fall back to the database.
+ * <p>
+ * A table with more than {@link #MAX_CACHED_ROWS} rows is not cached at all: {@link #arePartsPartial()} and
+ * {@link #areProductsPartial()} report it, and screens then show it through a lazily loading table list
+ * and search it in the database.
+ * </p>
+ *
+ * @author Jonathan Kleve
+ */
+public class Catalog {
+
+    /**
+     * How long a loaded list is reused before it is considered stale and reloaded.
+     */
+    public static final Duration MAX_AGE = Duration.ofSeconds(30);
+
+    /**
+     * The largest table that is loaded into the cache in full.
+     */
+    public static final int MAX_CACHED_ROWS = 20_000;
+
+    private static CompletableFuture<ObservableList<Part>> parts;
+    private static long partsLoadedAt;
+    private static CompletableFuture<ObservableList<Product>> products;
+    private static long productsLoadedAt;
+    private static int partCount = -1;
+    private static long partsCountedAt;
+    private static int productCount = -1;
+    private static long productsCountedAt;
+    private static Rows<Part> partRows;
+    private static Rows<Product> productRows;
+
+    static {
+        DataChangeBus.addPartListener(Catalog::applyPartChange);
+        DataChangeBus.addProductListener(Catalog::applyProductChange);
+    }
+
+    /**
+     * Loads all parts and products into the cache on the calling thread.
+     * This is intended to be run in the background during startup.
+     */
+    public static void prefetch() {
+        if (!arePartsPartial()) {
+            getParts();
+        }
+        if (!areProductsPartial()) {
+            getProducts();
+        }
+    }
+
+    /**
+     * Checks whether the parts table is too large to cache, counting its rows if the last count is stale.
+     * Callers should then use lazily loaded windows instead of {@link #getParts()}.
+     *
+     * @return {@code true} if the parts table has more than {@link #MAX_CACHED_ROWS} rows; {@code false} otherwise.
+     */
+    public static boolean arePartsPartial() {
+        synchronized (Catalog.class) {
+            if (partCount >= 0 && !isStale(partsCountedAt)) {
+                return partCount > MAX_CACHED_ROWS;
+            }
+        }
+        int count = PartDAO.countParts();
+        synchronized (Catalog.class) {
+            partCount = count;
+            partsCountedAt = System.nanoTime();
+        }
+        return count > MAX_CACHED_ROWS;
+    }
+
+    /**
+     * Checks whether the products table is too large to cache, counting its rows if the last count is stale.
+     * Callers should then use lazily loaded windows instead of {@link #getProducts()}.
+     *
+     * @return {@code true} if the products table has more than {@link #MAX_CACHED_ROWS} rows; {@code false} otherwise.
+     */
+    public static boolean areProductsPartial() {
+        synchronized (Catalog.class) {
+            if (productCount >= 0 && !isStale(productsCountedAt)) {
+                return productCount > MAX_CACHED_ROWS;
+            }
+        }
+        int count = ProductDAO.countProducts();
+        synchronized (Catalog.class) {
+            productCount = count;
+            productsCountedAt = System.nanoTime();
+        }
+        return count > MAX_CACHED_ROWS;
+    }
+
+    /**
+     * Retrieves every part, from the cache if it is fresh and from the database otherwise.
+     * If another thread is loading the parts, this waits for that load instead of starting a second one.
+     *
+     * @return An {@link ObservableList} containing all {@link Part} objects.
+     */
+    public static ObservableList<Part> getParts() {
+        CompletableFuture<ObservableList<Part>> load;
+        synchronized (Catalog.class) {
+            if (parts == null || isStale(partsLoadedAt)) {
+                parts = new CompletableFuture<>();
+                partsLoadedAt = System.nanoTime();
+                load = parts;
+            } else {
+                return parts.join();
+            }
+        }
+        return complete(load, () -> {
+            ObservableList<Part> loaded = PartDAO.getAllParts();
+            Rows<Part> rows = new Rows<>(loaded, Part::getId);
+            synchronized (Catalog.class) {
+                partRows = rows;
+            }
+            return loaded;
+        }, Catalog::invalidateParts);
+    }
+
+    /**
+     * Retrieves every product, from the cache if it is fresh and from the database otherwise.
+     * If another thread is loading the products, this waits for that load instead of starting a second one.
+     *
+     * @return An {@link ObservableList} containing all {@link Product} objects.
+     */
+    public static ObservableList<Product> getProducts() {
+        CompletableFuture<ObservableList<Product>> load;
+        synchronized (Catalog.class) {
+            if (products == null || isStale(productsLoadedAt)) {
+                products = new CompletableFuture<>();
+                productsLoadedAt = System.nanoTime();
+                load = products;
+            } else {
+                return products.join();
+            }
+        }
+        return complete(load, () -> {
+            ObservableList<Product> loaded = ProductDAO.getAllProducts();
+            Rows<Product> rows = new Rows<>(loaded, Product::getId);
+            synchronized (Catalog.class) {
+                productRows = rows;
+            }
+            return loaded;
+        }, Catalog::invalidateProducts);
+    }
+
+    /**
+     * Checks whether the cached parts can answer a search in memory: they have been loaded successfully
+     * and are not stale. This never starts a load.
+     *
+     * @return {@code true} if a search can be run against {@link #getParts()} without querying the database; {@code false} otherwise.
+     */
+    public static synchronized boolean arePartsFresh() {
+        return isLoaded(parts) && !isStale(partsLoadedAt);
+    }
+
+    /**
+     * Checks whether the cached products can answer a search in memory: they have been loaded successfully
+     * and are not stale. This never starts a load.
+     *
+     * @return {@code true} if a search can be run against {@link #getProducts()} without querying the database; {@code false} otherwise.
+     */
+    public static synchronized boolean areProductsFresh() {
+        return isLoaded(products) && !isStale(productsLoadedAt);
+    }
+
+    /**
+     * Discards the cached parts so the next request reloads them.
+     */
+    public static synchronized void invalidateParts() {
+        parts = null;
+        partCount = -1;
+    }
+
+    /**
+     * Discards the cached products so the next request reloads them.
+     */
+    public static synchronized void invalidateProducts() {
+        products = null;
+        productCount = -1;
+    }
+
+    /**
+     * Applies a part change to the last loaded parts, and discards the cache if it is not loaded and fresh
+     * (an in-flight load may or may not include the change) so the next request reloads it.
+     */
+    private static void applyPartChange(EntityChange<Part> change) {
+        Rows<Part> rows;
+        synchronized (Catalog.class) {
+            partCount = -1;
+            if (!isLoaded(parts) || isStale(partsLoadedAt) || change.id() <= 0) {
+                parts = null;
+            }
+            rows = change.id() > 0 ? partRows : null;
+        }
+        if (rows != null) {
+            rows.apply(change);
+        }
+    }
+
+    /**
+     * Applies a product change to the last loaded products, and discards the cache if it is not loaded and fresh.
+     */
+    private static void applyProductChange(EntityChange<Product> change) {
+        Rows<Product> rows;
+        synchronized (Catalog.class) {
+            productCount = -1;
+            if (!isLoaded(products) || isStale(productsLoadedAt) || change.id() <= 0) {
+                products = null;
+            }
+            rows = change.id() > 0 ? productRows : null;
+        }
+        if (rows != null) {
+            rows.apply(change);
+        }
+    }
+
+    private static boolean isLoaded(CompletableFuture<?> load) {
+        return load != null && load.isDone() && !load.isCompletedExceptionally();
+    }
+
+    private static boolean isStale(long loadedAt) {
+        return System.nanoTime() - loadedAt > MAX_AGE.toNanos();
+    }
+
+    /**
+     * Runs a load and publishes its result to any thread waiting on it.
+     * A failed load is discarded so that the next request tries again.
+     */
+    private static <T> T complete(CompletableFuture<T> load, Supplier<T> loader, Runnable discard) {
+        try {
+            T result = loader.get();
+            load.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            discard.run();
+            load.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * A loaded list together with the position of every ID in it. Changes are applied on the JavaFX
+     * application thread, which is the only thread that mutates the list once it has been loaded.
+     */
+    private static final class Rows<T> {
+
+        private final ObservableList<T> list;
+        private final ToIntFunction<T> idOf;
+        private final IntIntHashMap positions;
+
+        Rows(ObservableList<T> list, ToIntFunction<T> idOf) {
+            this.list = list;
+            this.idOf = idOf;
+            this.positions = new IntIntHashMap(list.size());
+            for (int i = 0; i < list.size(); i++) {
+                positions.put(idOf.applyAsInt(list.get(i)), i);
+            }
+        }
+
+        /**
+         * Applies a change to the list as a single mutation. An addition or update of an entity the list
+         * does not hold, or already holds, is treated as the other so the list never holds an ID twice.
+         */
+        void apply(EntityChange<T> change) {
+            int id = change.id();
+            switch (change.kind()) {
+                case ADDED, UPDATED -> {
+                    if (positions.containsKey(id)) {
+                        list.set(positions.get(id), change.entity());
+                    } else {
+                        positions.put(id, list.size());
+                        list.add(change.entity());
+                    }
+                }
+                case REMOVED -> {
+                    if (positions.containsKey(id)) {
+                        int index = positions.remove(id);
+                        list.remove(index);
+                        for (int i = index; i < list.size(); i++) {
+                            positions.put(idOf.applyAsInt(list.get(i)), i);
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package kleve.PartAndProductManager.DAO;
+
+import javafx.application.Platform;
+import kleve.PartAndProductManager.datamodel.Part;
+import kleve.PartAndProductManager.datamodel.Product;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Delivers the {@link EntityChange}s published by the DAOs after every successful write to the listeners
+ * that keep cached lists current, such as the {@link Catalog}.
+ * <p>
+ * Listeners are called on the JavaFX application thread, because the lists they update are shown in tables.
+ * A change published on another thread is handed over to the application thread; when JavaFX is not running
+ * (e.g., in the DAO tests) it is delivered on the publishing thread.
+ * </p>
+ *
+ * @author Jonathan Kleve
+ */
+public class DataChangeBus {
+    private static final List<Consumer<EntityChange<Part>>> partListeners = new CopyOnWriteArrayList<>();
+    private static final List<Consumer<EntityChange<Product>>> productListeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Registers a listener for part changes.
+     *
+     * @param listener Called with every part change.
+     */
+    public static void addPartListener(Consumer<EntityChange<Part>> listener) {
+        partListeners.add(listener);
+    }
+
+    /**
+     * Registers a listener for product changes.
+     *
+     * @param listener Called with every product change.
+     */
+    public static void addProductListener(Consumer<EntityChange<Product>> listener) {
+        productListeners.add(listener);
+    }
+
+    /**
+     * Publishes a part change to every part listener.
+     *
+     * @param change The change written to the database.
+     */
+    static void publishPart(EntityChange<Part> change) {
+        deliver(partListeners, change);
+    }
+
+    /**
+     * Publishes a product change to every product listener.
+     *
+     * @param change The change written to the database.
+     */
+    static void publishProduct(EntityChange<Product> change) {
+        deliver(productListeners, change);
+    }
+
+    /**
+     * Runs a change of objects that tables may be showing on the JavaFX application thread. It runs immediately
+     * on that thread or when JavaFX is not running, and is handed over to it otherwise; changes handed over
+     * run in the order they were handed over.
+     *
+     * @param update The change to run.
+     * @return {@code true} if the change has run; {@code false} if it will run later on the application thread.
+     */
+    static boolean runOnFxThread(Runnable update) {
+        if (Platform.isFxApplicationThread()) {
+            update.run();
+            return true;
+        }
+        try {
+            Platform.runLater(update);
+            return false;
+        } catch (IllegalStateException e) {
+            update.run(); // JavaFX is not running
+            return true;
+        }
+    }
+
+    private static <T> void deliver(List<Consumer<EntityChange<T>>> listeners, EntityChange<T> change) {
+        runOnFxThread(() -> listeners.forEach(listener -> listener.accept(change)));
+    }
+}
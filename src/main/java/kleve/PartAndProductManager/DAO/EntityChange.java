@@ -0,0 +1,62 @@
+package kleve.PartAndProductManager.DAO;
+
+/**
+ * Describes a single change a DAO has written to the database, so that cached lists can apply
+ * the same change in place instead of being reloaded. Published through the {@link DataChangeBus}.
+ *
+ * @param kind Whether the entity was added, updated or removed.
+ * @param id The ID of the changed entity.
+ * @param entity The entity as written, or {@code null} if it was removed.
+ * @param <T> The type of the changed entity ({@link kleve.PartAndProductManager.datamodel.Part} or
+ *            {@link kleve.PartAndProductManager.datamodel.Product}).
+ * @author Jonathan Kleve
+ */
+public record EntityChange<T>(Kind kind, int id, T entity) {
+
+    /**
+     * The kinds of change a DAO write can make.
+     */
+    public enum Kind {
+        /** A new entity was inserted. */
+        ADDED,
+        /** An existing entity was overwritten. */
+        UPDATED,
+        /** An entity was deleted. */
+        REMOVED
+    }
+
+    /**
+     * Creates a change for an inserted entity.
+     *
+     * @param id The ID the database assigned to the entity.
+     * @param entity The inserted entity.
+     * @param <T> The type of the entity.
+     * @return An {@link Kind#ADDED} change.
+     */
+    public static <T> EntityChange<T> added(int id, T entity) {
+        return new EntityChange<>(Kind.ADDED, id, entity);
+    }
+
+    /**
+     * Creates a change for an overwritten entity.
+     *
+     * @param id The ID of the entity.
+     * @param entity The entity as written.
+     * @param <T> The type of the entity.
+     * @return An {@link Kind#UPDATED} change.
+     */
+    public static <T> EntityChange<T> updated(int id, T entity) {
+        return new EntityChange<>(Kind.UPDATED, id, entity);
+    }
+
+    /**
+     * Creates a change for a deleted entity.
+     *
+     * @param id The ID of the deleted entity.
+     * @param <T> The type of the entity.
+     * @return A {@link Kind#REMOVED} change.
+     */
+    public static <T> EntityChange<T> removed(int id) {
+        return new EntityChange<>(Kind.REMOVED, id, null);
+    }
+}
@@ -0,0 +1,212 @@
+package kleve.PartAndProductManager.DAO;
+
+import kleve.PartAndProductManager.monitoring.DAOEvent;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+/**
+ * Hands out part and product IDs from blocks reserved in the `id_sequences` table (hi/lo allocation).
+ * <p>
+ * Without the allocator, every inserted row waits for the ID the database generates for it. With it, one statement
+ * reserves a whole block of IDs and the IDs are then assigned in memory: {@link PartDAO#addParts(java.util.List)} and
+ * {@link ProductDAO#addProducts(java.util.List)} send their rows, including the `product_parts` rows of new products,
+ * without reading generated keys back, and an import can assign the IDs of a whole graph of parts and products
+ * with {@link #nextIds(Sequence, int)} before writing any of it.
+ * </p>
+ * <p>
+ * The allocator is off unless {@link #enable(int)} is called. IDs of a reserved block that are never used are lost,
+ * leaving gaps; IDs are unique, not consecutive. Every client writing to the same database should use the allocator:
+ * a block is reserved past the highest ID in the table, but a row inserted with AUTO_INCREMENT by another client
+ * afterwards can take an ID from a block that was already reserved.
+ * </p>
+ *
+ * @author Jonathan Kleve
+ */
+public final class IdAllocator {
+
+    /**
+     * The tables whose IDs the allocator hands out.
+     */
+    public enum Sequence {
+        /** The IDs of the parts table. */
+        PARTS("parts"),
+        /** The IDs of the products table. */
+        PRODUCTS("products");
+
+        private final String table;
+
+        Sequence(String table) {
+            this.table = table;
+        }
+    }
+
+    /**
+     * The number of IDs reserved at a time unless a larger number is requested at once.
+     */
+    public static final int DEFAULT_BLOCK_SIZE = 100;
+
+    /**
+     * Moves a sequence forward by a block and returns the block's first ID through LAST_INSERT_ID(), so the reservation
+     * is a single atomic statement. The sequence first catches up with the highest ID in its table, which is read from
+     * the primary key without touching any rows.
+     */
+    private static final String RESERVE_SQL = "UPDATE id_sequences SET next_id = LAST_INSERT_ID(GREATEST(next_id,"
+            + " (SELECT COALESCE(MAX(id), 0) + 1 FROM %s))) + ? WHERE name = ?";
+
+    private static final Map<Sequence, Block> blocks = new EnumMap<>(Sequence.class);
+    private static volatile boolean enabled;
+    private static int blockSize = DEFAULT_BLOCK_SIZE;
+
+    private IdAllocator() {
+    }
+
+    /**
+     * Turns the allocator on: from now on, the DAO inserts assign IDs from reserved blocks.
+     *
+     * @param size The number of IDs to reserve at a time; larger blocks mean fewer reservations and larger gaps.
+     */
+    public static synchronized void enable(int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Block size must be positive: " + size);
+        }
+        blockSize = size;
+        enabled = true;
+    }
+
+    /**
+     * Turns the allocator off. The DAO inserts let the database generate IDs again, and the rest of the
+     * reserved blocks is discarded.
+     */
+    public static synchronized void disable() {
+        enabled = false;
+        blocks.clear();
+    }
+
+    /**
+     * Checks whether the DAO inserts assign IDs from reserved blocks.
+     *
+     * @return {@code true} if the allocator is on; {@code false} otherwise.
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Hands out one ID of a sequence.
+     *
+     * @param sequence The table the ID is for.
+     * @return An ID no other row of the table has or will be given by the allocator.
+     * @throws SQLException If a new block is needed and cannot be reserved.
+     */
+    public static int nextId(Sequence sequence) throws SQLException {
+        return nextIds(sequence, 1)[0];
+    }
+
+    /**
+     * Hands out several IDs of a sequence. They come from the current block and, if it does not have enough left,
+     * from a single new reservation covering all the rest.
+     * <p>
+     * A reservation is never part of a transaction, even when it is made during one: it is committed at once,
+     * so a rollback cannot return IDs that were already handed out.
+     * </p>
+     *
+     * @param sequence The table the IDs are for.
+     * @param count The number of IDs.
+     * @return The IDs in ascending order.
+     * @throws SQLException If a new block is needed and cannot be reserved.
+     */
+    public static synchronized int[] nextIds(Sequence sequence, int count) throws SQLException {
+        int[] ids = new int[count];
+        Block block = blocks.get(sequence);
+        int filled = 0;
+        while (block != null && filled < count && block.next < block.end) {
+            ids[filled++] = block.next++;
+        }
+        if (filled < count) {
+            block = reserve(sequence, Math.max(blockSize, count - filled));
+            blocks.put(sequence, block);
+            while (filled < count) {
+                ids[filled++] = block.next++;
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Picks the ID each of several new entities is inserted with: the one it was already given from the allocator,
+     * or a new one. All new IDs come from a single reservation at most.
+     *
+     * @param sequence The table the entities are inserted into.
+     * @param entities The entities, whose ID is 0 unless it was assigned by the allocator.
+     * @param currentId Reads an entity's ID.
+     * @param <T> The type of the entities.
+     * @return The ID of each entity, in the same order.
+     * @throws SQLException If a new block is needed and cannot be reserved.
+     */
+    static <T> int[] idsFor(Sequence sequence, List<? extends T> entities, ToIntFunction<T> currentId) throws SQLException {
+        int missing = 0;
+        for (T entity : entities) {
+            if (currentId.applyAsInt(entity) <= 0) {
+                missing++;
+            }
+        }
+        int[] newIds = missing > 0 ? nextIds(sequence, missing) : new int[0];
+        int[] ids = new int[entities.size()];
+        int next = 0;
+        for (int i = 0; i < ids.length; i++) {
+            int id = currentId.applyAsInt(entities.get(i));
+            ids[i] = id > 0 ? id : newIds[next++];
+        }
+        return ids;
+    }
+
+    /**
+     * Forgets the reserved blocks, e.g., when the connection is switched to another database with its own sequences.
+     */
+    static synchronized void discardBlocks() {
+        blocks.clear();
+    }
+
+    private static Block reserve(Sequence sequence, int size) throws SQLException {
+        DAOEvent daoEvent = DAOEvent.start("reserveIds", "IdBlock", size);
+        // The shared connection autocommits, so the reservation is final even if the insert using it is rolled back
+        try (PreparedStatement statement = JDBC.connection.prepareStatement(
+                String.format(RESERVE_SQL, sequence.table), Statement.RETURN_GENERATED_KEYS)) {
+            statement.setInt(1, size);
+            statement.setString(2, sequence.table);
+            if (statement.executeUpdate() != 1) {
+                throw new SQLException("The ID sequence of " + sequence.table + " is missing");
+            }
+            // The driver reports the value given to LAST_INSERT_ID() as the generated key
+            try (ResultSet keys = statement.getGeneratedKeys()) {
+                if (!keys.next()) {
+                    throw new SQLException("The ID sequence of " + sequence.table + " returned no block");
+                }
+                int first = keys.getInt(1);
+                return new Block(first, first + size);
+            }
+        } finally {
+            daoEvent.end(1);
+        }
+    }
+
+    /**
+     * The unused rest of a reserved block: the IDs from {@code next} up to, but not including, {@code end}.
+     */
+    private static final class Block {
+        private int next;
+        private final int end;
+
+        private Block(int next, int end) {
+            this.next = next;
+            this.end = end;
+        }
+    }
+}
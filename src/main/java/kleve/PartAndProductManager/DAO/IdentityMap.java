@@ -0,0 +1,234 @@
+package kleve.PartAndProductManager.DAO;
+
+import javafx.application.Platform;
+import kleve.PartAndProductManager.datamodel.InHouse;
+import kleve.PartAndProductManager.datamodel.Outsourced;
+import kleve.PartAndProductManager.datamodel.Part;
+import kleve.PartAndProductManager.datamodel.Product;
+import kleve.PartAndProductManager.utilities.IntObjectHashMap;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+
+/**
+ * Keeps one canonical {@link Part} and {@link Product} instance per ID for the whole session.
+ * <p>
+ * Every DAO method that builds parts or products passes them through this map. If an instance with the
+ * same ID is already in use anywhere (in the {@link Catalog}, in a product's associated parts, in a table),
+ * its fields are refreshed from the newly loaded row and the existing instance is returned instead of the new one.
+ * A part used by thousands of products therefore exists once on the heap, and an update to it is seen
+ * by every list and product that refers to it.
+ * </p>
+ * <p>
+ * Canonical instances are shown in tables, so their fields are only written on the JavaFX application thread.
+ * A row loaded on another thread (e.g., by a search or a table page loader) whose version is newer than the
+ * canonical instance's is copied into it on the application thread, and the loader gets the newly loaded
+ * instance, whose values it can read safely. A row whose version is not newer is already held by the canonical
+ * instance, since every write increments the version, and never overwrites it.
+ * </p>
+ * <p>
+ * Instances are held through weak references, so the map never keeps an entity alive on its own:
+ * once nothing else refers to it, it is collected and the next load creates a new canonical instance.
+ * A part whose type has changed (In-House to Outsourced or back) cannot be refreshed in place;
+ * the newly loaded instance replaces it as the canonical one.
+ * </p>
+ *
+ * @author Jonathan Kleve
+ */
+public class IdentityMap {
+    private static final IntObjectHashMap<IdReference<Part>> parts = new IntObjectHashMap<>();
+    private static final IntObjectHashMap<IdReference<Product>> products = new IntObjectHashMap<>();
+    private static final ReferenceQueue<Object> collected = new ReferenceQueue<>();
+
+    /**
+     * A weak reference that remembers the ID it was registered under, so it can be removed once collected.
+     */
+    private static final class IdReference<T> extends WeakReference<T> {
+        private final int id;
+        private final boolean part;
+
+        private IdReference(T referent, int id, boolean part) {
+            super(referent, collected);
+            this.id = id;
+            this.part = part;
+        }
+    }
+
+    /**
+     * Returns the canonical instance for a part that was just loaded or written.
+     *
+     * @param loaded The part as loaded from, or written to, the database; may be {@code null}.
+     * @return The canonical part with the loaded values, {@code loaded} itself if it is newer than the canonical
+     * part and was loaded off the JavaFX application thread, or {@code null} if {@code loaded} is {@code null}.
+     */
+    static Part part(Part loaded) {
+        if (loaded == null || loaded.getId() <= 0) {
+            return loaded;
+        }
+        Part canonical;
+        synchronized (IdentityMap.class) {
+            purgeCollected();
+            IdReference<Part> reference = parts.get(loaded.getId());
+            canonical = reference != null ? reference.get() : null;
+            if (canonical == loaded) {
+                return canonical;
+            }
+            if (canonical == null || canonical.getClass() != loaded.getClass()) {
+                parts.put(loaded.getId(), new IdReference<>(loaded, loaded.getId(), true));
+                return loaded;
+            }
+        }
+        return refresh(canonical, loaded, canonical.getVersion(), loaded.getVersion(), () -> copyPart(loaded, canonical));
+    }
+
+    /**
+     * Returns the canonical instance for a product that was just loaded or written.
+     *
+     * @param loaded The product as loaded from, or written to, the database; may be {@code null}.
+     * @param withAssociations Whether {@code loaded} carries its associated parts. If not, the canonical
+     *                         instance keeps the associated parts it already has.
+     * @return The canonical product with the loaded values, {@code loaded} itself if it is newer than the canonical
+     * product and was loaded off the JavaFX application thread, or {@code null} if {@code loaded} is {@code null}.
+     */
+    static Product product(Product loaded, boolean withAssociations) {
+        if (loaded == null || loaded.getId() <= 0) {
+            return loaded;
+        }
+        Product canonical;
+        synchronized (IdentityMap.class) {
+            purgeCollected();
+            IdReference<Product> reference = products.get(loaded.getId());
+            canonical = reference != null ? reference.get() : null;
+            if (canonical == loaded) {
+                return canonical;
+            }
+            if (canonical == null) {
+                products.put(loaded.getId(), new IdReference<>(loaded, loaded.getId(), false));
+                return loaded;
+            }
+        }
+        return refresh(canonical, loaded, canonical.getVersion(), loaded.getVersion(),
+                () -> copyProduct(loaded, canonical, withAssociations));
+    }
+
+    /**
+     * Retrieves the canonical part with the given ID, if one is in use.
+     *
+     * @param partId The ID of the part.
+     * @return The canonical part, or {@code null} if no instance with that ID is in memory.
+     */
+    static synchronized Part cachedPart(int partId) {
+        IdReference<Part> reference = parts.get(partId);
+        return reference != null ? reference.get() : null;
+    }
+
+    /**
+     * Retrieves the canonical product with the given ID, if one is in use.
+     *
+     * @param productId The ID of the product.
+     * @return The canonical product, or {@code null} if no instance with that ID is in memory.
+     */
+    static synchronized Product cachedProduct(int productId) {
+        IdReference<Product> reference = products.get(productId);
+        return reference != null ? reference.get() : null;
+    }
+
+    /**
+     * Forgets the canonical part with the given ID, e.g., after it was deleted.
+     *
+     * @param partId The ID of the part.
+     */
+    static synchronized void forgetPart(int partId) {
+        parts.remove(partId);
+    }
+
+    /**
+     * Forgets the canonical product with the given ID, e.g., after it was deleted.
+     *
+     * @param productId The ID of the product.
+     */
+    static synchronized void forgetProduct(int productId) {
+        products.remove(productId);
+    }
+
+    /**
+     * Forgets every canonical instance, e.g., when the connection is switched to another database
+     * whose IDs mean different entities.
+     */
+    static synchronized void clear() {
+        parts.clear();
+        products.clear();
+    }
+
+    /**
+     * Copies a loaded row into its canonical instance on the JavaFX application thread.
+     *
+     * @return The instance the loader should use: the canonical one if it holds the loaded values by the time
+     * this returns, and the loaded one if the copy only runs later.
+     */
+    private static <T> T refresh(T canonical, T loaded, int canonicalVersion, int loadedVersion, Runnable copy) {
+        if (!Platform.isFxApplicationThread() && loadedVersion <= canonicalVersion) {
+            return canonical;
+        }
+        return DataChangeBus.runOnFxThread(copy) ? canonical : loaded;
+    }
+
+    /**
+     * Copies the fields of a loaded part into its canonical instance, unless the canonical part is already newer
+     * (a copy handed over to the JavaFX application thread may run after a later write).
+     */
+    private static void copyPart(Part source, Part target) {
+        if (source.getVersion() < target.getVersion()) {
+            return;
+        }
+        target.setName(source.getName());
+        target.setPrice(source.getPrice());
+        target.setStock(source.getStock());
+        target.setMin(source.getMin());
+        target.setMax(source.getMax());
+        target.setCreateDate(source.getCreateDate());
+        target.setLastUpdated(source.getLastUpdated());
+        target.setVersion(source.getVersion());
+        if (source instanceof InHouse inHouse) {
+            ((InHouse) target).setMachineId(inHouse.getMachineId());
+        } else if (source instanceof Outsourced outsourced) {
+            ((Outsourced) target).setCompanyName(outsourced.getCompanyName());
+        }
+    }
+
+    /**
+     * Copies the fields of a loaded product into its canonical instance, unless the canonical product is already newer.
+     */
+    private static void copyProduct(Product source, Product target, boolean withAssociations) {
+        if (source.getVersion() < target.getVersion()) {
+            return;
+        }
+        target.setName(source.getName());
+        target.setPrice(source.getPrice());
+        target.setStock(source.getStock());
+        target.setMin(source.getMin());
+        target.setMax(source.getMax());
+        target.setCreateDate(source.getCreateDate());
+        target.setLastUpdated(source.getLastUpdated());
+        target.setVersion(source.getVersion());
+        if (withAssociations) {
+            target.setAssociatedParts(source.getAssociatedParts());
+        }
+    }
+
+    /**
+     * Removes the entries of instances that have been garbage collected. An entry is only removed if it still
+     * holds the collected reference; the ID may have been registered again with a new instance since.
+     */
+    private static void purgeCollected() {
+        Reference<?> reference;
+        while ((reference = collected.poll()) != null) {
+            IdReference<?> idReference = (IdReference<?>) reference;
+            IntObjectHashMap<? extends IdReference<?>> map = idReference.part ? parts : products;
+            if (map.get(idReference.id) == idReference) {
+                map.remove(idReference.id);
+            }
+        }
+    }
+}
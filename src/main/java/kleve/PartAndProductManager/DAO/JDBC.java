@@ -2,6 +2,16 @@ package kleve.PartAndProductManager.DAO;
 
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
 
 /**
  * Abstract class for managing JDBC database connections.
@@ -31,9 +41,9 @@ public abstract class JDBC {
     private static final String databaseName = "capstone_db";
 
     /**
-     * The complete JDBC URL for the database connection.
+     * The connection options. Batched inserts are rewritten by the driver into multi-row statements.
      */
-    private static final String jdbUrl = protocol + vendor + location + databaseName + "?connectionTimeZone = SERVER";
+    private static final String options = "?connectionTimeZone = SERVER&rewriteBatchedStatements=true";
 
     /**
      * The JDBC driver class name.
@@ -52,17 +62,73 @@ public abstract class JDBC {
 
     /**
      * The database connection object.
+     * It is volatile because the connection is opened on a background thread during startup.
+     * It always autocommits: it is shared by every thread, so transactions run on connections of their own
+     * (see {@link #inTransaction}).
      */
-    public static Connection connection;
+    public static volatile Connection connection;
+
+    /**
+     * The largest number of transactions open at the same time, each on a connection of its own.
+     */
+    private static final int TRANSACTION_CONNECTIONS = 4;
+
+    /**
+     * The URL the shared connection was opened with, which the transaction connections are opened with too.
+     */
+    private static volatile String connectionUrl;
+
+    /**
+     * Transaction connections not in use. They are kept with autocommit off.
+     */
+    private static final BlockingQueue<Connection> idleTransactionConnections = new LinkedBlockingQueue<>();
+
+    /**
+     * One permit per transaction connection; a transaction waits for one when all are in use.
+     */
+    private static final Semaphore transactionPermits = new Semaphore(TRANSACTION_CONNECTIONS);
+
+    /**
+     * The connection of the transaction the current thread has open, if any.
+     */
+    private static final ThreadLocal<Connection> currentTransaction = new ThreadLocal<>();
+
+    /**
+     * Work that runs in a database transaction.
+     *
+     * @param <T> The type of the work's result.
+     */
+    @FunctionalInterface
+    interface TransactionWork<T> {
+        /**
+         * Runs the statements of the transaction.
+         *
+         * @param connection The connection of the transaction; every statement of the work must be prepared on it.
+         * @return The result of the work.
+         * @throws SQLException If a statement fails; the transaction is then rolled back.
+         */
+        T run(Connection connection) throws SQLException;
+    }
 
     /**
      * Opens a connection to the MySQL database.
      * This method loads the JDBC driver and establishes a connection using the provided credentials.
      */
     public static void openConnection() {
+        openConnection(databaseName);
+    }
+
+    /**
+     * Opens a connection to another database on the same MySQL server, with the same credentials.
+     * Tests use this to work in a database of their own; an empty name connects without selecting a database.
+     *
+     * @param database The name of the database to connect to.
+     */
+    static void openConnection(String database) {
         try {
             Class.forName(driver);
-            connection = DriverManager.getConnection(jdbUrl, userName, password);
+            connectionUrl = protocol + vendor + location + database + options;
+            connection = DriverManager.getConnection(connectionUrl, userName, password);
             System.out.println("Connection Successful!");
         } catch (Exception e) {
             e.printStackTrace();
@@ -71,14 +137,159 @@ public abstract class JDBC {
 
     /**
      * Closes the database connection.
-     * This method closes the current database connection.
+     * This method closes the current database connection and the idle transaction connections.
+     * Afterwards {@link #connection} is {@code null} until a connection is opened again.
      */
     public static void closeConnection() {
+        Connection idle;
+        while ((idle = idleTransactionConnections.poll()) != null) {
+            try {
+                idle.close();
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
+        Connection closing = connection;
+        connection = null;
+        if (closing == null) {
+            return;
+        }
         try {
-            connection.close();
+            closing.close();
             System.out.println("Connection Closed!");
         } catch (Exception e) {
             e.printStackTrace();
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Runs work in a transaction: it is committed if the work completes and rolled back if it throws.
+     * <p>
+     * The transaction runs on a connection of its own, never on the shared {@link #connection}, so statements
+     * other threads run on the shared connection meanwhile are neither part of it nor see its uncommitted rows.
+     * Up to {@value #TRANSACTION_CONNECTIONS} transactions run at the same time; further ones wait for a connection.
+     * Work started by a thread that already has a transaction open joins it and gets the same connection.
+     * </p>
+     *
+     * @param work The statements to run.
+     * @param <T> The type of the work's result.
+     * @return The result of the work.
+     * @throws SQLException If the work fails (after the rollback), no connection can be opened or the
+     * transaction cannot be committed.
+     */
+    static <T> T inTransaction(TransactionWork<T> work) throws SQLException {
+        Connection joined = currentTransaction.get();
+        if (joined != null) {
+            return work.run(joined);
+        }
+        Connection transactionConnection = borrowTransactionConnection();
+        boolean reusable = false;
+        currentTransaction.set(transactionConnection);
+        try {
+            T result = work.run(transactionConnection);
+            transactionConnection.commit();
+            reusable = true;
+            return result;
+        } catch (SQLException | RuntimeException e) {
+            try {
+                transactionConnection.rollback();
+                reusable = true;
+            } catch (SQLException rollbackFailure) {
+                e.addSuppressed(rollbackFailure);
+            }
+            throw e;
+        } finally {
+            currentTransaction.remove();
+            releaseTransactionConnection(transactionConnection, reusable);
+        }
+    }
+
+    /**
+     * Checks whether the current thread has a transaction open, i.e., is running work passed to {@link #inTransaction}.
+     *
+     * @return {@code true} if the current thread is inside a transaction.
+     */
+    static boolean isInTransaction() {
+        return currentTransaction.get() != null;
+    }
+
+    /**
+     * Takes an idle transaction connection or opens a new one, waiting while all are in use. The connection
+     * is switched to the database the shared connection uses, which tests change after connecting.
+     */
+    private static Connection borrowTransactionConnection() throws SQLException {
+        try {
+            transactionPermits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a transaction connection", e);
+        }
+        try {
+            Connection transactionConnection = idleTransactionConnections.poll();
+            if (transactionConnection == null) {
+                transactionConnection = DriverManager.getConnection(connectionUrl, userName, password);
+                transactionConnection.setAutoCommit(false);
+            }
+            String catalog = connection.getCatalog();
+            if (catalog != null && !catalog.equals(transactionConnection.getCatalog())) {
+                transactionConnection.setCatalog(catalog);
+            }
+            return transactionConnection;
+        } catch (SQLException | RuntimeException e) {
+            transactionPermits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns a transaction connection to the idle ones, or closes it if its transaction could not be ended cleanly.
+     */
+    private static void releaseTransactionConnection(Connection transactionConnection, boolean reusable) {
+        try {
+            if (reusable) {
+                idleTransactionConnections.add(transactionConnection);
+            } else {
+                transactionConnection.close();
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        } finally {
+            transactionPermits.release();
+        }
+    }
+
+    /**
+     * The current time as the DAOs store it in the `create_date` and `last_updated` columns.
+     * It is truncated to whole seconds like the DATETIME columns, so an entity stamped with it
+     * carries the same value it would have if it were read back.
+     *
+     * @return The current time.
+     */
+    static Timestamp currentTimestamp() {
+        return Timestamp.from(LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).toInstant(ZoneOffset.UTC));
+    }
+
+    /**
+     * Executes a batched insert prepared with {@link java.sql.Statement#RETURN_GENERATED_KEYS} and reads the keys
+     * the database generated, in the order the rows were added to the batch.
+     *
+     * @param ps The insert statement with its batch.
+     * @param rows The number of rows in the batch.
+     * @return The generated keys, one per row.
+     * @throws SQLException If the insert fails or does not return a key for every row.
+     */
+    static int[] executeAndReadKeys(PreparedStatement ps, int rows) throws SQLException {
+        ps.executeBatch();
+        int[] keys = new int[rows];
+        int count = 0;
+        try (ResultSet resultSet = ps.getGeneratedKeys()) {
+            while (resultSet.next() && count < rows) {
+                keys[count++] = resultSet.getInt(1);
+            }
+        }
+        if (count != rows) {
+            throw new SQLException("Expected " + rows + " generated keys but got " + count);
+        }
+        return keys;
+    }
+}
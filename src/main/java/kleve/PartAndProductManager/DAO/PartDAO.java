@@ -3,54 +3,56 @@ package kleve.PartAndProductManager.DAO;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import kleve.PartAndProductManager.datamodel.InHouse;
+import kleve.PartAndProductManager.datamodel.MovementReason;
 import kleve.PartAndProductManager.datamodel.Outsourced;
 import kleve.PartAndProductManager.datamodel.Part;
+import kleve.PartAndProductManager.datamodel.PartType;
 import kleve.PartAndProductManager.datamodel.Product;
+import kleve.PartAndProductManager.monitoring.DAOEvent;
+import kleve.PartAndProductManager.monitoring.UpdateConflictEvent;
 
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.Statement;
 import java.sql.Timestamp;
-import java.time.LocalDateTime;
-import java.time.ZoneOffset;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Provides data access operations for {@link Part} objects,
  * including {@link InHouse} and {@link Outsourced} parts.
  * This class handles all CRUD (Create, Read, Update, Delete) operations
  * related to parts in the database.
+ * Every operation is recorded as a {@link DAOEvent} when Java Flight Recorder is running,
+ * and every successful write is published to the {@link DataChangeBus} as an {@link EntityChange}.
  *
  * @author Jonathan Kleve
  */
 public class PartDAO {
 
+    /**
+     * Inserts a part. The ID is either assigned by the {@link IdAllocator} or {@code null}, in which case the database generates it.
+     */
+    private static final String INSERT_PART_SQL = "INSERT INTO parts (id, name, price, stock, min, max, machine_id, company_name, create_date, created_by, last_updated, last_updated_by, part_type) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
     /**
      * Adds a new {@link InHouse} part to the database.
      * The `create_date`, `created_by`, `last_updated`, and `last_updated_by`
      * fields are automatically set during insertion using the current UTC time
      * and the {@link UserDAO#userId}.
+     * The part is returned as persisted, so callers never need to reload the table to learn its ID.
      *
      * @param newPart The {@link InHouse} part object to be added.
+     * @return The added part, with the ID the database generated and its creation and update times set;
+     * {@code null} if an error occurs.
      */
-    public static void addPart(InHouse newPart) {
-        try {
-            String sql = "INSERT INTO parts (name, price, stock, min, max, machine_id, create_date, created_by, last_updated, last_updated_by) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
-            PreparedStatement ps = JDBC.connection.prepareStatement(sql);
-            ps.setString(1, newPart.getName());
-            ps.setDouble(2, newPart.getPrice());
-            ps.setInt(3, newPart.getStock());
-            ps.setInt(4, newPart.getMin());
-            ps.setInt(5, newPart.getMax());
-            ps.setInt(6, newPart.getMachineId());
-            ps.setTimestamp(7, Timestamp.from(LocalDateTime.now().toInstant(ZoneOffset.UTC)));
-            ps.setInt(8, UserDAO.userId);
-            ps.setTimestamp(9, Timestamp.from(LocalDateTime.now().toInstant(ZoneOffset.UTC)));
-            ps.setInt(10, UserDAO.userId);
-            ps.executeUpdate();
-
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
+    public static InHouse addPart(InHouse newPart) {
+        return insertParts(List.of(newPart), "addPart").isEmpty() ? null : newPart;
     }
 
     /**
@@ -58,27 +60,111 @@ public class PartDAO {
      * The `create_date`, `created_by`, `last_updated`, and `last_updated_by`
      * fields are automatically set during insertion using the current UTC time
      * and the {@link UserDAO#userId}.
+     * The part is returned as persisted, so callers never need to reload the table to learn its ID.
      *
      * @param newPart The {@link Outsourced} part object to be added.
+     * @return The added part, with the ID the database generated and its creation and update times set;
+     * {@code null} if an error occurs.
+     */
+    public static Outsourced addPart(Outsourced newPart) {
+        return insertParts(List.of(newPart), "addPart").isEmpty() ? null : newPart;
+    }
+
+    /**
+     * Adds several parts to the database with a single batched insert in one transaction:
+     * either all of them are added or, if an error occurs, none.
+     * If the {@link IdAllocator} is enabled, the parts keep IDs they were already given from it, the others
+     * get IDs from a reserved block, and no generated keys are read back.
+     *
+     * @param newParts The {@link InHouse} and {@link Outsourced} parts to add.
+     * @return The added parts in the given order, each with the ID the database generated and its creation
+     * and update times set; empty if an error occurs.
+     */
+    public static List<Part> addParts(List<? extends Part> newParts) {
+        return insertParts(newParts, "addParts");
+    }
+
+    /**
+     * Inserts parts with one batch and stores the IDs and the timestamps in them. The initial stock of each part
+     * is recorded in the {@link StockLedger} in the same transaction. Once the insert is committed, each part
+     * becomes the canonical instance for its ID and its insertion is published to the {@link DataChangeBus}.
      */
-    public static void addPart(Outsourced newPart) {
+    private static List<Part> insertParts(List<? extends Part> newParts, String operation) {
+        List<Part> addedParts = new ArrayList<>(newParts.size());
+        if (newParts.isEmpty()) {
+            return addedParts;
+        }
+        DAOEvent daoEvent = DAOEvent.start(operation, "Part", newParts.size());
+        Timestamp now = JDBC.currentTimestamp();
         try {
-            String sql = "INSERT INTO parts (name, price, stock, min, max, company_name, create_date, created_by, last_updated, last_updated_by) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
-            PreparedStatement ps = JDBC.connection.prepareStatement(sql);
-            ps.setString(1, newPart.getName());
-            ps.setDouble(2, newPart.getPrice());
-            ps.setInt(3, newPart.getStock());
-            ps.setInt(4, newPart.getMin());
-            ps.setInt(5, newPart.getMax());
-            ps.setString(6, newPart.getCompanyName());
-            ps.setTimestamp(7, Timestamp.from(LocalDateTime.now().toInstant(ZoneOffset.UTC)));
-            ps.setInt(8, UserDAO.userId);
-            ps.setTimestamp(9, Timestamp.from(LocalDateTime.now().toInstant(ZoneOffset.UTC)));
-            ps.setInt(10, UserDAO.userId);
-            ps.executeUpdate();
+            int[] allocatedIds = IdAllocator.isEnabled() ? IdAllocator.idsFor(IdAllocator.Sequence.PARTS, newParts, Part::getId) : null;
+            // The parts and their opening stock movements are committed together
+            int[] ids = JDBC.inTransaction(connection -> {
+                try (PreparedStatement ps = connection.prepareStatement(INSERT_PART_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                    for (int i = 0; i < newParts.size(); i++) {
+                        if (allocatedIds != null) {
+                            ps.setInt(1, allocatedIds[i]);
+                        } else {
+                            ps.setNull(1, Types.INTEGER);
+                        }
+                        bindPart(ps, newParts.get(i), now);
+                        ps.addBatch();
+                    }
+                    int[] keys;
+                    if (allocatedIds != null) {
+                        ps.executeBatch();
+                        keys = allocatedIds;
+                    } else {
+                        keys = JDBC.executeAndReadKeys(ps, newParts.size());
+                    }
+                    StockLedger.appendOpenings(connection, StockItem.PART, keys, newParts, Part::getStock, now);
+                    return keys;
+                }
+            });
+            for (int i = 0; i < ids.length; i++) {
+                Part newPart = newParts.get(i);
+                newPart.setId(ids[i]);
+                newPart.setCreateDate(now.toLocalDateTime());
+                newPart.setLastUpdated(now.toLocalDateTime());
+                newPart.setVersion(0);
+                addedParts.add(IdentityMap.part(newPart));
+            }
         } catch (SQLException e) {
+            System.err.println("Error adding parts: " + e.getMessage());
             e.printStackTrace();
+            addedParts.clear();
+        } finally {
+            daoEvent.end(addedParts.size());
+        }
+        for (Part addedPart : addedParts) {
+            DataChangeBus.publishPart(EntityChange.added(addedPart.getId(), addedPart));
         }
+        StockLedger.snapshotIfDue();
+        return addedParts;
+    }
+
+    /**
+     * Sets the parameters of {@link #INSERT_PART_SQL} after the ID for one part. Only the column of the part's
+     * own type is set; the other one is {@code null}.
+     */
+    private static void bindPart(PreparedStatement ps, Part part, Timestamp now) throws SQLException {
+        ps.setString(2, part.getName());
+        ps.setDouble(3, part.getPrice());
+        ps.setInt(4, part.getStock());
+        ps.setInt(5, part.getMin());
+        ps.setInt(6, part.getMax());
+        if (part instanceof InHouse inHouse) {
+            ps.setInt(7, inHouse.getMachineId());
+            ps.setNull(8, Types.VARCHAR);
+        } else {
+            ps.setNull(7, Types.INTEGER);
+            ps.setString(8, ((Outsourced) part).getCompanyName());
+        }
+        ps.setTimestamp(9, now);
+        ps.setInt(10, UserDAO.userId);
+        ps.setTimestamp(11, now);
+        ps.setInt(12, UserDAO.userId);
+        ps.setInt(13, PartType.of(part).getCode());
     }
 
     /**
@@ -93,6 +179,8 @@ public class PartDAO {
         String sql = "SELECT * FROM parts WHERE id = ?";
         PreparedStatement statement = null;
         ResultSet resultSet = null;
+        DAOEvent daoEvent = DAOEvent.start("getPart", "Part", 1);
+        int rowCount = 0;
 
         try {
             statement = JDBC.connection.prepareStatement(sql);
@@ -100,23 +188,8 @@ public class PartDAO {
             resultSet = statement.executeQuery();
 
             if(resultSet.next()) {
-                String name = resultSet.getString("name");
-                double price = resultSet.getDouble("price");
-                int stock = resultSet.getInt("stock");
-                int min = resultSet.getInt("min");
-                int max = resultSet.getInt("max");
-
-                int machineId = resultSet.getInt("machine_id");
-                String companyName = resultSet.getString("company_name");
-
-                if (machineId != 0) {
-                    return new InHouse(partId, name, price, stock, min, max, machineId);
-                } else if (companyName != null && !companyName.trim().isEmpty()){
-                    return new Outsourced(partId, name, price, stock, min, max, companyName);
-                } else {
-                    System.out.println("Warning: Part with ID " + partId + " is neither InHouse nor Outsourced properly defined.");
-                    return null;
-                }
+                rowCount = 1;
+                return RowMappers.part(resultSet).map(resultSet);
             } else {
                 System.out.println("No part found with ID: " + partId);
                 return null;
@@ -133,6 +206,7 @@ public class PartDAO {
             } catch (SQLException e) {
                 e.printStackTrace();
             }
+            daoEvent.end(rowCount);
         }
     }
 
@@ -145,40 +219,92 @@ public class PartDAO {
      * Returns an empty list if no matches are found or an error occurs.
      */
     public static ObservableList<Part> getPart(String partName) {
+        return getPart(partName, null);
+    }
+
+    /**
+     * Retrieves a list of {@link Part} objects from the database whose names
+     * partially match the given search string (case-insensitive).
+     * The query can be cancelled from another thread through the given {@link QueryHandle}.
+     *
+     * @param partName The name or partial name of the part(s) to search for.
+     * @param handle The handle used to cancel the query, or {@code null} if it cannot be cancelled.
+     * @return An {@link ObservableList} of {@link Part} objects matching the search criteria.
+     * Returns an empty list if no matches are found, the query is cancelled, or an error occurs.
+     */
+    public static ObservableList<Part> getPart(String partName, QueryHandle handle) {
         ObservableList<Part> partList = FXCollections.observableArrayList();
         String sql = "SELECT * FROM parts WHERE LOWER(name) LIKE ?";
+        DAOEvent daoEvent = DAOEvent.start("getPartsByName", "Part", 0);
 
         try (PreparedStatement statement = JDBC.connection.prepareStatement(sql)) {
             statement.setString(1, "%" + partName.toLowerCase() + "%");
+            if (handle != null && !handle.attach(statement)) {
+                return partList;
+            }
 
             try (ResultSet resultSet = statement.executeQuery()){
-                while (resultSet.next()) {
-                    int id = resultSet.getInt("id");
-                    String name = resultSet.getString("name");
-                    double price = resultSet.getDouble("price");
-                    int stock = resultSet.getInt("stock");
-                    int min = resultSet.getInt("min");
-                    int max = resultSet.getInt("max");
-                    String companyName = resultSet.getString("company_name");
-                    int machineId = resultSet.getInt("machine_id");
-
-                    if (companyName != null && !companyName.trim().isEmpty() && machineId == 0) { // Assuming machineId is 0 for Outsourced in DB
-                        partList.add(new Outsourced(id, name, price, stock, min, max, companyName));
-                    } else { // Assume it's an InHouse part
-                        partList.add(new InHouse(id, name, price, stock, min, max, machineId));
-                    }
-                }
+                RowMappers.readAll(resultSet, RowMappers.part(resultSet), partList);
             }
         } catch (SQLException e) {
-            System.err.println("Error retrieving part by name: " + e.getMessage());
-            e.printStackTrace();
+            if (handle != null && handle.isCancelled()) {
+                partList.clear(); // Cancelled on purpose; a partial result must not be used
+            } else {
+                System.err.println("Error retrieving part by name: " + e.getMessage());
+                e.printStackTrace();
+            }
+        } finally {
+            if (handle != null) {
+                handle.detach();
+            }
+            daoEvent.end(partList.size());
         }
         return partList;
     }
 
+    /**
+     * Searches the database for parts matching the given criteria. The ID or name is looked up in the database
+     * and the remaining filters are applied to the rows returned. This is the fallback used when the
+     * {@link Catalog} cannot answer a search in memory.
+     *
+     * @param criteria The parsed search criteria.
+     * @param handle The handle used to cancel the query, or {@code null} if it cannot be cancelled.
+     * @return An {@link ObservableList} of matching {@link Part} objects; empty if nothing matches.
+     */
+    public static ObservableList<Part> searchParts(SearchCriteria criteria, QueryHandle handle) {
+        // A type filter alone is answered from the part_type index rather than an unrestricted name search
+        ObservableList<Part> candidates = criteria.getText().isEmpty() && criteria.getPartType() != null
+                ? getPartsByType(criteria.getPartType())
+                : searchParts(criteria.getText(), handle);
+        return FXCollections.observableArrayList(candidates.filtered(criteria.partPredicate()));
+    }
+
+    /**
+     * Searches for parts the way the search fields do: text that parses as an integer is looked up as a part ID,
+     * anything else is matched against part names. The name query can be cancelled through the given {@link QueryHandle}.
+     *
+     * @param searchText The ID, name or partial name to search for.
+     * @param handle The handle used to cancel the query, or {@code null} if it cannot be cancelled.
+     * @return An {@link ObservableList} of matching {@link Part} objects; empty if nothing matches.
+     */
+    public static ObservableList<Part> searchParts(String searchText, QueryHandle handle) {
+        try {
+            Part part = getPart(Integer.parseInt(searchText.trim()));
+            ObservableList<Part> partList = FXCollections.observableArrayList();
+            if (part != null) {
+                partList.add(part);
+            }
+            return partList;
+        } catch (NumberFormatException e) {
+            return getPart(searchText, handle);
+        }
+    }
+
     /**
      * Retrieves a list of {@link Product} objects that are associated with a specific part.
-     * This queries the `product_parts` linking table.
+     * This queries the `product_parts` linking table and loads every product in full, with its associated parts;
+     * use {@link #isPartInUse(int)}, {@link #countPartProducts(int)} or {@link #getPartProductIds(int)} when only
+     * the dependency itself is needed.
      *
      * @param partId The ID of the part for which to find associated products.
      * @return An {@link ObservableList} of {@link Product} objects associated with the given part.
@@ -186,6 +312,7 @@ public class PartDAO {
      */
     public static ObservableList<Product> getPartProducts(int partId){
         ObservableList<Product> productList = FXCollections.observableArrayList();
+        DAOEvent daoEvent = DAOEvent.start("getPartProducts", "Product", 1);
         try (PreparedStatement statement = JDBC.connection.prepareStatement("SELECT * FROM product_parts WHERE part_id = ?")) {
             statement.setInt(1, partId);
             try (ResultSet resultSet = statement.executeQuery()) {
@@ -201,58 +328,280 @@ public class PartDAO {
         }
         catch (SQLException e) {
             e.printStackTrace();
+        } finally {
+            daoEvent.end(productList.size());
         }
         return productList;
     }
 
     /**
      * Retrieves all {@link Part} objects from the database.
-     * This method fetches all part IDs and then uses {@link #getPart(int)} to retrieve
-     * the full details for each part.
+     * The parts are read with a single query.
      *
      * @return An {@link ObservableList} containing all {@link Part} objects in the database.
      * Returns an empty list if no parts are found or an error occurs.
      */
     public static ObservableList<Part> getAllParts() {
         ObservableList<Part> partList = FXCollections.observableArrayList();
-        String sql = "SELECT id FROM Parts";
+        String sql = "SELECT * FROM parts";
+        DAOEvent daoEvent = DAOEvent.start("getAllParts", "Part", 0);
 
         try (PreparedStatement statement = JDBC.connection.prepareStatement(sql);
              ResultSet resultSet = statement.executeQuery()) {
+            RowMappers.readAll(resultSet, RowMappers.part(resultSet), partList);
+        }
+        catch (SQLException e) {
+            e.printStackTrace();
+        } finally {
+            daoEvent.end(partList.size());
+        }
+        return partList;
+    }
+
+    /**
+     * Checks whether any product uses the given part. This is an existence query: it stops at the first
+     * association found and reads no product data, unlike {@link #getPartProducts(int)}.
+     *
+     * @param partId The ID of the part.
+     * @return {@code true} if at least one product uses the part; {@code false} otherwise. Returns {@code true}
+     * if an error occurs, so that callers guarding a delete err on the side of keeping the part.
+     */
+    public static boolean isPartInUse(int partId) {
+        DAOEvent daoEvent = DAOEvent.start("isPartInUse", "Part", 1);
+        try (PreparedStatement statement = JDBC.connection.prepareStatement(
+                "SELECT EXISTS (SELECT 1 FROM product_parts WHERE part_id = ?)")) {
+            statement.setInt(1, partId);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() && resultSet.getBoolean(1);
+            }
+        } catch (SQLException e) {
+            System.err.println("Error checking whether part " + partId + " is in use: " + e.getMessage());
+            e.printStackTrace();
+            return true;
+        } finally {
+            daoEvent.end(1);
+        }
+    }
+
+    /**
+     * Counts the products that use the given part. Each product has at most one association row per part.
+     *
+     * @param partId The ID of the part.
+     * @return The number of products using the part, or 0 if an error occurs.
+     */
+    public static int countPartProducts(int partId) {
+        DAOEvent daoEvent = DAOEvent.start("countPartProducts", "Product", 1);
+        try (PreparedStatement statement = JDBC.connection.prepareStatement(
+                "SELECT COUNT(*) FROM product_parts WHERE part_id = ?")) {
+            statement.setInt(1, partId);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() ? resultSet.getInt(1) : 0;
+            }
+        } catch (SQLException e) {
+            System.err.println("Error counting products using part " + partId + ": " + e.getMessage());
+            e.printStackTrace();
+            return 0;
+        } finally {
+            daoEvent.end(1);
+        }
+    }
+
+    /**
+     * Retrieves the IDs of the distinct products that use the given part, without loading the products.
+     *
+     * @param partId The ID of the part.
+     * @return A {@link List} of product IDs in ascending order; empty if no product uses the part or an error occurs.
+     */
+    public static List<Integer> getPartProductIds(int partId) {
+        List<Integer> productIds = new ArrayList<>();
+        DAOEvent daoEvent = DAOEvent.start("getPartProductIds", "Product", 1);
+        try (PreparedStatement statement = JDBC.connection.prepareStatement(
+                "SELECT product_id FROM product_parts WHERE part_id = ? ORDER BY product_id")) {
+            statement.setInt(1, partId);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    productIds.add(resultSet.getInt(1));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error retrieving products using part " + partId + ": " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            daoEvent.end(productIds.size());
+        }
+        return productIds;
+    }
+
+    /**
+     * Retrieves all parts of one type, in ID order. The query is answered through the `part_type` index.
+     *
+     * @param type The type of parts to retrieve.
+     * @return An {@link ObservableList} of the parts of that type; empty if there are none or an error occurs.
+     */
+    public static ObservableList<Part> getPartsByType(PartType type) {
+        ObservableList<Part> partList = FXCollections.observableArrayList();
+        DAOEvent daoEvent = DAOEvent.start("getPartsByType", "Part", 0);
+        try (PreparedStatement statement = JDBC.connection.prepareStatement("SELECT * FROM parts WHERE part_type = ? ORDER BY id")) {
+            statement.setInt(1, type.getCode());
+            try (ResultSet resultSet = statement.executeQuery()) {
+                RowMappers.readAll(resultSet, RowMappers.part(resultSet), partList);
+            }
+        } catch (SQLException e) {
+            System.err.println("Error retrieving parts of type " + type + ": " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            daoEvent.end(partList.size());
+        }
+        return partList;
+    }
+
+    /**
+     * Counts the parts of one type.
+     *
+     * @param type The type of parts to count.
+     * @return The number of parts of that type, or 0 if an error occurs.
+     */
+    public static int countPartsByType(PartType type) {
+        DAOEvent daoEvent = DAOEvent.start("countPartsByType", "Part", 0);
+        try (PreparedStatement statement = JDBC.connection.prepareStatement("SELECT COUNT(*) FROM parts WHERE part_type = ?")) {
+            statement.setInt(1, type.getCode());
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() ? resultSet.getInt(1) : 0;
+            }
+        } catch (SQLException e) {
+            System.err.println("Error counting parts of type " + type + ": " + e.getMessage());
+            e.printStackTrace();
+            return 0;
+        } finally {
+            daoEvent.end(1);
+        }
+    }
 
+    /**
+     * Counts the parts of every type with a single grouped query over the `part_type` index.
+     *
+     * @return The number of parts of each {@link PartType}; types without parts map to 0. All counts are 0 if an error occurs.
+     */
+    public static Map<PartType, Integer> countPartsByType() {
+        Map<PartType, Integer> counts = new EnumMap<>(PartType.class);
+        for (PartType type : PartType.values()) {
+            counts.put(type, 0);
+        }
+        DAOEvent daoEvent = DAOEvent.start("countPartsByType", "Part", 0);
+        try (PreparedStatement statement = JDBC.connection.prepareStatement("SELECT part_type, COUNT(*) FROM parts GROUP BY part_type");
+             ResultSet resultSet = statement.executeQuery()) {
             while (resultSet.next()) {
-                int partId = resultSet.getInt("id");
-                // Calls getPart(int) to retrieve the full Part object (InHouse or Outsourced)
-                partList.add(getPart(partId));
+                PartType type = PartType.fromCode(resultSet.getInt(1));
+                if (type != null) {
+                    counts.put(type, resultSet.getInt(2));
+                }
             }
+        } catch (SQLException e) {
+            System.err.println("Error counting parts by type: " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            daoEvent.end(counts.size());
         }
-        catch (SQLException e) {
+        return counts;
+    }
+
+    /**
+     * Counts the parts in the database.
+     *
+     * @return The number of parts, or 0 if an error occurs.
+     */
+    public static int countParts() {
+        DAOEvent daoEvent = DAOEvent.start("countParts", "Part", 0);
+        try (PreparedStatement statement = JDBC.connection.prepareStatement("SELECT COUNT(*) FROM parts");
+             ResultSet resultSet = statement.executeQuery()) {
+            return resultSet.next() ? resultSet.getInt(1) : 0;
+        } catch (SQLException e) {
+            System.err.println("Error counting parts: " + e.getMessage());
+            e.printStackTrace();
+            return 0;
+        } finally {
+            daoEvent.end(1);
+        }
+    }
+
+    /**
+     * Retrieves one window of parts in the given order, for tables that load their rows lazily.
+     * Ties are broken by ID so that consecutive windows neither skip nor repeat rows.
+     *
+     * @param offset The index of the first part to retrieve.
+     * @param limit The maximum number of parts to retrieve.
+     * @param sortProperty The {@link Part} property to sort by ("id", "name", "stock" or "price"); anything else sorts by ID.
+     * @param ascending Whether to sort in ascending order.
+     * @return A {@link List} of up to {@code limit} parts; empty if an error occurs.
+     */
+    public static List<Part> getPartsWindow(int offset, int limit, String sortProperty, boolean ascending) {
+        List<Part> partList = new ArrayList<>(limit);
+        String direction = ascending ? "ASC" : "DESC";
+        String sql = "SELECT * FROM parts ORDER BY " + sortColumn(sortProperty) + " " + direction + ", id " + direction + " LIMIT ? OFFSET ?";
+        DAOEvent daoEvent = DAOEvent.start("getPartsWindow", "Part", 0);
+
+        try (PreparedStatement statement = JDBC.connection.prepareStatement(sql)) {
+            statement.setInt(1, limit);
+            statement.setInt(2, offset);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                RowMappers.readAll(resultSet, RowMappers.part(resultSet), partList);
+            }
+        } catch (SQLException e) {
+            System.err.println("Error retrieving parts window: " + e.getMessage());
             e.printStackTrace();
+        } finally {
+            daoEvent.end(partList.size());
         }
         return partList;
     }
 
+    /**
+     * Maps a sortable {@link Part} property to its column. Only whitelisted names are ever placed in the SQL.
+     */
+    static String sortColumn(String sortProperty) {
+        if (sortProperty == null) {
+            return "id";
+        }
+        return switch (sortProperty) {
+            case "name", "stock", "price" -> sortProperty;
+            default -> "id";
+        };
+    }
+
     /**
      * Deletes a part from the database based on its ID.
+     * A part that a product uses is not deleted; the database rejects the delete.
      * @param partId The ID of the part to delete.
      * @return true if a part was successfully deleted, false otherwise.
      */
     public static boolean deletePart(int partId) {
         String sql = "DELETE FROM parts WHERE id = ?";
+        DAOEvent daoEvent = DAOEvent.start("deletePart", "Part", 1);
+        int rowCount = 0;
         try (PreparedStatement ps = JDBC.connection.prepareStatement(sql)) {
             ps.setInt(1, partId);
             int rowsAffected = ps.executeUpdate(); // executeUpdate returns the number of rows affected
+            rowCount = rowsAffected;
             if (rowsAffected > 0) {
+                IdentityMap.forgetPart(partId);
+                AssociationIndex.partRemoved(partId);
+                DataChangeBus.publishPart(EntityChange.removed(partId));
                 System.out.println("Part with ID " + partId + " deleted successfully.");
                 return true; // Return true if one or more rows were deleted
             } else {
                 System.out.println("Part with ID " + partId + " not found for deletion.");
                 return false; // Return false if no rows were deleted (part not found)
             }
+        } catch (SQLIntegrityConstraintViolationException e) {
+            // A product uses the part; the foreign key keeps the part rather than dropping the association
+            System.err.println("Part with ID " + partId + " is used by a product and was not deleted.");
+            return false;
         } catch (SQLException e) {
             System.err.println("Error deleting part with ID " + partId + ": " + e.getMessage());
             e.printStackTrace();
             return false;
+        } finally {
+            daoEvent.end(rowCount);
         }
     }
 
@@ -261,26 +610,15 @@ public class PartDAO {
      * The `last_updated` and `last_updated_by` fields are automatically updated
      * using the current UTC time and the {@link UserDAO#userId}.
      * The `company_name` field is explicitly set to `null` for an InHouse part.
+     * The update is only written if the part's row still has the {@link Part#getVersion() version} the part
+     * was loaded with; see {@link #updatePart(Part)}.
      *
      * @param part The {@link InHouse} part object with updated information.
+     * @return {@code true} if the part was written; {@code false} if it was changed or deleted by someone else
+     * since it was loaded, or an error occurred.
      */
-    public static void updatePart(InHouse part){
-        try {
-            String sql = "UPDATE parts SET name = ?, price = ?, stock = ?, min = ?, max = ?, machine_id = ?, last_updated = ?, last_updated_by = ?, company_name = null WHERE id = ?";
-            PreparedStatement ps = JDBC.connection.prepareStatement(sql);
-            ps.setString(1, part.getName());
-            ps.setDouble(2, part.getPrice());
-            ps.setInt(3, part.getStock());
-            ps.setInt(4, part.getMin());
-            ps.setInt(5, part.getMax());
-            ps.setInt(6, part.getMachineId());
-            ps.setTimestamp(7, Timestamp.from(LocalDateTime.now().toInstant(ZoneOffset.UTC)));
-            ps.setInt(8, UserDAO.userId);
-            ps.setInt(9, part.getId());
-            ps.executeUpdate();
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
+    public static boolean updatePart(InHouse part){
+        return updatePart((Part) part);
     }
 
     /**
@@ -288,25 +626,100 @@ public class PartDAO {
      * The `last_updated` and `last_updated_by` fields are automatically updated
      * using the current UTC time and the {@link UserDAO#userId}.
      * The `machine_id` field is explicitly set to `null` for an Outsourced part.
+     * The update is only written if the part's row still has the {@link Part#getVersion() version} the part
+     * was loaded with; see {@link #updatePart(Part)}.
      *
      * @param part The {@link Outsourced} part object with updated information.
+     * @return {@code true} if the part was written; {@code false} if it was changed or deleted by someone else
+     * since it was loaded, or an error occurred.
      */
-    public static void updatePart(Outsourced part){
+    public static boolean updatePart(Outsourced part){
+        return updatePart((Part) part);
+    }
+
+    /**
+     * Updates a part with optimistic concurrency control: the row is only overwritten if its version is still
+     * the part's {@link Part#getVersion() version}, and the write increments it. No lock is held while the part
+     * is being edited; an edit that lost the race to another one is detected when it is saved. If the stock
+     * was changed, the difference is recorded in the {@link StockLedger} as a {@link MovementReason#CORRECTION}.
+     * <p>
+     * If the update is rejected, the conflict is reported as an {@link UpdateConflictEvent} and the part as it is
+     * now stored is reloaded into the canonical instance and published, so open lists show the other user's change.
+     * </p>
+     */
+    private static boolean updatePart(Part part) {
+        DAOEvent daoEvent = DAOEvent.start("updatePart", "Part", 1);
+        int rowCount = 0;
+        Timestamp now = JDBC.currentTimestamp();
         try {
-            String sql = "UPDATE parts SET name = ?, price = ?, stock = ?, min = ?, max = ?, company_name = ?, last_updated = ?, last_updated_by = ?, machine_id = null WHERE id = ?";
-            PreparedStatement ps = JDBC.connection.prepareStatement(sql);
-            ps.setString(1, part.getName());
-            ps.setDouble(2, part.getPrice());
-            ps.setInt(3, part.getStock());
-            ps.setInt(4, part.getMin());
-            ps.setInt(5, part.getMax());
-            ps.setString(6, part.getCompanyName());
-            ps.setTimestamp(7, Timestamp.from(LocalDateTime.now().toInstant(ZoneOffset.UTC)));
-            ps.setInt(8, UserDAO.userId);
-            ps.setInt(9, part.getId());
-            ps.executeUpdate();
+            rowCount = JDBC.inTransaction(connection -> {
+                // Locks the row, unless someone else has changed it since the part was loaded
+                Integer storedStock = StockLedger.lockStock(connection, StockItem.PART, part.getId(), part.getVersion());
+                if (storedStock == null) {
+                    return 0;
+                }
+                try (PreparedStatement ps = connection.prepareStatement("UPDATE parts SET name = ?, price = ?, stock = ?, min = ?, max = ?,"
+                        + " machine_id = ?, company_name = ?, last_updated = ?, last_updated_by = ?, part_type = ?, version = version + 1"
+                        + " WHERE id = ? AND version = ?")) {
+                    ps.setString(1, part.getName());
+                    ps.setDouble(2, part.getPrice());
+                    ps.setInt(3, part.getStock());
+                    ps.setInt(4, part.getMin());
+                    ps.setInt(5, part.getMax());
+                    if (part instanceof InHouse inHouse) {
+                        ps.setInt(6, inHouse.getMachineId());
+                        ps.setNull(7, Types.VARCHAR);
+                    } else {
+                        ps.setNull(6, Types.INTEGER);
+                        ps.setString(7, ((Outsourced) part).getCompanyName());
+                    }
+                    ps.setTimestamp(8, now);
+                    ps.setInt(9, UserDAO.userId);
+                    ps.setInt(10, PartType.of(part).getCode());
+                    ps.setInt(11, part.getId());
+                    ps.setInt(12, part.getVersion());
+                    if (ps.executeUpdate() == 0) {
+                        return 0;
+                    }
+                }
+                if (part.getStock() != storedStock) {
+                    StockLedger.appendMovement(connection, StockItem.PART, part.getId(), part.getStock() - storedStock, part.getStock(),
+                            MovementReason.CORRECTION, now);
+                }
+                return 1;
+            });
         } catch (SQLException e) {
             e.printStackTrace();
+            return false;
+        } finally {
+            daoEvent.end(rowCount);
+        }
+        if (rowCount == 0) {
+            rejectStaleUpdate(part);
+            return false;
+        }
+        part.setVersion(part.getVersion() + 1);
+        part.setLastUpdated(now.toLocalDateTime());
+        DataChangeBus.publishPart(EntityChange.updated(part.getId(), IdentityMap.part(part)));
+        StockLedger.snapshotIfDue();
+        return true;
+    }
+
+    /**
+     * Reports an update that matched no row: the part was either changed by someone else since it was loaded
+     * or deleted. Either way, what is stored now is published so the cached lists catch up.
+     */
+    private static void rejectStaleUpdate(Part part) {
+        Part current = getPart(part.getId()); // Refreshes the canonical instance
+        if (current == null) {
+            System.out.println("Part with ID " + part.getId() + " was not updated: it has been deleted.");
+            IdentityMap.forgetPart(part.getId());
+            DataChangeBus.publishPart(EntityChange.removed(part.getId()));
+        } else {
+            System.out.println("Part with ID " + part.getId() + " was not updated: it was changed by someone else (version "
+                    + part.getVersion() + " was edited, version " + current.getVersion() + " is stored).");
+            UpdateConflictEvent.emit("Part", part.getId(), part.getVersion(), current.getVersion());
+            DataChangeBus.publishPart(EntityChange.updated(current.getId(), current));
         }
     }
-}
\ No newline at end of file
+}
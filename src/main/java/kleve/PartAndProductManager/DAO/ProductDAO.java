@@ -2,83 +2,171 @@ package kleve.PartAndProductManager.DAO;
 
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import kleve.PartAndProductManager.datamodel.MovementReason;
 import kleve.PartAndProductManager.datamodel.Part;
 import kleve.PartAndProductManager.datamodel.Product;
+import kleve.PartAndProductManager.monitoring.DAOEvent;
+import kleve.PartAndProductManager.monitoring.UpdateConflictEvent;
+import kleve.PartAndProductManager.utilities.IntIntHashMap;
+import kleve.PartAndProductManager.utilities.IntObjectHashMap;
 
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.sql.Timestamp;
-import java.time.LocalDateTime;
-import java.time.ZoneOffset;
+import java.sql.Types;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
 
 /**
  * Provides data access operations for {@link Product} objects.
  * This class handles all CRUD (Create, Read, Update, Delete) operations
  * related to products in the database, including their associated parts.
+ * Every operation is recorded as a {@link DAOEvent} when Java Flight Recorder is running,
+ * and every successful write is published to the {@link DataChangeBus} as an {@link EntityChange}.
  *
  * @author Jonathan Kleve
  */
 public class ProductDAO {
 
+    /**
+     * Inserts a product. The ID is either assigned by the {@link IdAllocator} or {@code null}, in which case the database generates it.
+     */
+    private static final String INSERT_PRODUCT_SQL = "INSERT INTO products (id, name, price, stock, min, max, create_date, created_by, last_updated, last_updated_by) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_PRODUCT_PART_SQL = "INSERT INTO product_parts (product_id, part_id, quantity) VALUES (?, ?, ?)";
+
     /**
      * Adds a new {@link Product} to the database.
      * This method also handles the insertion of associated parts into the `product_parts`
-     * linking table. The `create_date`, `created_by`, `last_updated`, and `last_updated_by`
+     * linking table, in the same transaction. The `create_date`, `created_by`, `last_updated`, and `last_updated_by`
      * fields for the product are automatically set during insertion using the current UTC time
      * and the {@link UserDAO#userId}.
+     * The product is returned as persisted, so callers never need to reload the table to learn its ID.
      *
      * @param newProduct The {@link Product} object to be added.
+     * @return The added product, with the ID the database generated and its creation and update times set;
+     * {@code null} if an error occurs.
+     */
+    public static Product addProduct(Product newProduct){
+        return insertProducts(List.of(newProduct), "addProduct").isEmpty() ? null : newProduct;
+    }
+
+    /**
+     * Adds several products and their associated parts to the database in one transaction: the products are
+     * inserted with one batch and all of their `product_parts` rows with another. Either all of them are added
+     * or, if an error occurs, none.
+     * If the {@link IdAllocator} is enabled, the products keep IDs they were already given from it, the others
+     * get IDs from a reserved block, and no generated keys are read back.
+     *
+     * @param newProducts The products to add.
+     * @return The added products in the given order, each with the ID the database generated and its creation
+     * and update times set; empty if an error occurs.
      */
-    public static void addProduct(Product newProduct){
-        PreparedStatement ps = null; // Declare outside try-with-resources to use for product_parts
+    public static List<Product> addProducts(List<Product> newProducts) {
+        return insertProducts(newProducts, "addProducts");
+    }
+
+    /**
+     * Inserts products and their associations and stores the generated IDs and the timestamps in the products.
+     * The initial stock of each product is recorded in the {@link StockLedger} in the same transaction.
+     * Once the transaction is committed, the associations are recorded in the {@link AssociationIndex}, each product
+     * becomes the canonical instance for its ID and its insertion is published to the {@link DataChangeBus}.
+     */
+    private static List<Product> insertProducts(List<Product> newProducts, String operation) {
+        List<Product> addedProducts = new ArrayList<>(newProducts.size());
+        if (newProducts.isEmpty()) {
+            return addedProducts;
+        }
+        DAOEvent daoEvent = DAOEvent.start(operation, "Product", newProducts.size());
+        Timestamp now = JDBC.currentTimestamp();
+        int rowCount = 0;
+
+        // One row per part, with the number of units as its quantity
+        List<IntIntHashMap> quantities = new ArrayList<>(newProducts.size());
+        for (Product newProduct : newProducts) {
+            quantities.add(AssociationDiff.quantitiesOf(newProduct.getAssociatedParts()));
+        }
+        int[] originalIds = new int[newProducts.size()];
+        for (int i = 0; i < originalIds.length; i++) {
+            originalIds[i] = newProducts.get(i).getId();
+        }
         try {
-            // Insert the product itself
-            String sql = "INSERT INTO products (name, price, stock, min, max, create_date, created_by, last_updated, last_updated_by) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
-            ps = JDBC.connection.prepareStatement(sql);
-            ps.setString(1, newProduct.getName());
-            ps.setDouble(2, newProduct.getPrice());
-            ps.setInt(3, newProduct.getStock());
-            ps.setInt(4, newProduct.getMin());
-            ps.setInt(5, newProduct.getMax());
-            ps.setTimestamp(6, Timestamp.from(LocalDateTime.now().toInstant(ZoneOffset.UTC)));
-            ps.setInt(7, UserDAO.userId);
-            ps.setTimestamp(8, Timestamp.from(LocalDateTime.now().toInstant(ZoneOffset.UTC)));
-            ps.setInt(9, UserDAO.userId);
-            ps.executeUpdate();
-            // Closing ps here is problematic if it's reused below. It's better to create a new PreparedStatement
-            // for the product_parts insertion or refactor for clearer resource management.
-
-            // Get associated parts and insert into linking table
-            // Note: product.getId() might return 0 if the ID is auto-generated and not retrieved after insertion.
-            // A more robust solution would be to use Statement.RETURN_GENERATED_KEYS to get the product ID.
-            ObservableList<Part> associatedPartList = newProduct.getAssociatedParts();
-            int productId = newProduct.getId();
-
-            String productPartSql = "INSERT INTO product_parts (product_id, part_id) VALUES (?, ?)";
-            try (PreparedStatement productPartPs = JDBC.connection.prepareStatement(productPartSql)) {
-                for (Part part : associatedPartList) {
-                    int partId = part.getId();
-                    productPartPs.setInt(1, productId);
-                    productPartPs.setInt(2, partId);
-                    productPartPs.executeUpdate();
+            // Blocks are reserved before the transaction starts and committed at once, so a rollback cannot hand their IDs out twice
+            int[] allocatedIds = IdAllocator.isEnabled() ? IdAllocator.idsFor(IdAllocator.Sequence.PRODUCTS, newProducts, Product::getId) : null;
+            rowCount = JDBC.inTransaction(connection -> {
+                try (PreparedStatement productPs = connection.prepareStatement(INSERT_PRODUCT_SQL, Statement.RETURN_GENERATED_KEYS);
+                     PreparedStatement productPartPs = connection.prepareStatement(INSERT_PRODUCT_PART_SQL)) {
+                    for (int i = 0; i < newProducts.size(); i++) {
+                        Product newProduct = newProducts.get(i);
+                        if (allocatedIds != null) {
+                            productPs.setInt(1, allocatedIds[i]);
+                        } else {
+                            productPs.setNull(1, Types.INTEGER);
+                        }
+                        productPs.setString(2, newProduct.getName());
+                        productPs.setDouble(3, newProduct.getPrice());
+                        productPs.setInt(4, newProduct.getStock());
+                        productPs.setInt(5, newProduct.getMin());
+                        productPs.setInt(6, newProduct.getMax());
+                        productPs.setTimestamp(7, now);
+                        productPs.setInt(8, UserDAO.userId);
+                        productPs.setTimestamp(9, now);
+                        productPs.setInt(10, UserDAO.userId);
+                        productPs.addBatch();
+                    }
+                    int[] ids;
+                    if (allocatedIds != null) {
+                        productPs.executeBatch();
+                        ids = allocatedIds;
+                    } else {
+                        // The product IDs are generated by the database; store them in the products before linking their parts
+                        ids = JDBC.executeAndReadKeys(productPs, newProducts.size());
+                    }
+                    int rows = ids.length;
+                    for (int i = 0; i < ids.length; i++) {
+                        newProducts.get(i).setId(ids[i]);
+                        IntIntHashMap productQuantities = quantities.get(i);
+                        for (int partId : productQuantities.keys()) {
+                            productPartPs.setInt(1, ids[i]);
+                            productPartPs.setInt(2, partId);
+                            productPartPs.setInt(3, productQuantities.get(partId));
+                            productPartPs.addBatch();
+                            rows++;
+                        }
+                    }
+                    if (rows > ids.length) {
+                        productPartPs.executeBatch();
+                    }
+                    StockLedger.appendOpenings(connection, StockItem.PRODUCT, ids, newProducts, Product::getStock, now);
+                    return rows;
                 }
-            } // productPartPs is closed here automatically
+            });
+            for (int i = 0; i < newProducts.size(); i++) {
+                Product newProduct = newProducts.get(i);
+                newProduct.setCreateDate(now.toLocalDateTime());
+                newProduct.setLastUpdated(now.toLocalDateTime());
+                newProduct.setVersion(0);
+                AssociationIndex.productWritten(newProduct.getId(), 0, quantities.get(i));
+                addedProducts.add(IdentityMap.product(newProduct, true));
+            }
         } catch (SQLException e) {
+            System.err.println("Error adding products: " + e.getMessage());
             e.printStackTrace();
-        } finally {
-            // Ensure the initial PreparedStatement is closed if it was opened.
-            // This structure is less ideal than using try-with-resources for each statement.
-            try {
-                if (ps != null) ps.close();
-            } catch (SQLException e) {
-                e.printStackTrace();
+            rowCount = 0;
+            for (int i = 0; i < originalIds.length; i++) {
+                newProducts.get(i).setId(originalIds[i]); // The rolled back IDs were never persisted
             }
+        } finally {
+            daoEvent.end(rowCount);
         }
+        for (Product addedProduct : addedProducts) {
+            DataChangeBus.publishProduct(EntityChange.added(addedProduct.getId(), addedProduct));
+        }
+        StockLedger.snapshotIfDue();
+        return addedProducts;
     }
 
     /**
@@ -90,36 +178,98 @@ public class ProductDAO {
      * Returns an empty list if no matches are found or an error occurs.
      */
     public static ObservableList<Product> getProduct(String productName){
+        return getProduct(productName, null);
+    }
+
+    /**
+     * Retrieves an {@link ObservableList} of {@link Product} objects from the database
+     * whose names partially match the given search string (case-insensitive).
+     * The query can be cancelled from another thread through the given {@link QueryHandle}.
+     *
+     * @param productName The name or partial name of the product(s) to search for.
+     * @param handle The handle used to cancel the query, or {@code null} if it cannot be cancelled.
+     * @return An {@link ObservableList} of {@link Product} objects matching the search criteria.
+     * Returns an empty list if no matches are found, the query is cancelled, or an error occurs.
+     */
+    public static ObservableList<Product> getProduct(String productName, QueryHandle handle){
         ObservableList<Product> productList = FXCollections.observableArrayList();
         String sql = "SELECT * FROM products WHERE LOWER(name) LIKE ?";
+        DAOEvent daoEvent = DAOEvent.start("getProductsByName", "Product", 0);
 
         // Using try-with-resources for PreparedStatement and ResultSet to ensure they are closed
         try (PreparedStatement statement = JDBC.connection.prepareStatement(sql)) {
             statement.setString(1, "%" + productName.toLowerCase() + "%");
+            if (handle != null && !handle.attach(statement)) {
+                return productList;
+            }
+            List<Product> newProducts = new ArrayList<>();
             try (ResultSet resultSet = statement.executeQuery()) {
+                RowMapper<Product> productMapper = RowMappers.product(resultSet);
                 while (resultSet.next()) {
-                    int id = resultSet.getInt("id");
-                    String name = resultSet.getString("name");
-                    double price = resultSet.getDouble("price");
-                    int stock = resultSet.getInt("stock");
-                    int min = resultSet.getInt("min");
-                    int max = resultSet.getInt("max");
-                    // Note: This creates a Product object without its associated parts,
-                    // as a search by name typically doesn't need to load all associations upfront.
-                    Product tempProduct = new Product(null, id, name, price, stock, min, max);
-                    productList.add(tempProduct);
+                    // A search by name doesn't need the associations upfront; products already in memory keep theirs
+                    // and new ones load them lazily, together with the other new products of this search.
+                    Product tempProduct = productMapper.map(resultSet);
+                    Product product = IdentityMap.product(tempProduct, false);
+                    if (product == tempProduct) {
+                        newProducts.add(product);
+                    }
+                    productList.add(product);
                 }
             }
+            AssociationBatch.attach(newProducts);
         } catch (SQLException e) {
-            e.printStackTrace();
+            if (handle != null && handle.isCancelled()) {
+                productList.clear(); // Cancelled on purpose; a partial result must not be used
+            } else {
+                e.printStackTrace();
+            }
+        } finally {
+            if (handle != null) {
+                handle.detach();
+            }
+            daoEvent.end(productList.size());
         }
         return productList;
     }
 
+    /**
+     * Searches the database for products matching the given criteria. The ID or name is looked up in the database
+     * and the remaining filters are applied to the rows returned. This is the fallback used when the
+     * {@link Catalog} cannot answer a search in memory.
+     *
+     * @param criteria The parsed search criteria.
+     * @param handle The handle used to cancel the query, or {@code null} if it cannot be cancelled.
+     * @return An {@link ObservableList} of matching {@link Product} objects; empty if nothing matches.
+     */
+    public static ObservableList<Product> searchProducts(SearchCriteria criteria, QueryHandle handle) {
+        return FXCollections.observableArrayList(searchProducts(criteria.getText(), handle).filtered(criteria.productPredicate()));
+    }
+
+    /**
+     * Searches for products the way the search fields do: text that parses as an integer is looked up as a product ID,
+     * anything else is matched against product names. The name query can be cancelled through the given {@link QueryHandle}.
+     *
+     * @param searchText The ID, name or partial name to search for.
+     * @param handle The handle used to cancel the query, or {@code null} if it cannot be cancelled.
+     * @return An {@link ObservableList} of matching {@link Product} objects; empty if nothing matches.
+     */
+    public static ObservableList<Product> searchProducts(String searchText, QueryHandle handle) {
+        try {
+            Product product = getProduct(Integer.parseInt(searchText.trim()));
+            ObservableList<Product> productList = FXCollections.observableArrayList();
+            if (product != null) {
+                productList.add(product);
+            }
+            return productList;
+        } catch (NumberFormatException e) {
+            return getProduct(searchText, handle);
+        }
+    }
+
     /**
      * Retrieves a single {@link Product} from the database based on its ID.
-     * This method also fetches and populates the {@link ObservableList} of associated
-     * {@link Part}s for the retrieved product by calling {@link #getProductParts(int)}.
+     * The associated {@link Part}s of the retrieved product are loaded lazily, the first time
+     * {@link Product#getAssociatedParts()} is called. A product already in memory keeps the associated parts it has.
      *
      * @param productId The unique ID of the product to retrieve.
      * @return The {@link Product} object corresponding to the given ID, or {@code null} if not found or an error occurs.
@@ -128,6 +278,8 @@ public class ProductDAO {
         String sql = "SELECT * FROM products WHERE id = ?";
         PreparedStatement statement = null;
         ResultSet resultSet = null;
+        DAOEvent daoEvent = DAOEvent.start("getProduct", "Product", 1);
+        int rowCount = 0;
 
         try {
             statement = JDBC.connection.prepareStatement(sql);
@@ -135,15 +287,14 @@ public class ProductDAO {
             resultSet = statement.executeQuery();
 
             if(resultSet.next()) {
-                String name = resultSet.getString("name");
-                double price = resultSet.getDouble("price");
-                int stock = resultSet.getInt("stock");
-                int min = resultSet.getInt("min");
-                int max = resultSet.getInt("max");
-
-                // Get associated parts for this product
-                ObservableList<Part> productParts = getProductParts(productId);
-                return new Product(productParts, productId, name, price, stock, min, max);
+                rowCount = 1;
+                Product loaded = RowMappers.product(resultSet).map(resultSet);
+                Product product = IdentityMap.product(loaded, false);
+                if (product == loaded) {
+                    // A product already in memory keeps its associated parts, which may hold unsaved edits
+                    AssociationBatch.attach(List.of(product));
+                }
+                return product;
             } else {
                 System.out.println("No product found with ID: " + productId);
                 return null;
@@ -160,67 +311,163 @@ public class ProductDAO {
             } catch (SQLException e) {
                 e.printStackTrace();
             }
+            daoEvent.end(rowCount);
         }
     }
 
     /**
      * Retrieves an {@link ObservableList} of {@link Part} objects that are directly
      * associated with a specific {@link Product} from the `product_parts` linking table.
-     * Each associated part's full details are fetched using {@link PartDAO#getPart(int)}.
+     * The links and the parts they point to are read with a single join query. A part appears in the list
+     * once per unit of its association's quantity.
      *
      * @param productId The ID of the product for which to retrieve associated parts.
      * @return An {@link ObservableList} of {@link Part} objects associated with the given product.
      * Returns an empty list if no associations are found or an error occurs.
      */
     public static ObservableList<Part> getProductParts(int productId){
-        ObservableList<Part> partList = FXCollections.observableArrayList();
-        try (PreparedStatement statement = JDBC.connection.prepareStatement("SELECT part_id FROM product_parts WHERE product_id = ?")) {
-            statement.setInt(1, productId);
+        return loadAssociatedParts(new int[] {productId}).get(productId);
+    }
+
+    /**
+     * Loads the associated parts of several products with a single join query.
+     * Every requested product gets a list, which is empty if it has no parts or an error occurs.
+     *
+     * @param productIds The IDs of the products whose parts to load.
+     * @return The associated parts of each requested product, keyed by product ID.
+     */
+    static IntObjectHashMap<ObservableList<Part>> loadAssociatedParts(int[] productIds) {
+        IntObjectHashMap<ObservableList<Part>> partsByProduct = new IntObjectHashMap<>(productIds.length);
+        for (int productId : productIds) {
+            partsByProduct.put(productId, FXCollections.observableArrayList());
+        }
+        String placeholders = String.join(",", Collections.nCopies(productIds.length, "?"));
+        String sql = "SELECT pp.product_id, pp.quantity, p.* FROM product_parts pp JOIN parts p ON p.id = pp.part_id"
+                + " WHERE pp.product_id IN (" + placeholders + ")";
+        DAOEvent daoEvent = DAOEvent.start("getProductParts", "Part", productIds.length);
+        int rowCount = 0;
+
+        try (PreparedStatement statement = JDBC.connection.prepareStatement(sql)) {
+            for (int i = 0; i < productIds.length; i++) {
+                statement.setInt(i + 1, productIds[i]);
+            }
             try (ResultSet resultSet = statement.executeQuery()) {
+                RowMapper<Part> partMapper = RowMappers.part(resultSet);
+                int productIdColumn = resultSet.findColumn("product_id");
+                int quantityColumn = resultSet.findColumn("quantity");
                 while (resultSet.next()) {
-                    int partId = resultSet.getInt("part_id");
-                    // Assuming PartDAO.getPart(int) correctly retrieves the Part object (InHouse or Outsourced)
-                    Part part = PartDAO.getPart(partId);
+                    Part part = partMapper.map(resultSet);
                     if (part != null) { // Add only if part was successfully retrieved
-                        partList.add(part);
+                        ObservableList<Part> partList = partsByProduct.get(resultSet.getInt(productIdColumn));
+                        for (int unit = resultSet.getInt(quantityColumn); unit > 0; unit--) {
+                            partList.add(part);
+                        }
+                        rowCount++;
                     }
                 }
             }
-        }
-        catch (SQLException e) {
+        } catch (SQLException e) {
+            System.err.println("Error retrieving associated parts: " + e.getMessage());
             e.printStackTrace();
+        } finally {
+            daoEvent.end(rowCount);
         }
-        return partList;
+        return partsByProduct;
+    }
+
+    /**
+     * Canonicalizes freshly read products and makes the associated parts of those not yet in memory load lazily,
+     * in batches drawn from the same products. Products already in memory keep the associated parts they have.
+     */
+    private static List<Product> canonicalizeWithLazyParts(List<Product> loaded) {
+        List<Product> products = new ArrayList<>(loaded.size());
+        List<Product> newProducts = new ArrayList<>();
+        for (Product loadedProduct : loaded) {
+            Product product = IdentityMap.product(loadedProduct, false);
+            if (product == loadedProduct) {
+                newProducts.add(product);
+            }
+            products.add(product);
+        }
+        AssociationBatch.attach(newProducts);
+        return products;
     }
 
     /**
      * Retrieves all {@link Product} objects from the database.
-     * This method fetches all product IDs and then uses {@link #getProduct(int)} to retrieve
-     * the full details for each product, including their associated parts.
+     * The products are read with a single query; their associated parts are loaded lazily and in batches
+     * the first time a product's {@link Product#getAssociatedParts()} is called.
      *
      * @return An {@link ObservableList} containing all {@link Product} objects in the database.
      * Returns an empty list if no products are found or an error occurs.
      */
     public static ObservableList<Product> getAllProducts() {
-        ObservableList<Product> productList = FXCollections.observableArrayList();
-        String sql = "SELECT id FROM Products";
+        List<Product> loaded = new ArrayList<>();
+        String sql = "SELECT * FROM products";
+        DAOEvent daoEvent = DAOEvent.start("getAllProducts", "Product", 0);
 
         try (PreparedStatement statement = JDBC.connection.prepareStatement(sql);
              ResultSet resultSet = statement.executeQuery()) {
-
-            while (resultSet.next()) {
-                int productId = resultSet.getInt("id");
-                // Calls getProduct(int) to retrieve the full Product object with associated parts
-                Product product = getProduct(productId);
-                if (product != null) { // Add only if product was successfully retrieved
-                    productList.add(product);
-                }
-            }
+            RowMappers.readAll(resultSet, RowMappers.product(resultSet), loaded);
         }
         catch (SQLException e) {
             e.printStackTrace();
+        } finally {
+            daoEvent.end(loaded.size());
         }
-        return productList;
+        return FXCollections.observableArrayList(canonicalizeWithLazyParts(loaded));
+    }
+
+    /**
+     * Counts the products in the database.
+     *
+     * @return The number of products, or 0 if an error occurs.
+     */
+    public static int countProducts() {
+        DAOEvent daoEvent = DAOEvent.start("countProducts", "Product", 0);
+        try (PreparedStatement statement = JDBC.connection.prepareStatement("SELECT COUNT(*) FROM products");
+             ResultSet resultSet = statement.executeQuery()) {
+            return resultSet.next() ? resultSet.getInt(1) : 0;
+        } catch (SQLException e) {
+            System.err.println("Error counting products: " + e.getMessage());
+            e.printStackTrace();
+            return 0;
+        } finally {
+            daoEvent.end(1);
+        }
+    }
+
+    /**
+     * Retrieves one window of products in the given order, for tables that load their rows lazily.
+     * Ties are broken by ID so that consecutive windows neither skip nor repeat rows. The associated parts
+     * of the window are loaded lazily, with a single query for the whole window, once a row needs them.
+     *
+     * @param offset The index of the first product to retrieve.
+     * @param limit The maximum number of products to retrieve.
+     * @param sortProperty The {@link Product} property to sort by ("id", "name", "stock" or "price"); anything else sorts by ID.
+     * @param ascending Whether to sort in ascending order.
+     * @return A {@link List} of up to {@code limit} products; empty if an error occurs.
+     */
+    public static List<Product> getProductsWindow(int offset, int limit, String sortProperty, boolean ascending) {
+        List<Product> loaded = new ArrayList<>();
+        String direction = ascending ? "ASC" : "DESC";
+        String sql = "SELECT * FROM products ORDER BY " + PartDAO.sortColumn(sortProperty) + " " + direction + ", id " + direction + " LIMIT ? OFFSET ?";
+        DAOEvent daoEvent = DAOEvent.start("getProductsWindow", "Product", 0);
+
+        try (PreparedStatement statement = JDBC.connection.prepareStatement(sql)) {
+            statement.setInt(1, limit);
+            statement.setInt(2, offset);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                RowMappers.readAll(resultSet, RowMappers.product(resultSet), loaded);
+            }
+        } catch (SQLException e) {
+            System.err.println("Error retrieving products window: " + e.getMessage());
+            e.printStackTrace();
+            loaded.clear();
+        } finally {
+            daoEvent.end(loaded.size());
+        }
+        return canonicalizeWithLazyParts(loaded);
     }
 
     /**
@@ -230,10 +477,16 @@ public class ProductDAO {
      */
     public static boolean deleteProduct(int productId) {
         String sql = "DELETE FROM products WHERE id = ?";
+        DAOEvent daoEvent = DAOEvent.start("deleteProduct", "Product", 1);
+        int rowCount = 0;
         try (PreparedStatement ps = JDBC.connection.prepareStatement(sql)) {
             ps.setInt(1, productId);
             int rowsAffected = ps.executeUpdate(); // executeUpdate returns the number of rows affected
+            rowCount = rowsAffected;
             if (rowsAffected > 0) {
+                AssociationIndex.productRemoved(productId);
+                IdentityMap.forgetProduct(productId);
+                DataChangeBus.publishProduct(EntityChange.removed(productId));
                 System.out.println("Product with ID " + productId + " deleted successfully.");
                 return true; // Return true if one or more rows were deleted
             } else {
@@ -244,129 +497,184 @@ public class ProductDAO {
             System.err.println("Error deleting product with ID " + productId + ": " + e.getMessage());
             e.printStackTrace();
             return false;
+        } finally {
+            daoEvent.end(rowCount);
         }
     }
 
     /**
-     * Helper method to build a frequency map of items in a list.
-     * This is used internally for comparing lists of associated parts while updating a product.
+     * Reads how many units of each part the given product uses from the `product_parts` linking table.
      *
-     * @param <T> The type of elements in the list.
-     * @param list The list for which to build the frequency map.
-     * @return A {@link Map} where keys are the elements from the list and values are their frequencies.
+     * @param productId The ID of the product.
+     * @return The part ID to quantity map.
+     * @throws SQLException If the query fails.
      */
-    private static <T> Map<T, Integer> buildFrequencyMap(List<T> list) {
-        Map<T, Integer> freqMap = new HashMap<>();
-        for (T item : list) {
-            freqMap.put(item, freqMap.getOrDefault(item, 0) + 1);
+    static IntIntHashMap readPartQuantities(int productId) throws SQLException {
+        return readPartQuantities(JDBC.connection, productId);
+    }
+
+    /**
+     * Reads how many units of each part the given product uses on the given connection, e.g., in a transaction
+     * that holds the product's row lock. This is how an update gets the stored associations when the
+     * {@link AssociationIndex} does not hold them for the product's version.
+     *
+     * @param connection The connection to read on.
+     * @param productId The ID of the product.
+     * @return The part ID to quantity map.
+     * @throws SQLException If the query fails.
+     */
+    static IntIntHashMap readPartQuantities(Connection connection, int productId) throws SQLException {
+        IntIntHashMap quantities = new IntIntHashMap();
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT part_id, quantity FROM product_parts WHERE product_id = ?")) {
+            statement.setInt(1, productId);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    quantities.put(resultSet.getInt(1), resultSet.getInt(2));
+                }
+            }
         }
-        return freqMap;
+        return quantities;
     }
 
     /**
      * Updates an existing {@link Product}'s details in the database, including its associated parts.
-     * This method first updates the product's main attributes and then intelligently
-     * identifies and applies changes (additions and removals) to the `product_parts` linking table.
+     * This method first updates the product's main attributes and then applies the minimal changes
+     * to the `product_parts` linking table, computed as an {@link AssociationDiff} between the stored associations
+     * and the product's associated parts: parts whose quantity changed
+     * are written with their new quantity and parts no longer used are deleted, each as one batch.
+     * Both steps run in one transaction, which also records a change of the stock in the {@link StockLedger}
+     * as a {@link MovementReason#CORRECTION}.
      * The `last_updated` and `last_updated_by` fields are automatically updated
      * using the current UTC time and the {@link UserDAO#userId}.
+     * <p>
+     * The update uses optimistic concurrency control: it is only written if the product's row still has the
+     * {@link Product#getVersion() version} the product was loaded with, and the write increments it. If the update
+     * is rejected, the conflict is reported as an {@link UpdateConflictEvent} and the product as it is now stored
+     * is reloaded into the canonical instance and published.
+     * </p>
+     * <p>
+     * The stored associations are taken from the {@link AssociationIndex} if it holds them for the version the
+     * product was loaded with. Every write of a product's associations increments its version, so once the
+     * transaction has locked the row at that version they are exactly what is stored. Otherwise (the index is
+     * stale, or missed a write from another workstation) they are read in the transaction, under the row lock.
+     * </p>
      *
      * @param product The {@link Product} object with updated information and potentially
      * modified associated parts list.
+     * @return {@code true} if the product was written; {@code false} if it was changed or deleted by someone else
+     * since it was loaded, or an error occurred.
      */
-    public static void updateProduct(Product product){
-        PreparedStatement ps = null;
+    public static boolean updateProduct(Product product){
+        DAOEvent daoEvent = DAOEvent.start("updateProduct", "Product", 1);
+        int rowCount = 0;
+        Timestamp now = JDBC.currentTimestamp();
+        IntIntHashMap desiredQuantities = AssociationDiff.quantitiesOf(product.getAssociatedParts());
         try {
-            // Update product's main attributes
-            String sql = "UPDATE products SET name = ?, price = ?, stock = ?, min = ?, max = ?, last_updated = ?, last_updated_by = ? WHERE id = ?"; // Use prepared statement for ID too
-            ps = JDBC.connection.prepareStatement(sql);
-            ps.setString(1, product.getName());
-            ps.setDouble(2, product.getPrice());
-            ps.setInt(3, product.getStock());
-            ps.setInt(4, product.getMin());
-            ps.setInt(5, product.getMax());
-            ps.setTimestamp(6, Timestamp.from(LocalDateTime.now().toInstant(ZoneOffset.UTC)));
-            ps.setInt(7, UserDAO.userId);
-            ps.setInt(8, product.getId()); // Set product ID as parameter
-            ps.executeUpdate();
-            // ps.close() is handled by finally block if not using try-with-resources for this statement.
-
-            // Update associated parts
-            ObservableList<Part> currentPartsList = getProductParts(product.getId());
-            ObservableList<Part> updatedPartsList = product.getAssociatedParts();
-
-            Map<Part, Integer> currentFreqMap = buildFrequencyMap(currentPartsList);
-            Map<Part, Integer> updatedFreqMap = buildFrequencyMap(updatedPartsList);
-
-            if (currentFreqMap.equals(updatedFreqMap)) {
-                System.out.println("Associated parts are identical. No updates to product_parts table needed.");
-                return;
-            }
-            System.out.println("Associated parts differ. Calculating changes...");
-
-            // Determine parts to remove
-            Map<Part, Integer> tempUpdatedFreqMap = new HashMap<>(updatedFreqMap);
-            List<Part> partsToRemove = new ArrayList<>();
-            for (Part currentPart : currentPartsList) {
-                if (tempUpdatedFreqMap.containsKey(currentPart) && tempUpdatedFreqMap.get(currentPart) > 0) {
-                    tempUpdatedFreqMap.put(currentPart, tempUpdatedFreqMap.get(currentPart) - 1);
-                } else {
-                    partsToRemove.add(currentPart);
-                }
-            }
+            IntIntHashMap indexedQuantities = AssociationIndex.getPartQuantities(product.getId(), product.getVersion());
 
-            // Determine parts to add
-            Map<Part, Integer> tempCurrentFreqMap = new HashMap<>(currentFreqMap);
-            List<Part> partsToAdd = new ArrayList<>();
-            for (Part desiredPart : updatedPartsList) {
-                if (tempCurrentFreqMap.containsKey(desiredPart) && tempCurrentFreqMap.get(desiredPart) > 0) {
-                    tempCurrentFreqMap.put(desiredPart, tempCurrentFreqMap.get(desiredPart) - 1);
-                } else {
-                    partsToAdd.add(desiredPart);
+            rowCount = JDBC.inTransaction(connection -> {
+                // Lock the product's row, unless someone else has changed it since the product was loaded
+                Integer storedStock = StockLedger.lockStock(connection, StockItem.PRODUCT, product.getId(), product.getVersion());
+                if (storedStock == null) {
+                    return 0;
                 }
-            }
-
-            // Perform database operations for removals
-            if (!partsToRemove.isEmpty()) {
-                System.out.println("Removing " + partsToRemove.size() + " associations from product_parts table:");
-                try (PreparedStatement deletePs = JDBC.connection.prepareStatement("DELETE FROM product_parts WHERE product_id = ? AND part_id = ?")) {
-                    for (Part part : partsToRemove) {
-                        System.out.println("  - Removing: " + part.getName() + " (ID: " + part.getId() + ")");
-                        deletePs.setInt(1, product.getId());
-                        deletePs.setInt(2, part.getId());
-                        deletePs.executeUpdate();
+                // Update product's main attributes
+                try (PreparedStatement ps = connection.prepareStatement("UPDATE products SET name = ?, price = ?, stock = ?, min = ?, max = ?,"
+                        + " last_updated = ?, last_updated_by = ?, version = version + 1 WHERE id = ? AND version = ?")) {
+                    ps.setString(1, product.getName());
+                    ps.setDouble(2, product.getPrice());
+                    ps.setInt(3, product.getStock());
+                    ps.setInt(4, product.getMin());
+                    ps.setInt(5, product.getMax());
+                    ps.setTimestamp(6, now);
+                    ps.setInt(7, UserDAO.userId);
+                    ps.setInt(8, product.getId());
+                    ps.setInt(9, product.getVersion());
+                    if (ps.executeUpdate() == 0) {
+                        return 0;
                     }
                 }
-            } else {
-                System.out.println("No associations to remove.");
-            }
+                if (product.getStock() != storedStock) {
+                    StockLedger.appendMovement(connection, StockItem.PRODUCT, product.getId(), product.getStock() - storedStock, product.getStock(),
+                            MovementReason.CORRECTION, now);
+                }
 
-            // Perform database operations for additions
-            if (!partsToAdd.isEmpty()) {
-                System.out.println("Adding " + partsToAdd.size() + " associations to product_parts table:");
-                try (PreparedStatement insertPs = JDBC.connection.prepareStatement("INSERT INTO product_parts (product_id, part_id) VALUES (?, ?)")) {
-                    for (Part part : partsToAdd) {
-                        System.out.println("  - Adding: " + part.getName() + " (ID: " + part.getId() + ")");
-                        insertPs.setInt(1, product.getId());
-                        insertPs.setInt(2, part.getId());
-                        insertPs.executeUpdate();
+                // The row is locked at the loaded version, so the associations cannot change until the commit
+                IntIntHashMap currentQuantities = indexedQuantities != null ? indexedQuantities : readPartQuantities(connection, product.getId());
+                AssociationDiff diff = AssociationDiff.between(currentQuantities, desiredQuantities);
+                int[] partIds = diff.getChangedPartIds();
+                if (diff.isEmpty()) {
+                    return 1;
+                }
+                try (PreparedStatement upsertPs = connection.prepareStatement(
+                             "INSERT INTO product_parts (product_id, part_id, quantity) VALUES (?, ?, ?) ON DUPLICATE KEY UPDATE quantity = VALUES(quantity)");
+                     PreparedStatement deletePs = connection.prepareStatement("DELETE FROM product_parts WHERE product_id = ? AND part_id = ?")) {
+                    boolean upserts = false;
+                    boolean deletes = false;
+                    for (int partId : partIds) {
+                        int quantity = diff.getQuantity(partId);
+                        if (quantity > 0) {
+                            upsertPs.setInt(1, product.getId());
+                            upsertPs.setInt(2, partId);
+                            upsertPs.setInt(3, quantity);
+                            upsertPs.addBatch();
+                            upserts = true;
+                        } else {
+                            deletePs.setInt(1, product.getId());
+                            deletePs.setInt(2, partId);
+                            deletePs.addBatch();
+                            deletes = true;
+                        }
+                    }
+                    if (deletes) {
+                        deletePs.executeBatch();
+                    }
+                    if (upserts) {
+                        upsertPs.executeBatch();
                     }
                 }
-            } else {
-                System.out.println("No new associations to add.");
+                return 1 + partIds.length;
+            });
+            if (rowCount > 0) {
+                AssociationIndex.productWritten(product.getId(), product.getVersion() + 1, desiredQuantities);
             }
-
-            System.out.println("Product and associated parts updated successfully.");
-
         } catch (SQLException e) {
             System.err.println("Database error during product update or part association management:");
             e.printStackTrace();
+            return false;
         } finally {
-            // Ensure the initial PreparedStatement for product update is closed
-            try {
-                if (ps != null) ps.close();
-            } catch (SQLException e) {
-                e.printStackTrace();
-            }
+            daoEvent.end(rowCount);
+        }
+
+        if (rowCount == 0) {
+            rejectStaleUpdate(product);
+            return false;
+        }
+        product.setVersion(product.getVersion() + 1);
+        product.setLastUpdated(now.toLocalDateTime());
+        DataChangeBus.publishProduct(EntityChange.updated(product.getId(), IdentityMap.product(product, true)));
+        StockLedger.snapshotIfDue();
+        return true;
+    }
+
+    /**
+     * Reports an update that matched no row: the product was either changed by someone else since it was loaded
+     * or deleted. Either way, what is stored now is published so the cached lists catch up. The other user may have
+     * changed the associations too, so the {@link AssociationIndex} is rebuilt the next time it is used.
+     */
+    private static void rejectStaleUpdate(Product product) {
+        AssociationIndex.invalidate();
+        Product current = getProduct(product.getId()); // Refreshes the canonical instance
+        if (current == null) {
+            System.out.println("Product with ID " + product.getId() + " was not updated: it has been deleted.");
+            IdentityMap.forgetProduct(product.getId());
+            DataChangeBus.publishProduct(EntityChange.removed(product.getId()));
+        } else {
+            System.out.println("Product with ID " + product.getId() + " was not updated: it was changed by someone else (version "
+                    + product.getVersion() + " was edited, version " + current.getVersion() + " is stored).");
+            UpdateConflictEvent.emit("Product", product.getId(), product.getVersion(), current.getVersion());
+            DataChangeBus.publishProduct(EntityChange.updated(current.getId(), current));
         }
     }
-}
\ No newline at end of file
+}
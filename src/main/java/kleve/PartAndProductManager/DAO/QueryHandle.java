@@ -0,0 +1,66 @@
+package kleve.PartAndProductManager.DAO;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Lets one thread cancel a query that a DAO method is running on another thread.
+ * A DAO method that accepts a handle attaches its statement before executing it and detaches it afterwards;
+ * {@link #cancel()} then calls {@link Statement#cancel()} on whatever statement is running,
+ * or stops the query from starting at all if it has not been executed yet.
+ *
+ * @author Jonathan Kleve
+ */
+public class QueryHandle {
+    private Statement statement;
+    private boolean cancelled;
+
+    /**
+     * Registers the statement that is about to be executed.
+     *
+     * @param statement The statement about to be executed.
+     * @return {@code true} if the statement may be executed; {@code false} if the handle has already been cancelled.
+     */
+    public synchronized boolean attach(Statement statement) {
+        if (cancelled) {
+            return false;
+        }
+        this.statement = statement;
+        return true;
+    }
+
+    /**
+     * Unregisters the statement once it has finished executing.
+     */
+    public synchronized void detach() {
+        statement = null;
+    }
+
+    /**
+     * Checks whether the handle has been cancelled.
+     *
+     * @return {@code true} if {@link #cancel()} has been called; {@code false} otherwise.
+     */
+    public synchronized boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Cancels the query. A running statement is cancelled on the database server;
+     * a statement that has not started yet will not be executed.
+     */
+    public void cancel() {
+        Statement running;
+        synchronized (this) {
+            cancelled = true;
+            running = statement;
+        }
+        if (running != null) {
+            try {
+                running.cancel();
+            } catch (SQLException e) {
+                System.err.println("Error cancelling query: " + e.getMessage());
+            }
+        }
+    }
+}
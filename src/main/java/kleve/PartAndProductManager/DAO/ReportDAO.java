@@ -3,6 +3,7 @@ package kleve.PartAndProductManager.DAO;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import kleve.PartAndProductManager.datamodel.ReportItem;
+import kleve.PartAndProductManager.monitoring.DAOEvent;
 
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -10,6 +11,8 @@ import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Provides data access operations for generating reports.
@@ -32,26 +35,17 @@ public class ReportDAO {
      */
     public static ObservableList<ReportItem> getItemsUpdatedLastWeek() {
         ObservableList<ReportItem> displayItems = FXCollections.observableArrayList();
-        LocalDateTime oneWeekAgoUtc = LocalDateTime.now(ZoneOffset.UTC).minusWeeks(1);
-        Timestamp oneWeekAgoTimestamp = Timestamp.valueOf(oneWeekAgoUtc);
+        Timestamp oneWeekAgoTimestamp = Timestamp.valueOf(oneWeekAgo());
 
         String partsSql = "SELECT id, name, stock, last_updated FROM parts WHERE last_updated >= ?";
         String productsSql = "SELECT id, name, stock, last_updated FROM products WHERE last_updated >= ?";
+        DAOEvent daoEvent = DAOEvent.start("getItemsUpdatedLastWeek", "ReportItem", 0);
 
         // Query for parts updated in the last week
         try (PreparedStatement stmt = JDBC.connection.prepareStatement(partsSql)) {
             stmt.setTimestamp(1, oneWeekAgoTimestamp);
             try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    int id = rs.getInt("id");
-                    String name = rs.getString("name");
-                    int stock = rs.getInt("stock");
-                    Timestamp lastUpdatedTs = rs.getTimestamp("last_updated");
-                    // Convert SQL Timestamp to LocalDateTime, handling potential nulls
-                    LocalDateTime lastUpdated = lastUpdatedTs != null ? lastUpdatedTs.toLocalDateTime() : null;
-
-                    displayItems.add(new ReportItem(id, name, "Part", stock, lastUpdated));
-                }
+                RowMappers.readAll(rs, RowMappers.reportItem(rs, "Part"), displayItems);
             }
         } catch (SQLException e) {
             System.err.println("Error fetching parts for report: " + e.getMessage());
@@ -62,21 +56,103 @@ public class ReportDAO {
         try (PreparedStatement stmt = JDBC.connection.prepareStatement(productsSql)) {
             stmt.setTimestamp(1, oneWeekAgoTimestamp);
             try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    int id = rs.getInt("id");
-                    String name = rs.getString("name");
-                    int stock = rs.getInt("stock");
-                    Timestamp lastUpdatedTs = rs.getTimestamp("last_updated");
-                    // Convert SQL Timestamp to LocalDateTime, handling potential nulls
-                    LocalDateTime lastUpdated = lastUpdatedTs != null ? lastUpdatedTs.toLocalDateTime() : null;
-
-                    displayItems.add(new ReportItem(id, name, "Product", stock, lastUpdated));
-                }
+                RowMappers.readAll(rs, RowMappers.reportItem(rs, "Product"), displayItems);
             }
         } catch (SQLException e) {
             System.err.println("Error fetching products for report: " + e.getMessage());
             e.printStackTrace();
         }
+        daoEvent.end(displayItems.size());
         return displayItems;
     }
-}
\ No newline at end of file
+
+    /**
+     * The parts and products updated since a given time, as one row set with a type column.
+     * The since parameter appears twice.
+     */
+    private static final String UPDATED_SINCE_SQL =
+            "SELECT id, name, 'Part' AS type, stock, last_updated FROM parts WHERE last_updated >= ?"
+            + " UNION ALL SELECT id, name, 'Product' AS type, stock, last_updated FROM products WHERE last_updated >= ?";
+
+    /**
+     * Calculates the start of the "updated last week" report: one week before now, in UTC like the stored timestamps.
+     *
+     * @return The earliest last-updated time included in the report.
+     */
+    public static LocalDateTime oneWeekAgo() {
+        return LocalDateTime.now(ZoneOffset.UTC).minusWeeks(1);
+    }
+
+    /**
+     * Counts the parts and products updated since the given time, for tables that load their rows lazily.
+     *
+     * @param since The earliest last-updated time to include (UTC).
+     * @return The number of matching parts and products, or 0 if an error occurs.
+     */
+    public static int countItemsUpdatedSince(LocalDateTime since) {
+        String sql = "SELECT COUNT(*) FROM (" + UPDATED_SINCE_SQL + ") updated";
+        DAOEvent daoEvent = DAOEvent.start("countItemsUpdatedSince", "ReportItem", 0);
+        try (PreparedStatement stmt = JDBC.connection.prepareStatement(sql)) {
+            stmt.setTimestamp(1, Timestamp.valueOf(since));
+            stmt.setTimestamp(2, Timestamp.valueOf(since));
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        } catch (SQLException e) {
+            System.err.println("Error counting items for report: " + e.getMessage());
+            e.printStackTrace();
+            return 0;
+        } finally {
+            daoEvent.end(1);
+        }
+    }
+
+    /**
+     * Retrieves one window of the parts and products updated since the given time, in the given order,
+     * for tables that load their rows lazily. Ties are broken by type and ID so that consecutive windows
+     * neither skip nor repeat rows.
+     *
+     * @param since The earliest last-updated time to include (UTC).
+     * @param offset The index of the first item to retrieve.
+     * @param limit The maximum number of items to retrieve.
+     * @param sortProperty The {@link ReportItem} property to sort by ("id", "name", "type", "stock" or "lastUpdated"); anything else sorts by last update.
+     * @param ascending Whether to sort in ascending order.
+     * @return A {@link List} of up to {@code limit} report items; empty if an error occurs.
+     */
+    public static List<ReportItem> getItemsUpdatedSince(LocalDateTime since, int offset, int limit, String sortProperty, boolean ascending) {
+        List<ReportItem> displayItems = new ArrayList<>(limit);
+        String direction = ascending ? "ASC" : "DESC";
+        String sql = "SELECT * FROM (" + UPDATED_SINCE_SQL + ") updated ORDER BY " + sortColumn(sortProperty) + " " + direction
+                + ", type " + direction + ", id " + direction + " LIMIT ? OFFSET ?";
+        DAOEvent daoEvent = DAOEvent.start("getItemsUpdatedSince", "ReportItem", 0);
+
+        try (PreparedStatement stmt = JDBC.connection.prepareStatement(sql)) {
+            stmt.setTimestamp(1, Timestamp.valueOf(since));
+            stmt.setTimestamp(2, Timestamp.valueOf(since));
+            stmt.setInt(3, limit);
+            stmt.setInt(4, offset);
+            try (ResultSet rs = stmt.executeQuery()) {
+                RowMappers.readAll(rs, RowMappers.reportItem(rs, null), displayItems);
+            }
+        } catch (SQLException e) {
+            System.err.println("Error fetching items for report: " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            daoEvent.end(displayItems.size());
+        }
+        return displayItems;
+    }
+
+    /**
+     * Maps a sortable {@link ReportItem} property to its column. Only whitelisted names are ever placed in the SQL.
+     */
+    private static String sortColumn(String sortProperty) {
+        if (sortProperty == null) {
+            return "last_updated";
+        }
+        return switch (sortProperty) {
+            case "id", "name", "type", "stock" -> sortProperty;
+            default -> "last_updated";
+        };
+    }
+}
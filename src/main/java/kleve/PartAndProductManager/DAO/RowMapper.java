@@ -0,0 +1,25 @@
+package kleve.PartAndProductManager.DAO;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Decodes the current row of a {@link ResultSet} into an object.
+ * A mapper is created for one result set by {@link RowMappers}, which resolves the column indexes it reads
+ * once up front, so decoding a row is a series of indexed getter calls with no column label lookups.
+ *
+ * @param <T> The type of object decoded from a row.
+ * @author Jonathan Kleve
+ */
+@FunctionalInterface
+interface RowMapper<T> {
+
+    /**
+     * Decodes the row the result set is positioned on.
+     *
+     * @param resultSet The result set the mapper was created for.
+     * @return The decoded object, or {@code null} if the row does not describe a valid object.
+     * @throws SQLException If a column cannot be read.
+     */
+    T map(ResultSet resultSet) throws SQLException;
+}
@@ -0,0 +1,148 @@
+package kleve.PartAndProductManager.DAO;
+
+import kleve.PartAndProductManager.datamodel.InHouse;
+import kleve.PartAndProductManager.datamodel.Outsourced;
+import kleve.PartAndProductManager.datamodel.Part;
+import kleve.PartAndProductManager.datamodel.PartType;
+import kleve.PartAndProductManager.datamodel.Product;
+import kleve.PartAndProductManager.datamodel.ReportItem;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+/**
+ * Creates the {@link RowMapper}s the DAOs decode their result sets with. Each factory method resolves the
+ * indexes of the columns its mapper reads from the result set's metadata once, so row loops neither look up
+ * column labels nor allocate anything per row beyond the decoded object itself.
+ * <p>
+ * Part rows are told apart by a single rule, whichever query they come from: the {@link PartType} stored in their
+ * `part_type` column. A row with an unknown type (which the DAO never writes) is reported and skipped.
+ * </p>
+ *
+ * @author Jonathan Kleve
+ */
+final class RowMappers {
+
+    private RowMappers() {
+    }
+
+    /**
+     * Creates a mapper for result sets containing the columns of the parts table.
+     * The mapped parts are passed through {@link IdentityMap#part(Part)}, so they are the canonical instances.
+     *
+     * @param resultSet The result set to decode.
+     * @return A mapper decoding {@link InHouse} and {@link Outsourced} parts; it returns {@code null} for rows that are neither.
+     * @throws SQLException If one of the columns is missing.
+     */
+    static RowMapper<Part> part(ResultSet resultSet) throws SQLException {
+        int id = resultSet.findColumn("id");
+        int name = resultSet.findColumn("name");
+        int price = resultSet.findColumn("price");
+        int stock = resultSet.findColumn("stock");
+        int min = resultSet.findColumn("min");
+        int max = resultSet.findColumn("max");
+        int partType = resultSet.findColumn("part_type");
+        int machineId = resultSet.findColumn("machine_id");
+        int companyName = resultSet.findColumn("company_name");
+        int createDate = resultSet.findColumn("create_date");
+        int lastUpdated = resultSet.findColumn("last_updated");
+        int version = resultSet.findColumn("version");
+        return rs -> {
+            PartType type = PartType.fromCode(rs.getInt(partType));
+            if (type == null) {
+                System.out.println("Warning: Part with ID " + rs.getInt(id) + " is neither InHouse nor Outsourced properly defined.");
+                return null;
+            }
+            // Only the column of the row's own type is read
+            Part part = switch (type) {
+                case IN_HOUSE -> new InHouse(rs.getInt(id), rs.getString(name), rs.getDouble(price), rs.getInt(stock),
+                        rs.getInt(min), rs.getInt(max), rs.getInt(machineId));
+                case OUTSOURCED -> new Outsourced(rs.getInt(id), rs.getString(name), rs.getDouble(price), rs.getInt(stock),
+                        rs.getInt(min), rs.getInt(max), rs.getString(companyName));
+            };
+            part.setCreateDate(toLocalDateTime(rs.getTimestamp(createDate)));
+            part.setLastUpdated(toLocalDateTime(rs.getTimestamp(lastUpdated)));
+            part.setVersion(rs.getInt(version));
+            return IdentityMap.part(part);
+        };
+    }
+
+    /**
+     * Creates a mapper for result sets containing the columns of the products table. The mapped products have no
+     * associated parts and are not canonical; pass them through {@link IdentityMap#product(Product, boolean)}.
+     *
+     * @param resultSet The result set to decode.
+     * @return A mapper decoding {@link Product}s.
+     * @throws SQLException If one of the columns is missing.
+     */
+    static RowMapper<Product> product(ResultSet resultSet) throws SQLException {
+        int id = resultSet.findColumn("id");
+        int name = resultSet.findColumn("name");
+        int price = resultSet.findColumn("price");
+        int stock = resultSet.findColumn("stock");
+        int min = resultSet.findColumn("min");
+        int max = resultSet.findColumn("max");
+        int createDate = resultSet.findColumn("create_date");
+        int lastUpdated = resultSet.findColumn("last_updated");
+        int version = resultSet.findColumn("version");
+        return rs -> {
+            Product product = new Product(null, rs.getInt(id), rs.getString(name), rs.getDouble(price),
+                    rs.getInt(stock), rs.getInt(min), rs.getInt(max));
+            product.setCreateDate(toLocalDateTime(rs.getTimestamp(createDate)));
+            product.setLastUpdated(toLocalDateTime(rs.getTimestamp(lastUpdated)));
+            product.setVersion(rs.getInt(version));
+            return product;
+        };
+    }
+
+    /**
+     * Creates a mapper for report result sets with the columns id, name, stock and last_updated,
+     * and a type column unless a fixed type is given.
+     *
+     * @param resultSet The result set to decode.
+     * @param type The type of every row ("Part" or "Product"), or {@code null} to read it from the type column.
+     * @return A mapper decoding {@link ReportItem}s.
+     * @throws SQLException If one of the columns is missing.
+     */
+    static RowMapper<ReportItem> reportItem(ResultSet resultSet, String type) throws SQLException {
+        int id = resultSet.findColumn("id");
+        int name = resultSet.findColumn("name");
+        int stock = resultSet.findColumn("stock");
+        int lastUpdated = resultSet.findColumn("last_updated");
+        int typeColumn = type == null ? resultSet.findColumn("type") : 0;
+        return rs -> new ReportItem(rs.getInt(id), rs.getString(name), type != null ? type : rs.getString(typeColumn),
+                rs.getInt(stock), toLocalDateTime(rs.getTimestamp(lastUpdated)));
+    }
+
+    /**
+     * Converts a nullable timestamp column value.
+     */
+    static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+
+    /**
+     * Decodes every remaining row of a result set into the given collection, skipping rows the mapper rejects.
+     *
+     * @param <T> The type of object decoded from a row.
+     * @param resultSet The result set to decode.
+     * @param mapper The mapper created for the result set.
+     * @param target The collection to add the decoded objects to.
+     * @return The number of objects added.
+     * @throws SQLException If a row cannot be read.
+     */
+    static <T> int readAll(ResultSet resultSet, RowMapper<T> mapper, Collection<? super T> target) throws SQLException {
+        int count = 0;
+        while (resultSet.next()) {
+            T row = mapper.map(resultSet);
+            if (row != null) {
+                target.add(row);
+                count++;
+            }
+        }
+        return count;
+    }
+}
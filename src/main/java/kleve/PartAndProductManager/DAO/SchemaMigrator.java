@@ -0,0 +1,389 @@
+package kleve.PartAndProductManager.DAO;
+
+import kleve.PartAndProductManager.monitoring.DAOEvent;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Owns the database schema: the tables, their constraints and the indexes the DAO queries rely on.
+ * <p>
+ * The schema is built by numbered migrations applied in order. The version each database is at is kept
+ * in the {@code schema_version} table, so every migration runs once per database. The migrations are:
+ * </p>
+ * <ol>
+ * <li>The baseline tables (users, parts, products, product_parts), created only if they do not exist
+ * so that a database set up by hand is adopted as it is.</li>
+ * <li>Association quantities: one product_parts row per product and part, with foreign keys.</li>
+ * <li>The part type discriminator and its index.</li>
+ * <li>The performance indexes: every index in {@link #REQUIRED_INDEXES} that is missing is created.</li>
+ * <li>The ID sequences {@link IdAllocator} reserves blocks of part and product IDs from.</li>
+ * <li>The row versions that updates of parts and products are checked against.</li>
+ * <li>The {@link StockLedger} tables, with the current stock of every item as its opening snapshot.</li>
+ * <li>The product_parts constraints of migration 2 that a database upgraded by the old hand-run script lacks:
+ * every constraint in {@link #ASSOCIATION_CONSTRAINTS} that is missing is added.</li>
+ * <li>Part deletes restricted: a part a product uses can no longer be deleted, instead of the delete
+ * cascading to the association.</li>
+ * </ol>
+ * <p>
+ * Migrations 1 to 3, 5 to 7 and 9 are SQL scripts under {@code db/migration}. A migration whose change is already
+ * present (e.g., because its script used to be run by hand) is recorded without running again.
+ * After migrating, {@link #findMissingIndexes()} checks that every required index exists.
+ * </p>
+ * <p>
+ * Migrations run at startup, before the first query. They can also be run from the command line through
+ * {@link #main(String[])}, e.g., to check a production database before deploying.
+ * </p>
+ *
+ * @author Jonathan Kleve
+ */
+public class SchemaMigrator {
+
+    /**
+     * The schema version the application expects.
+     */
+    public static final int CURRENT_VERSION = 9;
+
+    /**
+     * The indexes the DAO queries need so that none of their lookups runs as a full table scan.
+     * An index satisfies a requirement if its leading columns are the required columns, so a primary key counts.
+     */
+    private static final List<RequiredIndex> REQUIRED_INDEXES = List.of(
+            new RequiredIndex("product_parts", "idx_product_parts_product_id", "product_id"),
+            new RequiredIndex("product_parts", "idx_product_parts_part_id", "part_id"),
+            new RequiredIndex("users", "idx_users_user_name", "user_name"),
+            new RequiredIndex("parts", "idx_parts_part_type", "part_type"),
+            new RequiredIndex("parts", "idx_parts_last_updated", "last_updated"),
+            new RequiredIndex("products", "idx_products_last_updated", "last_updated")
+    );
+
+    /**
+     * The constraints migration 2 puts on product_parts, by name. The hand-run script that migration 2 replaced
+     * added the quantity column without them, and migration 2 is recorded without running when the column exists.
+     */
+    private static final Map<String, String> ASSOCIATION_CONSTRAINTS = Map.of(
+            "fk_product_parts_product", "FOREIGN KEY (product_id) REFERENCES products (id) ON DELETE CASCADE",
+            "fk_product_parts_part", "FOREIGN KEY (part_id) REFERENCES parts (id) ON DELETE CASCADE",
+            "chk_product_parts_quantity", "CHECK (quantity > 0)"
+    );
+
+    private static final List<Migration> MIGRATIONS = List.of(
+            new Migration(1, "Baseline tables", connection -> runScript(connection, "V1__baseline.sql"), connection -> false),
+            new Migration(2, "Association quantities", connection -> runScript(connection, "V2__product_parts_quantity.sql"),
+                    connection -> hasColumn(connection, "product_parts", "quantity")),
+            new Migration(3, "Part type discriminator", connection -> runScript(connection, "V3__part_type.sql"),
+                    connection -> hasColumn(connection, "parts", "part_type")),
+            new Migration(4, "Performance indexes", SchemaMigrator::createMissingIndexes, connection -> false),
+            new Migration(5, "ID sequences", connection -> runScript(connection, "V5__id_sequences.sql"), connection -> false),
+            new Migration(6, "Row versions", connection -> runScript(connection, "V6__row_versions.sql"),
+                    connection -> hasColumn(connection, "parts", "version") && hasColumn(connection, "products", "version")),
+            new Migration(7, "Stock ledger", connection -> runScript(connection, "V7__stock_ledger.sql"), connection -> false),
+            new Migration(8, "Association constraints", SchemaMigrator::addMissingAssociationConstraints, connection -> false),
+            new Migration(9, "Restrict part deletes", connection -> runScript(connection, "V9__restrict_part_deletes.sql"), connection -> false)
+    );
+
+    private static final String SCRIPT_LOCATION = "/kleve/PartAndProductManager/db/migration/";
+
+    /**
+     * Applies every migration the database has not had yet, then checks the required indexes.
+     * Errors are reported on standard error; a failed migration stops the ones after it.
+     *
+     * @return {@code true} if the schema is at {@link #CURRENT_VERSION} and no required index is missing; {@code false} otherwise.
+     */
+    public static synchronized boolean migrate() {
+        Connection connection = JDBC.connection;
+        DAOEvent daoEvent = DAOEvent.start("migrate", "Schema", 0);
+        int applied = 0;
+        try {
+            createVersionTable(connection);
+            int version = readVersion(connection);
+            for (Migration migration : MIGRATIONS) {
+                if (migration.version() <= version) {
+                    continue;
+                }
+                long start = System.nanoTime();
+                if (migration.alreadyApplied().check(connection)) {
+                    System.out.println("Schema: migration " + migration.version() + " (" + migration.description() + ") is already present; recording it.");
+                } else {
+                    System.out.println("Schema: applying migration " + migration.version() + " (" + migration.description() + ")...");
+                    migration.action().apply(connection);
+                }
+                recordVersion(connection, migration, (System.nanoTime() - start) / 1_000_000);
+                applied++;
+            }
+        } catch (SQLException | IOException e) {
+            System.err.println("Schema: migration failed: " + e.getMessage());
+            e.printStackTrace();
+            return false;
+        } finally {
+            daoEvent.end(applied);
+        }
+
+        List<String> missing = findMissingIndexes();
+        if (!missing.isEmpty()) {
+            System.err.println("Schema: required indexes are missing, lookups on these columns will scan whole tables: " + missing);
+            return false;
+        }
+        System.out.println("Schema: at version " + CURRENT_VERSION + (applied > 0 ? " (" + applied + " migrations applied)." : "."));
+        return true;
+    }
+
+    /**
+     * Checks that every required index exists.
+     *
+     * @return The missing indexes, as {@code table(column)}; empty if none is missing.
+     * If the database metadata cannot be read, every required index is reported missing.
+     */
+    public static List<String> findMissingIndexes() {
+        List<String> missing = new ArrayList<>();
+        Map<String, List<List<String>>> indexesByTable = new HashMap<>();
+        for (RequiredIndex required : REQUIRED_INDEXES) {
+            try {
+                List<List<String>> indexes = indexesByTable.get(required.table());
+                if (indexes == null) {
+                    indexes = readIndexColumns(JDBC.connection, required.table());
+                    indexesByTable.put(required.table(), indexes);
+                }
+                if (!isSatisfied(required, indexes)) {
+                    missing.add(required.toString());
+                }
+            } catch (SQLException e) {
+                System.err.println("Schema: cannot read the indexes of " + required.table() + ": " + e.getMessage());
+                missing.add(required.toString());
+            }
+        }
+        return missing;
+    }
+
+    /**
+     * Retrieves the schema version of the database.
+     *
+     * @return The highest migration applied, 0 if none has been, or -1 if the version cannot be read.
+     */
+    public static int getSchemaVersion() {
+        try {
+            createVersionTable(JDBC.connection);
+            return readVersion(JDBC.connection);
+        } catch (SQLException e) {
+            System.err.println("Schema: cannot read the schema version: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    /**
+     * Runs the migrations from the command line. With the argument {@code check} the database is only checked:
+     * the command reports the schema version and the missing indexes without changing anything. With no argument
+     * (or {@code migrate}) the pending migrations are applied first. The exit status is 0 if the schema is
+     * current and complete, and 1 otherwise.
+     *
+     * @param args {@code migrate} (the default) or {@code check}.
+     */
+    public static void main(String[] args) {
+        boolean checkOnly = args.length > 0 && "check".equalsIgnoreCase(args[0]);
+        JDBC.openConnection();
+        if (JDBC.connection == null) {
+            System.exit(1);
+        }
+        boolean ok;
+        if (checkOnly) {
+            int version = getSchemaVersion();
+            List<String> missing = findMissingIndexes();
+            System.out.println("Schema version: " + version + " (expected " + CURRENT_VERSION + ")");
+            System.out.println(missing.isEmpty() ? "All required indexes are present." : "Missing indexes: " + missing);
+            ok = version == CURRENT_VERSION && missing.isEmpty();
+        } else {
+            ok = migrate();
+        }
+        JDBC.closeConnection();
+        System.exit(ok ? 0 : 1);
+    }
+
+    private static void createVersionTable(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS schema_version (version INT NOT NULL PRIMARY KEY,"
+                    + " description VARCHAR(200) NOT NULL, installed_on DATETIME NOT NULL, execution_ms INT NOT NULL)");
+        }
+    }
+
+    private static int readVersion(Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT COALESCE(MAX(version), 0) FROM schema_version");
+             ResultSet resultSet = statement.executeQuery()) {
+            return resultSet.next() ? resultSet.getInt(1) : 0;
+        }
+    }
+
+    private static void recordVersion(Connection connection, Migration migration, long executionMillis) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "INSERT INTO schema_version (version, description, installed_on, execution_ms) VALUES (?, ?, ?, ?)")) {
+            statement.setInt(1, migration.version());
+            statement.setString(2, migration.description());
+            statement.setTimestamp(3, Timestamp.from(LocalDateTime.now().toInstant(ZoneOffset.UTC)));
+            statement.setLong(4, executionMillis);
+            statement.executeUpdate();
+        }
+    }
+
+    /**
+     * Runs the statements of a migration script one by one. Statements end with a semicolon at the end of a line,
+     * and lines starting with {@code --} are comments.
+     */
+    private static void runScript(Connection connection, String scriptName) throws SQLException, IOException {
+        InputStream stream = SchemaMigrator.class.getResourceAsStream(SCRIPT_LOCATION + scriptName);
+        if (stream == null) {
+            throw new IOException("Migration script not found: " + scriptName);
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8));
+             Statement statement = connection.createStatement()) {
+            StringBuilder sql = new StringBuilder();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String trimmed = line.trim();
+                if (trimmed.isEmpty() || trimmed.startsWith("--")) {
+                    continue;
+                }
+                sql.append(line).append('\n');
+                if (trimmed.endsWith(";")) {
+                    statement.execute(sql.substring(0, sql.lastIndexOf(";")));
+                    sql.setLength(0);
+                }
+            }
+            if (!sql.toString().isBlank()) {
+                statement.execute(sql.toString());
+            }
+        }
+    }
+
+    private static void createMissingIndexes(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            for (RequiredIndex required : REQUIRED_INDEXES) {
+                if (!isSatisfied(required, readIndexColumns(connection, required.table()))) {
+                    System.out.println("Schema: creating index " + required.name() + " on " + required);
+                    statement.execute("CREATE INDEX " + required.name() + " ON " + required.table() + " (" + required.column() + ")");
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds the product_parts constraints of migration 2 that are missing. Rows that would violate them are deleted
+     * first, the same rows migration 2 drops when it rebuilds the table: associations with a deleted part or product,
+     * and (as their product uses none of the part) associations whose quantity is not positive.
+     */
+    private static void addMissingAssociationConstraints(Connection connection) throws SQLException {
+        List<String> existing = new ArrayList<>();
+        try (PreparedStatement statement = connection.prepareStatement("SELECT CONSTRAINT_NAME FROM information_schema.TABLE_CONSTRAINTS"
+                + " WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'product_parts'");
+             ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                existing.add(resultSet.getString(1).toLowerCase(Locale.ROOT));
+            }
+        }
+
+        try (Statement statement = connection.createStatement()) {
+            if (!existing.containsAll(ASSOCIATION_CONSTRAINTS.keySet())) {
+                int deleted = statement.executeUpdate("DELETE FROM product_parts WHERE quantity <= 0"
+                        + " OR product_id NOT IN (SELECT id FROM products) OR part_id NOT IN (SELECT id FROM parts)");
+                if (deleted > 0) {
+                    System.out.println("Schema: deleted " + deleted + " product_parts rows that violate its constraints");
+                }
+            }
+            for (Map.Entry<String, String> constraint : ASSOCIATION_CONSTRAINTS.entrySet()) {
+                if (!existing.contains(constraint.getKey())) {
+                    System.out.println("Schema: adding constraint " + constraint.getKey() + " on product_parts");
+                    statement.execute("ALTER TABLE product_parts ADD CONSTRAINT " + constraint.getKey() + " " + constraint.getValue());
+                }
+            }
+        }
+    }
+
+    private static boolean isSatisfied(RequiredIndex required, List<List<String>> indexes) {
+        for (List<String> columns : indexes) {
+            if (!columns.isEmpty() && columns.get(0).equalsIgnoreCase(required.column())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reads the columns of every index on a table, each list in index column order.
+     */
+    private static List<List<String>> readIndexColumns(Connection connection, String table) throws SQLException {
+        Map<String, List<String>> columnsByIndex = new HashMap<>();
+        DatabaseMetaData metaData = connection.getMetaData();
+        try (ResultSet resultSet = metaData.getIndexInfo(connection.getCatalog(), null, table, false, false)) {
+            while (resultSet.next()) {
+                String indexName = resultSet.getString("INDEX_NAME");
+                String column = resultSet.getString("COLUMN_NAME");
+                int position = resultSet.getShort("ORDINAL_POSITION");
+                if (indexName == null || column == null) {
+                    continue;
+                }
+                List<String> columns = columnsByIndex.computeIfAbsent(indexName, key -> new ArrayList<>());
+                while (columns.size() < position) {
+                    columns.add("");
+                }
+                columns.set(position - 1, column);
+            }
+        }
+        return new ArrayList<>(columnsByIndex.values());
+    }
+
+    private static boolean hasColumn(Connection connection, String table, String column) throws SQLException {
+        try (ResultSet resultSet = connection.getMetaData().getColumns(connection.getCatalog(), null, table, column)) {
+            return resultSet.next();
+        }
+    }
+
+    /**
+     * An index the DAO queries rely on.
+     *
+     * @param table The indexed table.
+     * @param name The name the index is created with if it is missing.
+     * @param column The column that must lead an index on the table.
+     */
+    private record RequiredIndex(String table, String name, String column) {
+        @Override
+        public String toString() {
+            return table + "(" + column + ")";
+        }
+    }
+
+    /**
+     * One step of the schema.
+     *
+     * @param version The schema version the migration brings the database to.
+     * @param description What the migration changes.
+     * @param action Applies the migration.
+     * @param alreadyApplied Checks whether the migration's change is already present, in which case it is only recorded.
+     */
+    private record Migration(int version, String description, MigrationAction action, MigrationCheck alreadyApplied) {
+    }
+
+    @FunctionalInterface
+    private interface MigrationAction {
+        void apply(Connection connection) throws SQLException, IOException;
+    }
+
+    @FunctionalInterface
+    private interface MigrationCheck {
+        boolean check(Connection connection) throws SQLException;
+    }
+}
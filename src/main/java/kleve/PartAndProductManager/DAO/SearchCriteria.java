@@ -0,0 +1,167 @@
+package kleve.PartAndProductManager.DAO;
+
+import kleve.PartAndProductManager.datamodel.Part;
+import kleve.PartAndProductManager.datamodel.PartType;
+import kleve.PartAndProductManager.datamodel.Product;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Predicate;
+
+/**
+ * The criteria of a part or product search, parsed from the text typed in a search field
+ * and evaluated in memory against the cached {@link Catalog}.
+ * <p>
+ * Plain search text works as it always has: a number matches an ID and anything else matches
+ * a name substring (case-insensitive). Two optional filters may be added anywhere in the text:
+ * </p>
+ * <ul>
+ *     <li>{@code type:inhouse} or {@code type:outsourced} limits a part search to one kind of part
+ *     (ignored when searching products).</li>
+ *     <li>{@code stock:5-20}, {@code stock:5-}, {@code stock:-20} or {@code stock:7} limits the inventory level.</li>
+ * </ul>
+ *
+ * @author Jonathan Kleve
+ */
+public class SearchCriteria {
+    private String text = "";
+    private Integer id;
+    private String nameContains;
+    private PartType partType;
+    private int minStock = Integer.MIN_VALUE;
+    private int maxStock = Integer.MAX_VALUE;
+
+    private SearchCriteria() {
+    }
+
+    /**
+     * Parses the text typed in a search field. Filter tokens that cannot be parsed are treated as part of the name.
+     *
+     * @param searchText The search text; {@code null} or blank text matches everything.
+     * @return The parsed {@link SearchCriteria}.
+     */
+    public static SearchCriteria parse(String searchText) {
+        SearchCriteria criteria = new SearchCriteria();
+        if (searchText == null) {
+            return criteria;
+        }
+
+        List<String> nameTokens = new ArrayList<>();
+        for (String token : searchText.trim().split("\\s+")) {
+            String lowerToken = token.toLowerCase(Locale.ROOT);
+            if (lowerToken.startsWith("type:") && criteria.parseType(lowerToken.substring(5))) {
+                continue;
+            }
+            if (lowerToken.startsWith("stock:") && criteria.parseStockRange(lowerToken.substring(6))) {
+                continue;
+            }
+            if (!token.isEmpty()) {
+                nameTokens.add(token);
+            }
+        }
+
+        criteria.text = String.join(" ", nameTokens);
+        if (!criteria.text.isEmpty()) {
+            try {
+                criteria.id = Integer.parseInt(criteria.text);
+            } catch (NumberFormatException e) {
+                criteria.nameContains = criteria.text.toLowerCase(Locale.ROOT);
+            }
+        }
+        return criteria;
+    }
+
+    /**
+     * Checks whether the search text contains the SQL wildcards {@code %} or {@code _}. Such text is rejected
+     * by every search field, whether the search would be answered from the {@link Catalog} or the database,
+     * so that the same text never gives different results depending on the state of the cache.
+     *
+     * @param searchText The search text.
+     * @return {@code true} if the text cannot be searched; {@code false} otherwise.
+     */
+    public static boolean containsWildcards(String searchText) {
+        return searchText != null && (searchText.contains("%") || searchText.contains("_"));
+    }
+
+    private boolean parseType(String type) {
+        switch (type) {
+            case "inhouse", "in-house", "in" -> partType = PartType.IN_HOUSE;
+            case "outsourced", "out" -> partType = PartType.OUTSOURCED;
+            default -> {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean parseStockRange(String range) {
+        try {
+            int dash = range.indexOf('-');
+            if (dash < 0) {
+                minStock = maxStock = Integer.parseInt(range);
+            } else {
+                String low = range.substring(0, dash);
+                String high = range.substring(dash + 1);
+                if (low.isEmpty() && high.isEmpty()) {
+                    return false;
+                }
+                minStock = low.isEmpty() ? Integer.MIN_VALUE : Integer.parseInt(low);
+                maxStock = high.isEmpty() ? Integer.MAX_VALUE : Integer.parseInt(high);
+            }
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Retrieves the ID or name part of the search text, without the filter tokens.
+     *
+     * @return The ID or name searched for; empty if the search text only contained filters.
+     */
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * Retrieves the part type filter.
+     *
+     * @return The {@link PartType} searched for, or {@code null} if the search is not limited to one type.
+     */
+    public PartType getPartType() {
+        return partType;
+    }
+
+    /**
+     * Checks whether the search text was a single ID.
+     *
+     * @return {@code true} if the criteria match an ID; {@code false} otherwise.
+     */
+    public boolean isById() {
+        return id != null;
+    }
+
+    /**
+     * Builds the predicate matching parts against these criteria.
+     *
+     * @return A {@link Predicate} accepting the matching {@link Part} objects.
+     */
+    public Predicate<Part> partPredicate() {
+        return part -> (id == null || part.getId() == id)
+                && (nameContains == null || (part.getName() != null && part.getName().toLowerCase(Locale.ROOT).contains(nameContains)))
+                && (partType == null || PartType.of(part) == partType)
+                && part.getStock() >= minStock && part.getStock() <= maxStock;
+    }
+
+    /**
+     * Builds the predicate matching products against these criteria. A part type filter does not apply to products.
+     *
+     * @return A {@link Predicate} accepting the matching {@link Product} objects.
+     */
+    public Predicate<Product> productPredicate() {
+        return product -> (id == null || product.getId() == id)
+                && (nameContains == null || (product.getName() != null && product.getName().toLowerCase(Locale.ROOT).contains(nameContains)))
+                && product.getStock() >= minStock && product.getStock() <= maxStock;
+    }
+}
@@ -0,0 +1,21 @@
+package kleve.PartAndProductManager.DAO;
+
+/**
+ * The outcome of a stock adjustment or an assembly made through {@link StockDAO}.
+ *
+ * @author Jonathan Kleve
+ */
+public enum StockAdjustment {
+    /** The change was applied. */
+    APPLIED,
+    /** The change was rejected because it would take the stock below the item's minimum. */
+    BELOW_MIN,
+    /** The change was rejected because it would take the stock above the item's maximum. */
+    ABOVE_MAX,
+    /** The change was rejected because no item has the given ID. */
+    NOT_FOUND,
+    /** The assembly was rejected because the product uses no parts, so it would create stock out of nothing. */
+    NO_PARTS,
+    /** The change could not be made because of a database error. */
+    FAILED
+}
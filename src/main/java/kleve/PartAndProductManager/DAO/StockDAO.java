@@ -0,0 +1,386 @@
+package kleve.PartAndProductManager.DAO;
+
+import kleve.PartAndProductManager.datamodel.MovementReason;
+import kleve.PartAndProductManager.datamodel.Part;
+import kleve.PartAndProductManager.datamodel.Product;
+import kleve.PartAndProductManager.monitoring.DAOEvent;
+import kleve.PartAndProductManager.utilities.IntIntHashMap;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Changes the stock of parts and products by relative amounts, e.g., for goods received or consumed.
+ * <p>
+ * Unlike {@link PartDAO#updatePart(kleve.PartAndProductManager.datamodel.InHouse)} and
+ * {@link ProductDAO#updateProduct(Product)}, which write an absolute stock level read earlier, an adjustment is applied
+ * by the database as {@code stock = stock + delta} in a single statement, guarded so that the stock stays between
+ * the item's minimum and maximum. Concurrent adjustments of the same item, from this application or any other,
+ * therefore all count and never take the stock out of range. An adjustment increments the row version,
+ * so an edit screen opened before it cannot overwrite it.
+ * </p>
+ * <p>
+ * Every applied adjustment is recorded in the {@link StockLedger} with its reason, in the same transaction.
+ * {@link #assembleProduct(int, int)} moves stock from parts to a product the same way, for all of them at once.
+ * </p>
+ * <p>
+ * Each adjustment is a transaction on a connection of its own (see {@link JDBC#inTransaction}), so adjustments of
+ * different items run in parallel, as many at a time as there are transaction connections. Within the application,
+ * adjustments of the same item are serialized by a striped lock, taken before the transaction starts: they publish
+ * the stock they produced in order, and adjustments queued on a busy item wait for the lock instead of each holding
+ * a connection while waiting for the item's row lock in the database.
+ * </p>
+ *
+ * @author Jonathan Kleve
+ */
+public class StockDAO {
+
+    /**
+     * Applies a delta only if the resulting stock is within the row's minimum and maximum.
+     */
+    private static final String ADJUST_SQL = "UPDATE %s SET stock = stock + ?, version = version + 1, last_updated = ?, last_updated_by = ?"
+            + " WHERE id = ? AND stock + ? BETWEEN min AND max";
+
+    private static final String READ_STOCK_SQL = "SELECT stock, min, version FROM %s WHERE id = ?";
+
+    /**
+     * How often an assembly is tried again when the product's parts change between reading them and locking them.
+     */
+    private static final int MAX_ASSEMBLY_ATTEMPTS = 3;
+
+    /**
+     * Changes the stock of a part by a relative amount, recorded as an {@link MovementReason#ADJUSTMENT}.
+     *
+     * @param partId The ID of the part.
+     * @param delta The number of units to add (positive) or remove (negative).
+     * @return {@link StockAdjustment#APPLIED} if the stock was changed; otherwise why it was not.
+     */
+    public static StockAdjustment adjustPartStock(int partId, int delta) {
+        return adjust(StockItem.PART, partId, delta, MovementReason.ADJUSTMENT);
+    }
+
+    /**
+     * Changes the stock of a part by a relative amount.
+     *
+     * @param partId The ID of the part.
+     * @param delta The number of units to add (positive) or remove (negative).
+     * @param reason Why the stock changes, as recorded in the {@link StockLedger}.
+     * @return {@link StockAdjustment#APPLIED} if the stock was changed; otherwise why it was not.
+     */
+    public static StockAdjustment adjustPartStock(int partId, int delta, MovementReason reason) {
+        return adjust(StockItem.PART, partId, delta, reason);
+    }
+
+    /**
+     * Changes the stock of a product by a relative amount, recorded as an {@link MovementReason#ADJUSTMENT}.
+     *
+     * @param productId The ID of the product.
+     * @param delta The number of units to add (positive) or remove (negative).
+     * @return {@link StockAdjustment#APPLIED} if the stock was changed; otherwise why it was not.
+     */
+    public static StockAdjustment adjustProductStock(int productId, int delta) {
+        return adjust(StockItem.PRODUCT, productId, delta, MovementReason.ADJUSTMENT);
+    }
+
+    /**
+     * Changes the stock of a product by a relative amount.
+     *
+     * @param productId The ID of the product.
+     * @param delta The number of units to add (positive) or remove (negative).
+     * @param reason Why the stock changes, as recorded in the {@link StockLedger}.
+     * @return {@link StockAdjustment#APPLIED} if the stock was changed; otherwise why it was not.
+     */
+    public static StockAdjustment adjustProductStock(int productId, int delta, MovementReason reason) {
+        return adjust(StockItem.PRODUCT, productId, delta, reason);
+    }
+
+    /**
+     * Applies the guarded delta, then reads the row back: either to record the stock the adjustment produced
+     * in the ledger and the in-memory item, or to tell why the adjustment was rejected. The item's stripe is held
+     * until the in-memory item is updated.
+     */
+    private static StockAdjustment adjust(StockItem item, int id, int delta, MovementReason reason) {
+        ReentrantLock lock = item.locks.lockFor(id);
+        DAOEvent daoEvent = DAOEvent.start("adjustStock", item.entityType, 1);
+        Outcome outcome = null;
+        Timestamp now = JDBC.currentTimestamp();
+        lock.lock();
+        try {
+            outcome = JDBC.inTransaction(connection -> {
+                int rowCount;
+                try (PreparedStatement ps = connection.prepareStatement(String.format(ADJUST_SQL, item.table))) {
+                    ps.setInt(1, delta);
+                    ps.setTimestamp(2, now);
+                    ps.setInt(3, UserDAO.userId);
+                    ps.setInt(4, id);
+                    ps.setInt(5, delta);
+                    rowCount = ps.executeUpdate();
+                }
+                try (PreparedStatement ps = connection.prepareStatement(String.format(READ_STOCK_SQL, item.table))) {
+                    ps.setInt(1, id);
+                    try (ResultSet resultSet = ps.executeQuery()) {
+                        if (!resultSet.next()) {
+                            return new Outcome(StockAdjustment.NOT_FOUND, 0, 0);
+                        }
+                        int stock = resultSet.getInt(1);
+                        if (rowCount == 0) {
+                            return new Outcome(stock + delta < resultSet.getInt(2) ? StockAdjustment.BELOW_MIN : StockAdjustment.ABOVE_MAX, stock, 0);
+                        }
+                        StockLedger.appendMovement(connection, item, id, delta, stock, reason, now);
+                        return new Outcome(StockAdjustment.APPLIED, stock, resultSet.getInt(3));
+                    }
+                }
+            });
+            if (outcome.result() == StockAdjustment.APPLIED) {
+                stockChanged(item, id, outcome.stock(), outcome.version(), now);
+            }
+        } catch (SQLException e) {
+            System.err.println("Error adjusting the stock of " + item.entityType + " " + id + " by " + delta + ": " + e.getMessage());
+            e.printStackTrace();
+            return StockAdjustment.FAILED;
+        } finally {
+            lock.unlock();
+            daoEvent.end(outcome != null && outcome.result() == StockAdjustment.APPLIED ? 2 : 0);
+        }
+        StockLedger.snapshotIfDue();
+        return outcome.result();
+    }
+
+    /**
+     * Assembles units of a product from its parts in one transaction: the stock of every associated part is reduced
+     * by its quantity times the number of units and the product's stock is increased by the number of units.
+     * Either all of it is written or, if any part does not have enough stock above its minimum or the product would
+     * exceed its maximum, nothing. Every change is recorded in the {@link StockLedger} as an {@link MovementReason#ASSEMBLY}.
+     * <p>
+     * The product's row is locked first, so its associations cannot change during the assembly, then the part rows
+     * with a single locking read in ascending ID order. Assemblies running at the same time on several workstations
+     * therefore always lock shared parts in the same order and wait for each other instead of deadlocking.
+     * The parts are then written with one batch.
+     * </p>
+     * <p>
+     * Within the application, the assembly also holds the striped locks of the product and of its parts, like
+     * an adjustment of each of them would: the product's stripe first, then the parts' stripes in ascending
+     * stripe order, so assemblies and adjustments serialize per item without deadlocking each other.
+     * </p>
+     *
+     * @param productId The ID of the product.
+     * @param units The number of units to assemble.
+     * @return {@link StockAdjustment#APPLIED} if the units were assembled; {@link StockAdjustment#BELOW_MIN} if a part
+     * is short, {@link StockAdjustment#ABOVE_MAX} if the product has no room, {@link StockAdjustment#NO_PARTS} if it
+     * uses no parts, or why else nothing was changed.
+     * @throws IllegalArgumentException If {@code units} is not positive.
+     */
+    public static StockAdjustment assembleProduct(int productId, int units) {
+        if (units < 1) {
+            throw new IllegalArgumentException("Units to assemble must be positive: " + units);
+        }
+        DAOEvent daoEvent = DAOEvent.start("assembleProduct", "Product", 1);
+        Timestamp now = JDBC.currentTimestamp();
+        Assembly assembly = null;
+        ReentrantLock productLock = StockItem.PRODUCT.locks.lockFor(productId);
+        productLock.lock();
+        try {
+            int[] expectedPartIds = ProductDAO.readPartQuantities(productId).keys();
+            for (int attempt = 0; attempt < MAX_ASSEMBLY_ATTEMPTS; attempt++) {
+                int[] lockedPartIds = expectedPartIds;
+                ReentrantLock[] partLocks = StockItem.PART.locks.locksFor(lockedPartIds);
+                for (ReentrantLock partLock : partLocks) {
+                    partLock.lock();
+                }
+                try {
+                    assembly = JDBC.inTransaction(connection -> assemble(connection, productId, units, lockedPartIds, now));
+                    if (assembly.result() == StockAdjustment.APPLIED) {
+                        for (int i = 0; i < assembly.partIds().length; i++) {
+                            stockChanged(StockItem.PART, assembly.partIds()[i], assembly.partStocks()[i], assembly.partVersions()[i], now);
+                        }
+                        stockChanged(StockItem.PRODUCT, productId, assembly.productStock(), assembly.productVersion(), now);
+                    }
+                } finally {
+                    for (int i = partLocks.length - 1; i >= 0; i--) {
+                        partLocks[i].unlock();
+                    }
+                }
+                if (assembly.result() != null) {
+                    break;
+                }
+                expectedPartIds = assembly.partIds(); // The associations changed since they were read; lock the new ones
+            }
+        } catch (SQLException e) {
+            System.err.println("Error assembling " + units + " units of product " + productId + ": " + e.getMessage());
+            e.printStackTrace();
+            return StockAdjustment.FAILED;
+        } finally {
+            productLock.unlock();
+            daoEvent.end(assembly != null && assembly.result() == StockAdjustment.APPLIED ? assembly.partIds().length + 1 : 0);
+        }
+        if (assembly == null || assembly.result() == null) {
+            System.err.println("Product " + productId + " was not assembled: its parts kept changing.");
+            return StockAdjustment.FAILED;
+        }
+        StockLedger.snapshotIfDue();
+        return assembly.result();
+    }
+
+    /**
+     * The statements of {@link #assembleProduct(int, int)}, run in its transaction while the stripes of the
+     * product and of the given parts are held. If the product uses a part outside them, nothing is written and
+     * an assembly without a result is returned, holding the parts the product uses now.
+     */
+    private static Assembly assemble(Connection connection, int productId, int units, int[] lockedPartIds, Timestamp now) throws SQLException {
+        int productStock;
+        int productVersion;
+        try (PreparedStatement ps = connection.prepareStatement("SELECT stock, max, version FROM products WHERE id = ? FOR UPDATE")) {
+            ps.setInt(1, productId);
+            try (ResultSet resultSet = ps.executeQuery()) {
+                if (!resultSet.next()) {
+                    return Assembly.rejected(StockAdjustment.NOT_FOUND);
+                }
+                productStock = resultSet.getInt(1) + units;
+                if (productStock > resultSet.getInt(2)) {
+                    return Assembly.rejected(StockAdjustment.ABOVE_MAX);
+                }
+                productVersion = resultSet.getInt(3) + 1;
+            }
+        }
+
+        IntIntHashMap quantities = new IntIntHashMap();
+        try (PreparedStatement ps = connection.prepareStatement("SELECT part_id, quantity FROM product_parts WHERE product_id = ?")) {
+            ps.setInt(1, productId);
+            try (ResultSet resultSet = ps.executeQuery()) {
+                while (resultSet.next()) {
+                    quantities.put(resultSet.getInt(1), resultSet.getInt(2));
+                }
+            }
+        }
+
+        int[] partIds = quantities.keys();
+        Arrays.sort(partIds);
+        if (partIds.length == 0) {
+            System.out.println("Product " + productId + " was not assembled: it uses no parts.");
+            return Assembly.rejected(StockAdjustment.NO_PARTS);
+        }
+        IntIntHashMap locked = new IntIntHashMap();
+        for (int partId : lockedPartIds) {
+            locked.put(partId, 1);
+        }
+        for (int partId : partIds) {
+            if (!locked.containsKey(partId)) {
+                return new Assembly(null, partIds, new int[0], new int[0], 0, 0);
+            }
+        }
+        int[] partStocks = new int[partIds.length];
+        int[] partVersions = new int[partIds.length];
+        if (partIds.length > 0) {
+            String placeholders = String.join(", ", Collections.nCopies(partIds.length, "?"));
+            try (PreparedStatement ps = connection.prepareStatement(
+                    "SELECT id, stock, min, version FROM parts WHERE id IN (" + placeholders + ") ORDER BY id FOR UPDATE")) {
+                for (int i = 0; i < partIds.length; i++) {
+                    ps.setInt(i + 1, partIds[i]);
+                }
+                try (ResultSet resultSet = ps.executeQuery()) {
+                    int i = 0;
+                    while (resultSet.next()) {
+                        // Rows come in ID order; a part whose row is missing was deleted
+                        if (resultSet.getInt(1) != partIds[i]) {
+                            return Assembly.rejected(StockAdjustment.NOT_FOUND);
+                        }
+                        int stock = resultSet.getInt(2) - quantities.get(partIds[i]) * units;
+                        if (stock < resultSet.getInt(3)) {
+                            System.out.println("Product " + productId + " was not assembled: part " + partIds[i] + " has "
+                                    + resultSet.getInt(2) + " units, " + quantities.get(partIds[i]) * units + " are needed above its minimum of "
+                                    + resultSet.getInt(3) + ".");
+                            return Assembly.rejected(StockAdjustment.BELOW_MIN);
+                        }
+                        partStocks[i] = stock;
+                        partVersions[i] = resultSet.getInt(4) + 1;
+                        i++;
+                    }
+                    if (i < partIds.length) {
+                        return Assembly.rejected(StockAdjustment.NOT_FOUND);
+                    }
+                }
+            }
+
+            try (PreparedStatement ps = connection.prepareStatement("UPDATE parts SET stock = stock - ?, version = version + 1,"
+                    + " last_updated = ?, last_updated_by = ? WHERE id = ?")) {
+                for (int partId : partIds) {
+                    ps.setInt(1, quantities.get(partId) * units);
+                    ps.setTimestamp(2, now);
+                    ps.setInt(3, UserDAO.userId);
+                    ps.setInt(4, partId);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+        }
+
+        try (PreparedStatement ps = connection.prepareStatement("UPDATE products SET stock = stock + ?, version = version + 1,"
+                + " last_updated = ?, last_updated_by = ? WHERE id = ?")) {
+            ps.setInt(1, units);
+            ps.setTimestamp(2, now);
+            ps.setInt(3, UserDAO.userId);
+            ps.setInt(4, productId);
+            ps.executeUpdate();
+        }
+
+        try (PreparedStatement ps = StockLedger.prepareAppend(connection)) {
+            for (int i = 0; i < partIds.length; i++) {
+                StockLedger.addMovement(ps, StockItem.PART, partIds[i], -quantities.get(partIds[i]) * units, partStocks[i],
+                        MovementReason.ASSEMBLY, now);
+            }
+            StockLedger.addMovement(ps, StockItem.PRODUCT, productId, units, productStock, MovementReason.ASSEMBLY, now);
+            ps.executeBatch();
+        }
+        return new Assembly(StockAdjustment.APPLIED, partIds, partStocks, partVersions, productStock, productVersion);
+    }
+
+    /**
+     * Stores the adjusted stock in the canonical instance, if the item is in memory, and publishes the change.
+     * Like every change of a canonical instance, this runs on the JavaFX application thread (see {@link IdentityMap}),
+     * and is skipped if the instance already holds a newer version of the row.
+     */
+    static void stockChanged(StockItem item, int id, int stock, int version, Timestamp now) {
+        DataChangeBus.runOnFxThread(() -> {
+            if (item == StockItem.PART) {
+                Part part = IdentityMap.cachedPart(id);
+                if (part != null && part.getVersion() < version) {
+                    part.setStock(stock);
+                    part.setVersion(version);
+                    part.setLastUpdated(now.toLocalDateTime());
+                    DataChangeBus.publishPart(EntityChange.updated(id, part));
+                }
+            } else {
+                Product product = IdentityMap.cachedProduct(id);
+                if (product != null && product.getVersion() < version) {
+                    product.setStock(stock);
+                    product.setVersion(version);
+                    product.setLastUpdated(now.toLocalDateTime());
+                    DataChangeBus.publishProduct(EntityChange.updated(id, product));
+                }
+            }
+        });
+    }
+
+    /**
+     * What an adjustment did: its result and, if it was applied, the stock and version it left the row with.
+     */
+    private record Outcome(StockAdjustment result, int stock, int version) {
+    }
+
+    /**
+     * What an assembly did: its result and, if it was applied, the stock and version it left each part
+     * (in ascending ID order) and the product with. A {@code null} result means the product's parts changed
+     * before the transaction started; {@code partIds} then holds the parts it uses now.
+     */
+    private record Assembly(StockAdjustment result, int[] partIds, int[] partStocks, int[] partVersions, int productStock, int productVersion) {
+        private static Assembly rejected(StockAdjustment result) {
+            return new Assembly(result, new int[0], new int[0], new int[0], 0, 0);
+        }
+    }
+}
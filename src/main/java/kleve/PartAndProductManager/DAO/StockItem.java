@@ -0,0 +1,45 @@
+package kleve.PartAndProductManager.DAO;
+
+import kleve.PartAndProductManager.utilities.StripedLocks;
+
+/**
+ * The tables that hold stock, with the code their movements are recorded under in the stock ledger
+ * and the locks that serialize adjustments of the same item within the application.
+ *
+ * @author Jonathan Kleve
+ */
+enum StockItem {
+    PART("parts", "Part", 1),
+    PRODUCT("products", "Product", 2);
+
+    /**
+     * The number of lock stripes per table.
+     */
+    private static final int LOCK_STRIPES = 64;
+
+    final String table;
+    final String entityType;
+    final int code;
+    final StripedLocks locks = new StripedLocks(LOCK_STRIPES);
+
+    StockItem(String table, String entityType, int code) {
+        this.table = table;
+        this.entityType = entityType;
+        this.code = code;
+    }
+
+    /**
+     * Looks up the item type stored as the given code in the `item_type` column of the ledger tables.
+     *
+     * @param code The value of the `item_type` column.
+     * @return The matching {@link StockItem}, or {@code null} if the code is unknown.
+     */
+    static StockItem fromCode(int code) {
+        for (StockItem item : values()) {
+            if (item.code == code) {
+                return item;
+            }
+        }
+        return null;
+    }
+}
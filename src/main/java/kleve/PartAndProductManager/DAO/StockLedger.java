@@ -0,0 +1,312 @@
+package kleve.PartAndProductManager.DAO;
+
+import kleve.PartAndProductManager.datamodel.MovementReason;
+import kleve.PartAndProductManager.datamodel.StockMovement;
+import kleve.PartAndProductManager.monitoring.DAOEvent;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToIntFunction;
+
+/**
+ * The stock ledger: an append-only record of every change of the stock of a part or product, with its reason,
+ * user and time, kept in the `stock_movements` table.
+ * <p>
+ * The DAOs append a movement in the same transaction as every stock change they write: adjustments
+ * ({@link StockDAO}), edits that set a new stock level ({@link PartDAO#updatePart(kleve.PartAndProductManager.datamodel.InHouse)},
+ * {@link ProductDAO#updateProduct(kleve.PartAndProductManager.datamodel.Product)}) and the initial stock of new items.
+ * The `stock` column of parts and products keeps the current level the ledger adds up to, so normal reads use it
+ * and never read the ledger. Movements are only inserted, each at the end of the table, and the history of an item is read through
+ * its own index instead of the item rows that adjustments keep locking.
+ * </p>
+ * <p>
+ * Every {@link #SNAPSHOT_INTERVAL} movements, the stock each changed item had after its last movement is written
+ * to `stock_snapshots`. {@link #reconcile()} checks the stored stock of every item against its latest snapshot
+ * plus the movements after it, so the work of a replay stays bounded however long the ledger grows.
+ * </p>
+ *
+ * @author Jonathan Kleve
+ */
+public final class StockLedger {
+
+    /**
+     * The number of movements appended by this application between two snapshots.
+     */
+    public static final int SNAPSHOT_INTERVAL = 1_000;
+
+    private static final String APPEND_SQL = "INSERT INTO stock_movements (item_type, item_id, delta, stock_after, reason, user_id, moved_at)"
+            + " VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String HISTORY_SQL = "SELECT id, item_id, delta, stock_after, reason, user_id, moved_at FROM stock_movements"
+            + " WHERE item_type = ? AND item_id = ? ORDER BY id DESC LIMIT ?";
+
+    /**
+     * Snapshots every item with movements after the last snapshot run, at its last movement. Only the movements
+     * since then are read, through the primary key. A movement committed after a later one was snapshotted is
+     * not lost: {@link #reconcile()} replays each item from that item's own latest snapshot. When two workstations
+     * take the same snapshot at the same time, the rows the other one has already written are left as they are,
+     * since a snapshot of an item at a given movement is always the same.
+     */
+    private static final String SNAPSHOT_SQL = "INSERT INTO stock_snapshots (item_type, item_id, movement_id, stock, taken_at)"
+            + " SELECT m.item_type, m.item_id, m.id, m.stock_after, ? FROM stock_movements m"
+            + " JOIN (SELECT MAX(id) AS last_id FROM stock_movements WHERE id > ? GROUP BY item_type, item_id) latest ON m.id = latest.last_id"
+            + " ON DUPLICATE KEY UPDATE movement_id = movement_id";
+
+    /**
+     * Compares the stored stock of every item of a table with its latest snapshot plus the movements after it
+     * and returns the items where they differ. An item without a snapshot is replayed from its first movement.
+     */
+    private static final String RECONCILE_SQL = "SELECT id, stock, ledger_stock FROM ("
+            + " SELECT i.id, i.stock, COALESCE(s.stock, 0) + COALESCE((SELECT SUM(m.delta) FROM stock_movements m"
+            + " WHERE m.item_type = ? AND m.item_id = i.id AND m.id > COALESCE(s.movement_id, 0)), 0) AS ledger_stock"
+            + " FROM %s i LEFT JOIN stock_snapshots s ON s.item_type = ? AND s.item_id = i.id"
+            + " AND s.movement_id = (SELECT MAX(movement_id) FROM stock_snapshots WHERE item_type = ? AND item_id = i.id)"
+            + ") replayed WHERE stock <> ledger_stock ORDER BY id";
+
+    /**
+     * Movements appended since the last snapshot, counted when they are added to a statement; a rolled back
+     * movement only brings the next snapshot forward a little.
+     */
+    private static final AtomicInteger appendedSinceSnapshot = new AtomicInteger();
+
+    private StockLedger() {
+    }
+
+    /**
+     * Retrieves the latest stock movements of a part, newest first.
+     *
+     * @param partId The ID of the part.
+     * @param limit The largest number of movements to return.
+     * @return The movements; empty if the part has none or an error occurs.
+     */
+    public static List<StockMovement> getPartHistory(int partId, int limit) {
+        return getHistory(StockItem.PART, partId, limit);
+    }
+
+    /**
+     * Retrieves the latest stock movements of a product, newest first.
+     *
+     * @param productId The ID of the product.
+     * @param limit The largest number of movements to return.
+     * @return The movements; empty if the product has none or an error occurs.
+     */
+    public static List<StockMovement> getProductHistory(int productId, int limit) {
+        return getHistory(StockItem.PRODUCT, productId, limit);
+    }
+
+    private static List<StockMovement> getHistory(StockItem item, int id, int limit) {
+        List<StockMovement> movements = new ArrayList<>();
+        DAOEvent daoEvent = DAOEvent.start("getStockHistory", item.entityType, 1);
+        try (PreparedStatement statement = JDBC.connection.prepareStatement(HISTORY_SQL)) {
+            statement.setInt(1, item.code);
+            statement.setInt(2, id);
+            statement.setInt(3, limit);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    Timestamp movedAt = resultSet.getTimestamp("moved_at");
+                    movements.add(new StockMovement(resultSet.getLong("id"), item.entityType, resultSet.getInt("item_id"),
+                            resultSet.getInt("delta"), resultSet.getInt("stock_after"), MovementReason.valueOf(resultSet.getString("reason")),
+                            resultSet.getInt("user_id"), movedAt != null ? movedAt.toLocalDateTime() : null));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error retrieving the stock history of " + item.entityType + " " + id + ": " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            daoEvent.end(movements.size());
+        }
+        return movements;
+    }
+
+    /**
+     * Writes a snapshot of every item whose stock changed since the last snapshot. This happens on its own every
+     * {@link #SNAPSHOT_INTERVAL} movements; calling it directly, e.g., before a reconciliation, is also safe.
+     *
+     * @return The number of items snapshotted, or -1 if an error occurs.
+     */
+    public static int takeSnapshot() {
+        DAOEvent daoEvent = DAOEvent.start("takeStockSnapshot", "StockSnapshot", 0);
+        int rowCount = 0;
+        try {
+            rowCount = JDBC.inTransaction(connection -> {
+                long lastSnapshotted;
+                try (PreparedStatement ps = connection.prepareStatement("SELECT COALESCE(MAX(movement_id), 0) FROM stock_snapshots");
+                     ResultSet resultSet = ps.executeQuery()) {
+                    lastSnapshotted = resultSet.next() ? resultSet.getLong(1) : 0;
+                }
+                try (PreparedStatement ps = connection.prepareStatement(SNAPSHOT_SQL)) {
+                    ps.setTimestamp(1, JDBC.currentTimestamp());
+                    ps.setLong(2, lastSnapshotted);
+                    return ps.executeUpdate();
+                }
+            });
+            appendedSinceSnapshot.set(0);
+            return rowCount;
+        } catch (SQLException e) {
+            System.err.println("Error taking a stock snapshot: " + e.getMessage());
+            e.printStackTrace();
+            return -1;
+        } finally {
+            daoEvent.end(rowCount);
+        }
+    }
+
+    /**
+     * Replays the ledger of every part and product from its latest snapshot and compares the result with the
+     * stored stock. A difference means the stock was changed without going through the DAOs, e.g., by hand.
+     *
+     * @return One line per item whose stored stock differs from its ledger, e.g., "Part 12: stored 42, ledger 40";
+     * empty if every item matches. If an error occurs, the list holds the error.
+     */
+    public static List<String> reconcile() {
+        List<String> discrepancies = new ArrayList<>();
+        DAOEvent daoEvent = DAOEvent.start("reconcileStock", "StockMovement", 0);
+        try {
+            for (StockItem item : StockItem.values()) {
+                try (PreparedStatement ps = JDBC.connection.prepareStatement(String.format(RECONCILE_SQL, item.table))) {
+                    ps.setInt(1, item.code);
+                    ps.setInt(2, item.code);
+                    ps.setInt(3, item.code);
+                    try (ResultSet resultSet = ps.executeQuery()) {
+                        while (resultSet.next()) {
+                            discrepancies.add(item.entityType + " " + resultSet.getInt("id") + ": stored " + resultSet.getInt("stock")
+                                    + ", ledger " + resultSet.getInt("ledger_stock"));
+                        }
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error reconciling the stock ledger: " + e.getMessage());
+            e.printStackTrace();
+            discrepancies.add("Reconciliation failed: " + e.getMessage());
+        } finally {
+            daoEvent.end(discrepancies.size());
+        }
+        return discrepancies;
+    }
+
+    /**
+     * Prepares the statement movements are appended with; see {@link #addMovement}.
+     *
+     * @param connection The connection of the transaction that changes the stock.
+     * @return The insert statement, to be closed by the caller.
+     * @throws SQLException If the statement cannot be prepared.
+     */
+    static PreparedStatement prepareAppend(Connection connection) throws SQLException {
+        return connection.prepareStatement(APPEND_SQL);
+    }
+
+    /**
+     * Adds a movement to the batch of a statement from {@link #prepareAppend(Connection)}. The movement is recorded
+     * for the current {@link UserDAO#userId}.
+     *
+     * @param ps The append statement.
+     * @param item The table of the item.
+     * @param itemId The ID of the item.
+     * @param delta The change of the stock.
+     * @param stockAfter The stock after the change.
+     * @param reason Why the stock changed.
+     * @param now The time of the change.
+     * @throws SQLException If a parameter cannot be set.
+     */
+    static void addMovement(PreparedStatement ps, StockItem item, int itemId, int delta, int stockAfter, MovementReason reason,
+                            Timestamp now) throws SQLException {
+        ps.setInt(1, item.code);
+        ps.setInt(2, itemId);
+        ps.setInt(3, delta);
+        ps.setInt(4, stockAfter);
+        ps.setString(5, reason.name());
+        ps.setInt(6, UserDAO.userId);
+        ps.setTimestamp(7, now);
+        ps.addBatch();
+        appendedSinceSnapshot.incrementAndGet();
+    }
+
+    /**
+     * Appends a single movement. Must run in the transaction that changes the stock.
+     *
+     * @param connection The connection of the transaction.
+     * @param item The table of the item.
+     * @param itemId The ID of the item.
+     * @param delta The change of the stock.
+     * @param stockAfter The stock after the change.
+     * @param reason Why the stock changed.
+     * @param now The time of the change.
+     * @throws SQLException If the movement cannot be inserted.
+     */
+    static void appendMovement(Connection connection, StockItem item, int itemId, int delta, int stockAfter, MovementReason reason,
+                               Timestamp now) throws SQLException {
+        try (PreparedStatement ps = prepareAppend(connection)) {
+            addMovement(ps, item, itemId, delta, stockAfter, reason, now);
+            ps.executeBatch();
+        }
+    }
+
+    /**
+     * Appends the opening movement of every new item with a stock other than 0, as one batch.
+     * Must run in the transaction that inserts the items.
+     *
+     * @param connection The connection of the transaction.
+     * @param item The table of the items.
+     * @param ids The IDs of the items.
+     * @param newItems The items, in the same order.
+     * @param stock Reads an item's initial stock.
+     * @param now The time the items were created.
+     * @param <T> The type of the items.
+     * @throws SQLException If the movements cannot be inserted.
+     */
+    static <T> void appendOpenings(Connection connection, StockItem item, int[] ids, List<? extends T> newItems,
+                                   ToIntFunction<T> stock, Timestamp now) throws SQLException {
+        try (PreparedStatement ps = prepareAppend(connection)) {
+            boolean any = false;
+            for (int i = 0; i < ids.length; i++) {
+                int opening = stock.applyAsInt(newItems.get(i));
+                if (opening != 0) {
+                    addMovement(ps, item, ids[i], opening, opening, MovementReason.OPENING, now);
+                    any = true;
+                }
+            }
+            if (any) {
+                ps.executeBatch();
+            }
+        }
+    }
+
+    /**
+     * Reads the stock of an item and locks its row until the current transaction ends, provided the row still
+     * has the given version. Edits that overwrite the stock use it to record the change as a relative movement.
+     *
+     * @param connection The connection of the transaction.
+     * @param item The table of the item.
+     * @param id The ID of the item.
+     * @param version The version the item was loaded with.
+     * @return The stored stock, or {@code null} if the item was changed or deleted since it was loaded.
+     * @throws SQLException If the row cannot be read.
+     */
+    static Integer lockStock(Connection connection, StockItem item, int id, int version) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement("SELECT stock FROM " + item.table + " WHERE id = ? AND version = ? FOR UPDATE")) {
+            ps.setInt(1, id);
+            ps.setInt(2, version);
+            try (ResultSet resultSet = ps.executeQuery()) {
+                return resultSet.next() ? resultSet.getInt(1) : null;
+            }
+        }
+    }
+
+    /**
+     * Takes a snapshot if {@link #SNAPSHOT_INTERVAL} movements were appended since the last one. Called by the DAOs
+     * after the transaction that appended movements is committed.
+     */
+    static void snapshotIfDue() {
+        int appended = appendedSinceSnapshot.get();
+        if (appended >= SNAPSHOT_INTERVAL && !JDBC.isInTransaction() && appendedSinceSnapshot.compareAndSet(appended, 0)) {
+            takeSnapshot();
+        }
+    }
+}
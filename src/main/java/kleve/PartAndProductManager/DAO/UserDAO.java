@@ -1,6 +1,7 @@
 package kleve.PartAndProductManager.DAO;
 
 import javafx.scene.control.Alert;
+import kleve.PartAndProductManager.monitoring.DAOEvent;
 
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -40,18 +41,24 @@ public class UserDAO {
      * @return {@code true} if the login is successful (username and password match); {@code false} otherwise.
      */
     public static boolean loginUser(String username, String password, int langFlag) {
+        DAOEvent daoEvent = DAOEvent.start("loginUser", "User", 0);
+        int rowCount = 0;
         try (PreparedStatement ps = JDBC.connection.prepareStatement("SELECT password, user_id FROM users WHERE user_name = ?")) {
             ps.setString(1, username);
             try (ResultSet resultSet = ps.executeQuery()) {
                 if (resultSet.next()) {
+                    rowCount = 1;
                     String dbPassword = resultSet.getString("password");
                     if (password.equals(dbPassword)) {
                         userId = resultSet.getInt("user_id");
+                        daoEvent.end(rowCount);
                         return true;
                     }
                 }
             }
             // If we reach here, login failed (either no user found or password mismatch)
+            // The event is ended before the alert so the recorded time excludes the user reading it.
+            daoEvent.end(rowCount);
             Alert alert = new Alert(Alert.AlertType.WARNING);
             if (langFlag == 1) { // French
                 alert.setTitle("Connexion Invalide");
@@ -67,6 +74,7 @@ public class UserDAO {
         } catch (SQLException e) {
             System.err.println("Database error during login: " + e.getMessage());
             e.printStackTrace();
+            daoEvent.end(rowCount);
             return false;
         }
     }
@@ -5,6 +5,8 @@ import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
 import kleve.PartAndProductManager.DAO.JDBC;
+import kleve.PartAndProductManager.monitoring.PerformanceMonitor;
+import kleve.PartAndProductManager.utilities.SceneNavigator;
 
 import java.io.IOException;
 
@@ -14,26 +16,35 @@ import java.io.IOException;
  * @author Jonathan Kleve
  * */
 public class MainApplication extends Application {
-    /** This method calls the test data method and then opens the main menu when the application is launched.
+    /** This method shows the login view as soon as the application is launched and then starts preloading the other views.
+     * The database connection is opened in parallel by the {@link StartupPipeline}.
      * @param stage The method needs a stage to open a scene.
      * @throws IOException The method can throw this error as it can fail to locate or load resources when opening a new scene.
      * */
     @Override
     public void start(Stage stage) throws IOException {
+        long start = System.nanoTime();
         FXMLLoader fxmlLoader = new FXMLLoader(MainApplication.class.getResource("login-view.fxml"));
         Scene scene = new Scene(fxmlLoader.load());
         stage.setTitle("Login");
         stage.setScene(scene);
         stage.show();
+        StartupPipeline.logPhase("show login", System.nanoTime() - start);
+
+        // Parse the remaining views in the background while the user logs in
+        SceneNavigator.preloadViews();
     }
 
     /** The main method for the application.
-     * Opens the database connection, launches the JavaFX application, and closes the database connection upon exit.
+     * Starts the {@link StartupPipeline} (which opens the database connection in the background),
+     * launches the JavaFX application, and closes the database connection
+     * (and stops performance monitoring, if it was started) upon exit.
      * @param args Command-line arguments (not used in this application).
      * */
     public static void main(String[] args) {
-        JDBC.openConnection();
+        StartupPipeline.start();
         launch();
+        PerformanceMonitor.stop();
         JDBC.closeConnection();
     }
 }
\ No newline at end of file
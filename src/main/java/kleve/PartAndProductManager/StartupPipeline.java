@@ -0,0 +1,154 @@
+package kleve.PartAndProductManager;
+
+import kleve.PartAndProductManager.DAO.AssociationIndex;
+import kleve.PartAndProductManager.DAO.Catalog;
+import kleve.PartAndProductManager.DAO.JDBC;
+import kleve.PartAndProductManager.DAO.SchemaMigrator;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs application startup as a set of timed phases so the login view can be shown before the database is ready.
+ * <p>
+ * The database phases run one after another on a background thread, in parallel with JavaFX startup,
+ * the login view and the view preloading done by {@code SceneNavigator}:
+ * </p>
+ * <ol>
+ * <li>connect: open the JDBC connection.</li>
+ * <li>migrate: bring the schema up to date with {@link SchemaMigrator} and check its required indexes.
+ * If either fails, the connection is closed, so the application behaves as if the database could not be reached.</li>
+ * <li>warm: run a trivial query against each table so the driver, the server connection and
+ * the table metadata are ready before the first real query.</li>
+ * <li>prefetch: load the part and product catalog into {@link Catalog} and build the {@link AssociationIndex}
+ * while the user is typing credentials.</li>
+ * </ol>
+ * The duration of every phase, and the time since startup at which it finished, is logged to standard output.
+ *
+ * @author Jonathan Kleve
+ */
+public class StartupPipeline {
+
+    /**
+     * The time {@link #start()} was called, used as the origin for all phase timestamps.
+     */
+    private static long startupNanos;
+
+    /**
+     * Completes once the connection has been opened (successfully or not) and the schema migrated.
+     */
+    private static CompletableFuture<Void> connected;
+
+    /**
+     * Starts the database phases on a background thread and returns immediately.
+     */
+    public static synchronized void start() {
+        startupNanos = System.nanoTime();
+        ExecutorService databaseThread = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "startup-database");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // The schema must be current before the first query, so migrating is part of connecting
+        connected = CompletableFuture.runAsync(() -> {
+            runPhase("connect", JDBC::openConnection);
+            if (JDBC.connection != null) {
+                long migrateStart = System.nanoTime();
+                boolean migrated = SchemaMigrator.migrate();
+                logPhase("migrate", System.nanoTime() - migrateStart);
+                if (!migrated) {
+                    // Queries against a schema that is not current fail in ways the user cannot act on
+                    System.err.println("Startup: the schema is not current, closing the connection.");
+                    JDBC.closeConnection();
+                }
+            }
+        }, databaseThread);
+        connected
+                .thenRunAsync(() -> {
+                    if (JDBC.connection == null) {
+                        System.err.println("Startup: no database connection, skipping warm-up and prefetch.");
+                        return;
+                    }
+                    runPhase("warm", StartupPipeline::warmConnection);
+                    runPhase("prefetch", () -> {
+                        Catalog.prefetch();
+                        AssociationIndex.load();
+                    });
+                }, databaseThread)
+                .whenComplete((ignored, throwable) -> {
+                    if (throwable != null) {
+                        System.err.println("Startup: database phases failed: " + throwable);
+                    }
+                    databaseThread.shutdown();
+                });
+    }
+
+    /**
+     * Waits for the connection and migration phases to finish. Call this before the first query the user triggers (e.g., logging in).
+     * If the pipeline was never started, the connection is opened on the calling thread. If the last attempt left
+     * no connection, the next call starts a new one, so the user can try again without restarting the application.
+     *
+     * @return {@code true} if a database connection is available and its schema is current; {@code false} otherwise.
+     */
+    public static boolean awaitConnection() {
+        CompletableFuture<Void> pending;
+        synchronized (StartupPipeline.class) {
+            if (connected == null) {
+                start();
+            }
+            pending = connected;
+        }
+        pending.join();
+        if (JDBC.connection != null) {
+            return true;
+        }
+        synchronized (StartupPipeline.class) {
+            if (connected == pending) {
+                connected = null;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Logs that a phase that was not run by the pipeline itself (e.g., showing the login view) has finished.
+     *
+     * @param phase The name of the phase.
+     * @param durationNanos How long the phase took.
+     */
+    public static void logPhase(String phase, long durationNanos) {
+        System.out.println("Startup phase '" + phase + "' took " + durationNanos / 1_000_000 + " ms (finished "
+                + (System.nanoTime() - startupNanos) / 1_000_000 + " ms after startup).");
+    }
+
+    private static void runPhase(String phase, Runnable work) {
+        long start = System.nanoTime();
+        work.run();
+        logPhase(phase, System.nanoTime() - start);
+    }
+
+    /**
+     * Runs a trivial query against each table the application uses.
+     */
+    private static void warmConnection() {
+        String[] warmUpQueries = {
+                "SELECT 1",
+                "SELECT id FROM parts LIMIT 1",
+                "SELECT id FROM products LIMIT 1",
+                "SELECT product_id FROM product_parts LIMIT 1",
+                "SELECT user_id FROM users LIMIT 1"
+        };
+        for (String sql : warmUpQueries) {
+            try (PreparedStatement statement = JDBC.connection.prepareStatement(sql);
+                 ResultSet resultSet = statement.executeQuery()) {
+                resultSet.next();
+            } catch (SQLException e) {
+                System.err.println("Startup: warm-up query failed (" + sql + "): " + e.getMessage());
+            }
+        }
+    }
+}
@@ -1,7 +1,6 @@
 package kleve.PartAndProductManager.controllers;
 
 import javafx.application.Platform;
-import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.scene.control.*;
@@ -13,13 +12,21 @@ import java.util.Optional;
 import java.util.ResourceBundle;
 
 import javafx.fxml.Initializable;
+import kleve.PartAndProductManager.DAO.AssociationIndex;
+import kleve.PartAndProductManager.DAO.Catalog;
 import kleve.PartAndProductManager.DAO.PartDAO;
 import kleve.PartAndProductManager.DAO.ProductDAO;
+import kleve.PartAndProductManager.DAO.SearchCriteria;
 import kleve.PartAndProductManager.datamodel.Outsourced;
 import kleve.PartAndProductManager.datamodel.InHouse;
 import kleve.PartAndProductManager.datamodel.Part;
 import kleve.PartAndProductManager.datamodel.Product;
+import kleve.PartAndProductManager.monitoring.SearchEvent;
 import kleve.PartAndProductManager.utilities.AlertCreator;
+import kleve.PartAndProductManager.utilities.CatalogView;
+import kleve.PartAndProductManager.utilities.DebouncedSearch;
+import kleve.PartAndProductManager.utilities.LazyTableList;
+import kleve.PartAndProductManager.utilities.ResettableController;
 import kleve.PartAndProductManager.utilities.SceneNavigator;
 
 /**
@@ -31,7 +38,7 @@ import kleve.PartAndProductManager.utilities.SceneNavigator;
  *
  * @author Jonathan Kleve
  */
-public class MainController implements Initializable {
+public class MainController implements Initializable, ResettableController {
 
     /**
      * Button to navigate to the "Add Part" screen.
@@ -48,6 +55,26 @@ public class MainController implements Initializable {
      */
     public TextField partSearchField;
 
+    /**
+     * Shows the cached parts in the {@link #partTable}, filtered by the current search.
+     */
+    private CatalogView<Part> partView;
+
+    /**
+     * Shows the cached products in the {@link #productTable}, filtered by the current search.
+     */
+    private CatalogView<Product> productView;
+
+    /**
+     * Searches parts as the user types in the {@link #partSearchField}.
+     */
+    private DebouncedSearch<Part> partSearch;
+
+    /**
+     * Searches products as the user types in the {@link #productSearchField}.
+     */
+    private DebouncedSearch<Product> productSearch;
+
     /**
      * Button to navigate to the "Modify Part" screen for the selected part.
      */
@@ -175,8 +202,9 @@ public class MainController implements Initializable {
 
     /**
      * Handles product search functionality when the user presses Enter in the product search field.
-     * This method attempts to parse the search text as an integer to search by product ID.
-     * If parsing fails, it searches for products by name. The {@link #productTable} is then
+     * The search is answered from the cached {@link Catalog} when it is fresh and otherwise from the database
+     * through {@code ProductDAO.searchProducts(SearchCriteria, QueryHandle)}, so that
+     * both honour the same {@link SearchCriteria} filters. The {@link #productTable} is then
      * updated to display only the matching products. A warning alert is shown if no results are found
      * or if the search text contains invalid characters (`%` or `_`).
      * <p>
@@ -188,30 +216,29 @@ public class MainController implements Initializable {
      * @param actionEvent The event triggered by pressing Enter in the product search field.
      */
     public void onProductSearchText(ActionEvent actionEvent) {
-        ObservableList<Product> matchedProducts = FXCollections.observableArrayList();
+        productSearch.cancel(); // The explicit search below supersedes any search started while typing
+        SearchEvent searchEvent = new SearchEvent();
+        searchEvent.begin();
         String searchText = productSearchField.getText();
-        int searchId;
 
-        try {
-            searchId = Integer.parseInt(searchText);
-            Product p = ProductDAO.getProduct(searchId);
-            if (p == null) {
-                AlertCreator.showAlert(Alert.AlertType.WARNING, "No Results", "Warning", "No matching results found.");
-                return;
-            } else {
-                matchedProducts.add(p);
-            }
+        if (SearchCriteria.containsWildcards(searchText)) {
+            commitSearchEvent(searchEvent, "Product", searchText, false, 0);
+            AlertCreator.showAlert(Alert.AlertType.WARNING, "Invalid input", "Warning", "Search cannot contain % or _ characters.");
+            return;
+        }
 
-        } catch (NumberFormatException e) {
-            if (searchText.contains("%") || searchText.contains("_")) {
-                AlertCreator.showAlert(Alert.AlertType.WARNING, "Invalid input", "Warning", "Search cannot contain % or _ characters.");
-                return;
-            } else {
-                matchedProducts = ProductDAO.getProduct(searchText);
+        int localMatches = searchProductsLocally(searchText);
+        if (localMatches >= 0) {
+            commitSearchEvent(searchEvent, "Product", searchText, isNumeric(searchText), localMatches);
+            if (localMatches == 0) {
+                AlertCreator.showAlert(Alert.AlertType.WARNING, "No Results", "Warning", "No matching results found.");
             }
+            return;
         }
 
+        ObservableList<Product> matchedProducts = ProductDAO.searchProducts(SearchCriteria.parse(searchText), null);
         if (matchedProducts.isEmpty()) { // Fix for Runtime Error: Changed from == null to .isEmpty()
+            commitSearchEvent(searchEvent, "Product", searchText, isNumeric(searchText), 0);
             AlertCreator.showAlert(Alert.AlertType.WARNING, "No Results", "Warning", "No matching results found.");
             return;
         }
@@ -222,41 +249,43 @@ public class MainController implements Initializable {
         productNameCol.setCellValueFactory(new PropertyValueFactory<>("name"));
         productInvCol.setCellValueFactory(new PropertyValueFactory<>("stock"));
         productPriceCol.setCellValueFactory(new PropertyValueFactory<>("price"));
+        commitSearchEvent(searchEvent, "Product", searchText, isNumeric(searchText), matchedProducts.size());
     }
 
     /**
      * Handles part search functionality when the user presses Enter in the part search field.
-     * This method attempts to parse the search text as an integer to search by part ID.
-     * If parsing fails, it searches for parts by name. The {@link #partTable} is then
+     * The search is answered from the cached {@link Catalog} when it is fresh and otherwise from the database
+     * through {@code PartDAO.searchParts(SearchCriteria, QueryHandle)}, so that
+     * both honour the same {@link SearchCriteria} filters. The {@link #partTable} is then
      * updated to display only the matching parts. A warning alert is shown if no results are found
      * or if the search text contains invalid characters (`%` or `_`).
      *
      * @param actionEvent The event triggered by pressing Enter in the part search field.
      */
     public void onPartSearchText(ActionEvent actionEvent) {
-        ObservableList<Part> matchedParts = FXCollections.observableArrayList();
+        partSearch.cancel(); // The explicit search below supersedes any search started while typing
+        SearchEvent searchEvent = new SearchEvent();
+        searchEvent.begin();
         String searchText = partSearchField.getText();
-        int searchId;
 
-        try {
-            searchId = Integer.parseInt(searchText);
-            Part p = PartDAO.getPart(searchId);
-            if (p == null) {
+        if (SearchCriteria.containsWildcards(searchText)) {
+            commitSearchEvent(searchEvent, "Part", searchText, false, 0);
+            AlertCreator.showAlert(Alert.AlertType.WARNING, "Invalid input", "Warning", "Search cannot contain % or _ characters.");
+            return;
+        }
+
+        int localMatches = searchPartsLocally(searchText);
+        if (localMatches >= 0) {
+            commitSearchEvent(searchEvent, "Part", searchText, isNumeric(searchText), localMatches);
+            if (localMatches == 0) {
                 AlertCreator.showAlert(Alert.AlertType.WARNING, "No Results", "Warning", "No matching results found.");
-                return;
-            } else {
-                matchedParts.add(p);
-            }
-        } catch (NumberFormatException e) {
-            if (searchText.contains("%") || searchText.contains("_")) {
-                AlertCreator.showAlert(Alert.AlertType.WARNING, "Invalid input", "Warning", "Search cannot contain % or _ characters.");
-                return;
-            } else {
-                matchedParts = PartDAO.getPart(searchText);
             }
+            return;
         }
 
-        if (matchedParts.isEmpty()){
+        ObservableList<Part> matchedParts = PartDAO.searchParts(SearchCriteria.parse(searchText), null);
+        if (matchedParts.isEmpty()) {
+            commitSearchEvent(searchEvent, "Part", searchText, isNumeric(searchText), 0);
             AlertCreator.showAlert(Alert.AlertType.WARNING, "No Results", "Warning", "No matching results found.");
             return;
         }
@@ -267,6 +296,72 @@ public class MainController implements Initializable {
         partNameCol.setCellValueFactory(new PropertyValueFactory<>("name"));
         partInvCol.setCellValueFactory(new PropertyValueFactory<>("stock"));
         partPriceCol.setCellValueFactory(new PropertyValueFactory<>("price"));
+        commitSearchEvent(searchEvent, "Part", searchText, isNumeric(searchText), matchedParts.size());
+    }
+
+    /**
+     * Runs a part search in memory over the cached {@link Catalog} if the cache is fresh,
+     * filtering the {@link #partTable} instead of querying the database.
+     *
+     * @param searchText The search text (see {@link SearchCriteria} for the supported filters).
+     * @return The number of matching parts, or -1 if the cache is stale and the database must be searched.
+     */
+    private int searchPartsLocally(String searchText) {
+        if (!Catalog.arePartsFresh()) {
+            return -1;
+        }
+        return partView.show(SearchCriteria.parse(searchText).partPredicate());
+    }
+
+    /**
+     * Runs a product search in memory over the cached {@link Catalog} if the cache is fresh,
+     * filtering the {@link #productTable} instead of querying the database.
+     *
+     * @param searchText The search text (see {@link SearchCriteria} for the supported filters).
+     * @return The number of matching products, or -1 if the cache is stale and the database must be searched.
+     */
+    private int searchProductsLocally(String searchText) {
+        if (!Catalog.areProductsFresh()) {
+            return -1;
+        }
+        return productView.show(SearchCriteria.parse(searchText).productPredicate());
+    }
+
+    /**
+     * Ends a {@link SearchEvent} and commits it if Java Flight Recorder is recording it.
+     * The event is ended before any alert is shown so that the recorded duration
+     * covers only the search itself and not the time the user spends reading the alert.
+     *
+     * @param searchEvent The event started when the search began.
+     * @param target What was searched, "Part" or "Product".
+     * @param query The search text.
+     * @param byId Whether the search text was treated as an id.
+     * @param resultCount The number of matching results.
+     */
+    private static void commitSearchEvent(SearchEvent searchEvent, String target, String query, boolean byId, int resultCount) {
+        searchEvent.end();
+        if (searchEvent.shouldCommit()) {
+            searchEvent.target = target;
+            searchEvent.query = query;
+            searchEvent.byId = byId;
+            searchEvent.resultCount = resultCount;
+            searchEvent.commit();
+        }
+    }
+
+    /**
+     * Checks whether the search text is a number and is therefore treated as an id.
+     *
+     * @param searchText The search text.
+     * @return {@code true} if the text parses as an integer; {@code false} otherwise.
+     */
+    private static boolean isNumeric(String searchText) {
+        try {
+            Integer.parseInt(searchText);
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
     }
 
     /**
@@ -324,7 +419,7 @@ public class MainController implements Initializable {
     /**
      * Handles the action when the "Delete" button under the parts table is clicked.
      * This method first checks if a part is selected. If not, it shows a warning.
-     * If a part is selected, it then checks if the part is associated with any products.
+     * If a part is selected, it then checks in the database if the part is associated with any products.
      * If it is, a warning is shown, and deletion is prevented.
      * Otherwise, it prompts the user for confirmation. If confirmed, the part is deleted from the database.
      *
@@ -334,8 +429,10 @@ public class MainController implements Initializable {
         Part partToDelete = partTable.getSelectionModel().getSelectedItem();
         if (partToDelete == null) {
             AlertCreator.showAlert(Alert.AlertType.WARNING, "Invalid Selection", "Warning", "Please select a part to delete.");
-        } else if (!PartDAO.getPartProducts(partToDelete.getId()).isEmpty()) {
-            AlertCreator.showAlert(Alert.AlertType.WARNING, "Deletion Error", "Warning", "Part has associated products. Unable to delete.");
+        } else if (PartDAO.isPartInUse(partToDelete.getId())) { // Asks the database, which sees other workstations' associations
+            int productCount = PartDAO.countPartProducts(partToDelete.getId());
+            AlertCreator.showAlert(Alert.AlertType.WARNING, "Deletion Error", "Warning",
+                    "Part is used by " + productCount + (productCount == 1 ? " product" : " products") + ". Unable to delete.");
             return; // Exit method if part has associated products
         } else {
             // Confirmation alert for deletion
@@ -346,9 +443,13 @@ public class MainController implements Initializable {
             Optional<ButtonType> result = alert.showAndWait();
 
             if (result.isPresent() && result.get() == ButtonType.OK) {
-                PartDAO.deletePart(partToDelete.getId());
-                // Refresh the table after deletion if PartDAO doesn't automatically update ObservableList
-                partTable.setItems(PartDAO.getAllParts());
+                if (!PartDAO.deletePart(partToDelete.getId())) {
+                    AlertCreator.showAlert(Alert.AlertType.WARNING, "Deletion Error", "Warning",
+                            "Part could not be deleted. It may have been added to a product in the meantime.");
+                    return;
+                }
+                // The cached parts drop the deleted row in place; the table is only reloaded if it is not showing them
+                partView.refreshAfterWrite(SearchCriteria.parse(partSearchField.getText()).partPredicate());
             }
         }
     }
@@ -360,10 +461,8 @@ public class MainController implements Initializable {
      * If it does, a warning is shown, and deletion is prevented.
      * Otherwise, it prompts the user for confirmation. If confirmed, the product is deleted from the database.
      * <p>
-     * **RUNTIME ERROR FIX:** The original code checked `prodToDel.getAssociatedParts() != null`.
-     * Since `getAssociatedParts()` now correctly returns an empty, non-null `ObservableList`
-     * if there are no associated parts, the check was changed to `!prodToDel.getAssociatedParts().isEmpty()`
-     * to accurately determine if a product has associated parts.
+     * The check is answered by the {@link AssociationIndex} rather than the product's associated parts list,
+     * so it reflects the associations in the database even if the product in the table was loaded earlier.
      * </p>
      *
      * @param actionEvent The event triggered by clicking the "Delete Product" button.
@@ -373,7 +472,7 @@ public class MainController implements Initializable {
         if (prodToDel == null){
             AlertCreator.showAlert(Alert.AlertType.WARNING, "Invalid Selection", "Warning", "Please select a product to delete.");
             return;
-        } else if (!prodToDel.getAssociatedParts().isEmpty()) { // Fix for Runtime Error: Changed from != null to ! .isEmpty()
+        } else if (AssociationIndex.hasParts(prodToDel.getId())) { // Answered from the in-memory association index
             AlertCreator.showAlert(Alert.AlertType.WARNING, "Deletion Error", "Warning", "Product has associated parts. Unable to delete.");
             return; // Exit method if product has associated parts
         } else {
@@ -386,8 +485,8 @@ public class MainController implements Initializable {
 
             if (result.isPresent() && result.get() == ButtonType.OK) {
                 ProductDAO.deleteProduct(prodToDel.getId());
-                // Refresh the table after deletion if ProductDAO doesn't automatically update ObservableList
-                productTable.setItems(ProductDAO.getAllProducts());
+                // The cached products drop the deleted row in place; the table is only reloaded if it is not showing them
+                productView.refreshAfterWrite(SearchCriteria.parse(productSearchField.getText()).productPredicate());
             }
         }
     }
@@ -414,27 +513,56 @@ public class MainController implements Initializable {
     }
 
     /**
-     * Initializes the controller, populating the part and product table views
-     * with data when the main menu is first displayed. This method is automatically
-     * called by the JavaFX framework after the FXML file has been loaded.
+     * Initializes the controller, setting up the columns of the part and product table views.
+     * This method is automatically called by the JavaFX framework after the FXML file has been loaded,
+     * which happens only once because the view is cached; the tables are filled by {@link #resetView()}.
      *
      * @param url The location used to resolve relative paths for the root object, or {@code null} if the location is not known.
      * @param resourceBundle The resources used to localize the root object, or {@code null} if the root object was not localized.
      */
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
-        // Initialize the Part TableView
-        partTable.setItems(PartDAO.getAllParts());
+        // Initialize the Part TableView columns
         partIdCol.setCellValueFactory(new PropertyValueFactory<>("id"));
         partNameCol.setCellValueFactory(new PropertyValueFactory<>("name"));
         partInvCol.setCellValueFactory(new PropertyValueFactory<>("stock"));
         partPriceCol.setCellValueFactory(new PropertyValueFactory<>("price"));
 
-        // Initialize the Product TableView
-        productTable.setItems(ProductDAO.getAllProducts());
+        // Initialize the Product TableView columns
         productIdCol.setCellValueFactory(new PropertyValueFactory<>("id"));
         productNameCol.setCellValueFactory(new PropertyValueFactory<>("name"));
         productInvCol.setCellValueFactory(new PropertyValueFactory<>("stock"));
         productPriceCol.setCellValueFactory(new PropertyValueFactory<>("price"));
+
+        // Search as the user types; pressing Enter still runs the search immediately
+        // Searches filter the cached catalog in memory and only query the database when the cache is stale
+        partView = new CatalogView<>(partTable, Catalog::getParts, Catalog::arePartsPartial,
+                new LazyTableList<>(PartDAO::countParts, PartDAO::getPartsWindow));
+        productView = new CatalogView<>(productTable, Catalog::getProducts, Catalog::areProductsPartial,
+                new LazyTableList<>(ProductDAO::countProducts, ProductDAO::getProductsWindow));
+        partSearch = new DebouncedSearch<>(partSearchField, "Part", this::searchPartsLocally,
+                (text, handle) -> PartDAO.searchParts(SearchCriteria.parse(text), handle), partView::showAll, partTable::setItems);
+        productSearch = new DebouncedSearch<>(productSearchField, "Product", this::searchProductsLocally,
+                (text, handle) -> ProductDAO.searchProducts(SearchCriteria.parse(text), handle), productView::showAll, productTable::setItems);
+    }
+
+    /**
+     * Resets the main menu each time it is shown, populating the part and product table views
+     * from the {@link Catalog} (prefetched during startup for the first visit) and clearing the search fields. The selections handed to the modify screens
+     * ({@link #selectedProduct}, {@link #selectedInHouse} and {@link #selectedOutsourced}) are cleared
+     * because any modify screen that used them has been closed by the time the main menu is shown again.
+     */
+    @Override
+    public void resetView() {
+        selectedProduct = null;
+        selectedInHouse = null;
+        selectedOutsourced = null;
+        partSearchField.clear();
+        productSearchField.clear();
+        partSearch.cancel();
+        productSearch.cancel();
+
+        partView.showAll();
+        productView.showAll();
     }
 }
\ No newline at end of file
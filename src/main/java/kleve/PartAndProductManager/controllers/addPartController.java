@@ -8,6 +8,7 @@ import kleve.PartAndProductManager.datamodel.InHouse;
 import kleve.PartAndProductManager.datamodel.Outsourced;
 import kleve.PartAndProductManager.datamodel.Part;
 import kleve.PartAndProductManager.utilities.AlertCreator;
+import kleve.PartAndProductManager.utilities.ResettableController;
 import kleve.PartAndProductManager.utilities.SceneNavigator;
 
 import java.io.IOException;
@@ -21,7 +22,7 @@ import java.io.IOException;
  *
  * @author Jonathan Kleve
  */
-public class addPartController {
+public class addPartController implements ResettableController {
     /**
      * Text field for the part's minimum stock level.
      */
@@ -164,7 +165,10 @@ public class addPartController {
                 return;
             }
             InHouse newPart = new InHouse(0, name, price, inv, min, max, machineId); // ID 0 for new part to be auto-generated by DB
-            PartDAO.addPart(newPart);
+            if (PartDAO.addPart(newPart) == null) {
+                AlertCreator.showAlert(AlertType.ERROR, "DATABASE ERROR", "Error", "The part could not be saved. Please try again.");
+                return;
+            }
         } else { // Outsourced button is selected
             companyName = swapField.getText();
             if (companyName.isBlank()){
@@ -172,7 +176,10 @@ public class addPartController {
                 return;
             } else {
                 Outsourced newPart = new Outsourced(0, name, price, inv, min, max, companyName); // ID 0 for new part to be auto-generated by DB
-                PartDAO.addPart(newPart);
+                if (PartDAO.addPart(newPart) == null) {
+                    AlertCreator.showAlert(AlertType.ERROR, "DATABASE ERROR", "Error", "The part could not be saved. Please try again.");
+                    return;
+                }
             }
         }
 
@@ -192,4 +199,20 @@ public class addPartController {
         SceneNavigator.navigateToMainMenu(actionEvent);
     }
 
+    /**
+     * Clears the form each time the "Add Part" menu is shown, so that a part entered
+     * earlier does not reappear. In-House is selected as the default part type.
+     */
+    @Override
+    public void resetView() {
+        nameField.clear();
+        invField.clear();
+        priceField.clear();
+        maxField.clear();
+        minField.clear();
+        swapField.clear();
+        inHouseButton.setSelected(true);
+        swapLabel.setText("Machine ID");
+    }
+
 }
\ No newline at end of file
@@ -6,11 +6,17 @@ import javafx.event.ActionEvent;
 import javafx.fxml.Initializable;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
+import kleve.PartAndProductManager.DAO.Catalog;
 import kleve.PartAndProductManager.DAO.PartDAO;
 import kleve.PartAndProductManager.DAO.ProductDAO;
+import kleve.PartAndProductManager.DAO.SearchCriteria;
 import kleve.PartAndProductManager.datamodel.Part;
 import kleve.PartAndProductManager.datamodel.Product;
 import kleve.PartAndProductManager.utilities.AlertCreator;
+import kleve.PartAndProductManager.utilities.CatalogView;
+import kleve.PartAndProductManager.utilities.DebouncedSearch;
+import kleve.PartAndProductManager.utilities.LazyTableList;
+import kleve.PartAndProductManager.utilities.ResettableController;
 import kleve.PartAndProductManager.utilities.SceneNavigator;
 
 import java.io.IOException;
@@ -27,13 +33,23 @@ import java.util.ResourceBundle;
  *
  * @author Jonathan Kleve
  */
-public class addProductController implements Initializable {
+public class addProductController implements Initializable, ResettableController {
 
     /**
      * Text field for searching available parts to associate with the new product.
      */
     public TextField partSearchField;
 
+    /**
+     * Shows the cached parts in the {@link #partSearchTable}, filtered by the current search.
+     */
+    private CatalogView<Part> partView;
+
+    /**
+     * Searches parts as the user types in the {@link #partSearchField}.
+     */
+    private DebouncedSearch<Part> partSearch;
+
     /**
      * Text field for the name of the new product.
      */
@@ -186,7 +202,10 @@ public class addProductController implements Initializable {
 
         // Create and add the new product
         Product newProduct = new Product(aParts, 0, name, price, inv, min, max); // ID 0 for new product to be auto-generated by DB
-        ProductDAO.addProduct(newProduct);
+        if (ProductDAO.addProduct(newProduct) == null) {
+            AlertCreator.showAlert(Alert.AlertType.ERROR, "DATABASE ERROR", "Error", "The product could not be saved. Please try again.");
+            return;
+        }
 
         // Return user to main menu
         SceneNavigator.navigateToMainMenu(actionEvent);
@@ -264,32 +283,33 @@ public class addProductController implements Initializable {
 
     /**
      * Handles the action when the user presses Enter in the part search field.
-     * This method attempts to search for parts by ID (if the input is numeric)
-     * or by name (if the input is text). The {@link #partSearchTable} is then
+     * The search is answered from the cached {@link Catalog} when it is fresh and otherwise from the database
+     * through {@code PartDAO.searchParts(SearchCriteria, QueryHandle)}, so that both honour the same
+     * {@link SearchCriteria} filters. The {@link #partSearchTable} is then
      * updated to display the matching parts. A warning alert is shown if no
      * matching results are found or if invalid characters (`%` or `_`) are used in the search.
      *
      * @param actionEvent The event triggered by pressing Enter in the search field.
      */
     public void onPartSearchFieldText(ActionEvent actionEvent) {
-        ObservableList<Part> matchedParts = FXCollections.observableArrayList();
+        partSearch.cancel(); // The explicit search below supersedes any search started while typing
         String searchText = partSearchField.getText();
 
-        if(searchText.contains("%") || searchText.contains("_")) {
+        if (SearchCriteria.containsWildcards(searchText)) {
             AlertCreator.showAlert(Alert.AlertType.WARNING, "Invalid Input", "Warning", "Search cannot contain % or _ characters.");
             return;
         }
 
-        try {
-            int searchId = Integer.parseInt(searchText);
-            Part p = PartDAO.getPart(searchId);
-            if (p != null) {
-                matchedParts.add(p);
+        int localMatches = searchPartsLocally(searchText);
+        if (localMatches >= 0) {
+            if (localMatches == 0) {
+                AlertCreator.showAlert(Alert.AlertType.WARNING, "No Results", "Warning", "No matching results found.");
             }
-        } catch (NumberFormatException e) {
-            matchedParts = PartDAO.getPart(searchText); // Search by name
+            return;
         }
 
+        ObservableList<Part> matchedParts = PartDAO.searchParts(SearchCriteria.parse(searchText), null);
+
         if (matchedParts.isEmpty()){
             AlertCreator.showAlert(Alert.AlertType.WARNING, "No Results", "Warning", "No matching results found.");
         }
@@ -304,28 +324,65 @@ public class addProductController implements Initializable {
     }
 
     /**
-     * Initializes the controller, setting up the table views before the "Add Product" menu is displayed.
-     * This method is automatically called after the FXML file has been loaded.
-     * It populates the available parts search table with all existing parts and
-     * prepares the associated parts table for displaying selected parts.
+     * Runs a part search in memory over the cached {@link Catalog} if the cache is fresh,
+     * filtering the {@link #partSearchTable} instead of querying the database.
+     *
+     * @param searchText The search text (see {@link SearchCriteria} for the supported filters).
+     * @return The number of matching parts, or -1 if the cache is stale and the database must be searched.
+     */
+    private int searchPartsLocally(String searchText) {
+        if (!Catalog.arePartsFresh()) {
+            return -1;
+        }
+        return partView.show(SearchCriteria.parse(searchText).partPredicate());
+    }
+
+    /**
+     * Initializes the controller, setting up the table columns before the "Add Product" menu is first displayed.
+     * This method is automatically called after the FXML file has been loaded, which happens only once
+     * because the view is cached; the tables are filled by {@link #resetView()}.
      *
      * @param url The location used to resolve relative paths for the root object, or {@code null} if the location is not known.
      * @param resourceBundle The resources used to localize the root object, or {@code null} if the root object was not localized.
      */
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
-        // Initialize the part search table with all available parts
-        partSearchTable.setItems(PartDAO.getAllParts());
+        // Initialize the part search table columns
         partIdCol.setCellValueFactory(new PropertyValueFactory<>("id"));
         partNameCol.setCellValueFactory(new PropertyValueFactory<>("name"));
         partInvCol.setCellValueFactory(new PropertyValueFactory<>("stock"));
         partPriceCol.setCellValueFactory(new PropertyValueFactory<>("price"));
 
-        // Initialize the associated parts table
-        aPartTable.setItems(aParts); // `aParts` is already initialized as an empty ObservableList
+        // Initialize the associated parts table columns
         aPartIdCol.setCellValueFactory(new PropertyValueFactory<>("id"));
         aPartNameCol.setCellValueFactory(new PropertyValueFactory<>("name"));
         aPartInvCol.setCellValueFactory(new PropertyValueFactory<>("stock"));
         aPartPriceCol.setCellValueFactory(new PropertyValueFactory<>("price"));
+
+        // Search as the user types; pressing Enter still runs the search immediately
+        partView = new CatalogView<>(partSearchTable, Catalog::getParts, Catalog::arePartsPartial,
+                new LazyTableList<>(PartDAO::countParts, PartDAO::getPartsWindow));
+        partSearch = new DebouncedSearch<>(partSearchField, "Part", this::searchPartsLocally,
+                (text, handle) -> PartDAO.searchParts(SearchCriteria.parse(text), handle), partView::showAll, partSearchTable::setItems);
+    }
+
+    /**
+     * Resets the "Add Product" menu each time it is shown. The form and search field are cleared,
+     * the part search table is populated with all existing parts, and a new empty associated parts
+     * list is created (the previous list belongs to the product that was last saved).
+     */
+    @Override
+    public void resetView() {
+        nameField.clear();
+        invField.clear();
+        priceField.clear();
+        maxField.clear();
+        minField.clear();
+        partSearchField.clear();
+        partSearch.cancel();
+
+        partView.showAll();
+        aParts = FXCollections.observableArrayList();
+        aPartTable.setItems(aParts);
     }
 }
\ No newline at end of file
@@ -0,0 +1,204 @@
+package kleve.PartAndProductManager.controllers;
+
+import javafx.animation.Animation;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.collections.FXCollections;
+import javafx.event.ActionEvent;
+import javafx.fxml.Initializable;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import javafx.util.Duration;
+import kleve.PartAndProductManager.monitoring.OperationLatency;
+import kleve.PartAndProductManager.monitoring.PerformanceMonitor;
+import kleve.PartAndProductManager.monitoring.PerformanceSnapshot;
+import kleve.PartAndProductManager.utilities.ResettableController;
+import kleve.PartAndProductManager.utilities.SceneNavigator;
+
+import java.io.IOException;
+import java.net.URL;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ResourceBundle;
+
+/**
+ * Controller class for the live performance diagnostics view.
+ * This class starts the {@link PerformanceMonitor} (if it is not already running) and refreshes
+ * the view once a second with DAO latency percentiles, garbage collection pauses, heap use,
+ * database connection utilization and JavaFX application thread stalls.
+ *
+ * @author Jonathan Kleve
+ */
+public class diagnosticsController implements Initializable, ResettableController {
+
+    /**
+     * Label to display the date and time of the last refresh.
+     */
+    public Label dateTimeStampLabel;
+
+    /**
+     * Button to navigate back to the report menu. Monitoring keeps running in the background.
+     */
+    public Button backButton;
+
+    /**
+     * Button to stop monitoring and navigate back to the report menu.
+     */
+    public Button stopButton;
+
+    /**
+     * Label for the latency percentiles across all DAO operations.
+     */
+    public Label daoLatencyLabel;
+
+    /**
+     * Label for the garbage collection pauses within the monitoring window.
+     */
+    public Label gcPauseLabel;
+
+    /**
+     * Label for the heap use after the last garbage collection.
+     */
+    public Label heapLabel;
+
+    /**
+     * Label for the share of the monitoring window the database connection was busy.
+     */
+    public Label connectionLabel;
+
+    /**
+     * Label for the JavaFX application thread stalls within the monitoring window.
+     */
+    public Label fxStallLabel;
+
+    /**
+     * Label for the updates rejected because of concurrent edits within the monitoring window.
+     */
+    public Label updateConflictLabel;
+
+    /**
+     * Table view to display latency percentiles per DAO operation.
+     */
+    public TableView<OperationLatency> operationTableView;
+
+    /**
+     * Table column for the DAO operation name.
+     */
+    public TableColumn<OperationLatency, String> operationCol;
+
+    /**
+     * Table column for the number of calls.
+     */
+    public TableColumn<OperationLatency, Long> countCol;
+
+    /**
+     * Table column for the median latency.
+     */
+    public TableColumn<OperationLatency, String> p50Col;
+
+    /**
+     * Table column for the 95th percentile latency.
+     */
+    public TableColumn<OperationLatency, String> p95Col;
+
+    /**
+     * Table column for the 99th percentile latency.
+     */
+    public TableColumn<OperationLatency, String> p99Col;
+
+    /**
+     * Table column for the largest latency.
+     */
+    public TableColumn<OperationLatency, String> maxCol;
+
+    /**
+     * Refreshes the view once a second while it is displayed.
+     */
+    private Timeline refreshTimeline;
+
+    /**
+     * Handles the "Back" button click event.
+     * Stops refreshing the view and navigates back to the report menu; monitoring keeps running.
+     *
+     * @param actionEvent The {@link ActionEvent} triggered by the button click.
+     * @throws IOException If the FXML file for the reports menu cannot be loaded.
+     */
+    public void onBackButtonClick(ActionEvent actionEvent) throws IOException {
+        refreshTimeline.stop();
+        SceneNavigator.navigateToReportMenu(actionEvent);
+    }
+
+    /**
+     * Handles the "Stop Monitoring" button click event.
+     * Stops the {@link PerformanceMonitor} and navigates back to the report menu.
+     *
+     * @param actionEvent The {@link ActionEvent} triggered by the button click.
+     * @throws IOException If the FXML file for the reports menu cannot be loaded.
+     */
+    public void onStopButtonClick(ActionEvent actionEvent) throws IOException {
+        refreshTimeline.stop();
+        PerformanceMonitor.stop();
+        SceneNavigator.navigateToReportMenu(actionEvent);
+    }
+
+    /**
+     * Initializes the {@code diagnosticsController}.
+     * This method sets up the operation table and the refresh timeline; {@link #resetView()} starts them.
+     *
+     * @param url             The location used to resolve relative paths for the root object, or {@code null} if the location is not known.
+     * @param resourceBundle  The resources used to localize the root object, or {@code null} if the root object was not localized.
+     */
+    @Override
+    public void initialize(URL url, ResourceBundle resourceBundle) {
+        operationCol.setCellValueFactory(cellData -> new ReadOnlyObjectWrapper<>(cellData.getValue().getOperation()));
+        countCol.setCellValueFactory(cellData -> new ReadOnlyObjectWrapper<>(cellData.getValue().getCount()));
+        p50Col.setCellValueFactory(cellData -> new ReadOnlyObjectWrapper<>(formatMillis(cellData.getValue().getP50Millis())));
+        p95Col.setCellValueFactory(cellData -> new ReadOnlyObjectWrapper<>(formatMillis(cellData.getValue().getP95Millis())));
+        p99Col.setCellValueFactory(cellData -> new ReadOnlyObjectWrapper<>(formatMillis(cellData.getValue().getP99Millis())));
+        maxCol.setCellValueFactory(cellData -> new ReadOnlyObjectWrapper<>(formatMillis(cellData.getValue().getMaxMillis())));
+
+        refreshTimeline = new Timeline(new KeyFrame(Duration.seconds(1), event -> refresh()));
+        refreshTimeline.setCycleCount(Animation.INDEFINITE);
+    }
+
+    /**
+     * Starts monitoring if needed and resumes refreshing the view each time it is shown.
+     */
+    @Override
+    public void resetView() {
+        refresh();
+        refreshTimeline.play();
+    }
+
+    /**
+     * Updates every label and the operation table from a fresh {@link PerformanceSnapshot}.
+     */
+    private void refresh() {
+        PerformanceSnapshot snapshot = PerformanceMonitor.getInstance().snapshot();
+
+        OperationLatency all = snapshot.getAllOperations();
+        daoLatencyLabel.setText(formatMillis(all.getP50Millis()) + " / " + formatMillis(all.getP95Millis()) + " / "
+                + formatMillis(all.getP99Millis()) + " / " + formatMillis(all.getMaxMillis()) + " ms (" + all.getCount() + " calls)");
+        gcPauseLabel.setText(snapshot.getGcPauseCount() + " / " + formatMillis(snapshot.getGcPauseTotalMillis()) + " ms / "
+                + formatMillis(snapshot.getGcPauseMaxMillis()) + " ms in the last " + PerformanceMonitor.WINDOW.toSeconds() + " s");
+        heapLabel.setText(formatMegabytes(snapshot.getHeapUsedBytes()) + " / " + formatMegabytes(snapshot.getHeapCommittedBytes()));
+        connectionLabel.setText(String.format("%.1f%% of the last %d s", snapshot.getConnectionBusyPercent(), PerformanceMonitor.WINDOW.toSeconds()));
+        fxStallLabel.setText(snapshot.getFxStallCount() + " / " + formatMillis(snapshot.getFxStallMaxMillis()) + " ms");
+        updateConflictLabel.setText(snapshot.getUpdateConflictCount() + " in the last " + PerformanceMonitor.WINDOW.toSeconds() + " s");
+        operationTableView.setItems(FXCollections.observableArrayList(snapshot.getOperations()));
+
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+        dateTimeStampLabel.setText("Updated: " + LocalDateTime.now().format(formatter));
+    }
+
+    private static String formatMillis(double millis) {
+        return String.format("%.2f", millis);
+    }
+
+    private static String formatMegabytes(long bytes) {
+        return String.format("%.1f MB", bytes / (1024.0 * 1024.0));
+    }
+}
@@ -3,10 +3,13 @@ package kleve.PartAndProductManager.controllers;
 import javafx.event.ActionEvent;
 import javafx.fxml.Initializable;
 
+import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
 import javafx.scene.control.TextField;
 import kleve.PartAndProductManager.DAO.UserDAO;
+import kleve.PartAndProductManager.StartupPipeline;
+import kleve.PartAndProductManager.utilities.AlertCreator;
 import kleve.PartAndProductManager.utilities.SceneNavigator;
 
 import java.io.FileWriter;
@@ -87,6 +90,8 @@ public class loginController implements Initializable {
     /**
      * Handles the login button click event.
      * Validates the user credentials, logs the login activity, and navigates to the main menu.
+     * The database connection is opened in the background at startup, so this first waits for it;
+     * usually it is ready long before the user has finished typing.
      * Also checks for upcoming appointments within 15 minutes and displays an alert.
      * @param actionEvent The ActionEvent triggered by the button click.
      * @throws IOException If the main menu FXML file cannot be loaded or if there is an issue writing to the log file.
@@ -101,6 +106,11 @@ public class loginController implements Initializable {
 
         boolean success = false;
 
+        if (!StartupPipeline.awaitConnection()) {
+            AlertCreator.showAlert(Alert.AlertType.ERROR, "Database Error", "Error", "Unable to connect to the database. Please try again later.");
+            return;
+        }
+
         if (UserDAO.loginUser(testUser, testPass, langFlag)) {
             success = true;
             SceneNavigator.navigateToMainMenu(actionEvent);
@@ -1,18 +1,17 @@
 package kleve.PartAndProductManager.controllers;
 
 import javafx.event.ActionEvent;
-import javafx.fxml.Initializable;
 import javafx.scene.control.*;
+import kleve.PartAndProductManager.DAO.Catalog;
 import kleve.PartAndProductManager.DAO.PartDAO;
 import kleve.PartAndProductManager.datamodel.Outsourced;
 import kleve.PartAndProductManager.datamodel.InHouse;
 import kleve.PartAndProductManager.datamodel.Part;
 import kleve.PartAndProductManager.utilities.AlertCreator;
+import kleve.PartAndProductManager.utilities.ResettableController;
 import kleve.PartAndProductManager.utilities.SceneNavigator;
 
 import java.io.IOException;
-import java.net.URL;
-import java.util.ResourceBundle;
 
 /**
  * This class controls the "Modify Part" submenu, allowing users to edit the details
@@ -23,7 +22,7 @@ import java.util.ResourceBundle;
  *
  * @author Jonathan Kleve
  */
-public class modifyPartController implements Initializable {
+public class modifyPartController implements ResettableController {
 
     /**
      * Text field for displaying the part's ID. This field is typically non-editable.
@@ -100,12 +99,19 @@ public class modifyPartController implements Initializable {
     public Outsourced selectedOutsourced;
 
     /**
-     * The index of the selected part within the global list (e.g., in {@link PartDAO#getAllParts()}).
+     * The index of the selected part within the global list (e.g., in {@link Catalog#getParts()}),
+     * or -1 if the parts are not cached.
      * Note: This field's direct usage might be less critical when using database IDs for updates,
      * but could be relevant for in-memory list operations.
      */
     public int index;
 
+    /**
+     * The version of the selected part's row when the form was filled. The update is only saved if the row
+     * still has this version, i.e., nobody else has saved the part in the meantime.
+     */
+    public int loadedVersion;
+
     /**
      * Handles the action when the "In-House" radio button is clicked.
      * This method updates the {@link #swapLabel} text to "Machine ID" to reflect
@@ -141,6 +147,7 @@ public class modifyPartController implements Initializable {
      * </ul>
      * If all validations pass, it updates the {@link Part} object in the database
      * (either as {@link InHouse} or {@link Outsourced}) and navigates the user back to the main menu.
+     * If another user saved or deleted the part after the form was filled, the changes are not saved and the user is told so.
      *
      * @param actionEvent The event triggered by clicking the save button.
      * @throws IOException If the FXML file for the main view cannot be loaded.
@@ -154,6 +161,7 @@ public class modifyPartController implements Initializable {
         int machineId;
         String name;
         String companyName;
+        boolean saved;
 
         name = nameField.getText();
         if (name.isBlank()){
@@ -190,7 +198,8 @@ public class modifyPartController implements Initializable {
                 return;
             }
             InHouse newPart = new InHouse(id, name, price, inv, min, max, machineId);
-            PartDAO.updatePart(newPart);
+            newPart.setVersion(loadedVersion);
+            saved = PartDAO.updatePart(newPart);
         } else { // Outsourced button is selected
             companyName = swapField.getText();
             if (companyName.isBlank()){
@@ -198,9 +207,15 @@ public class modifyPartController implements Initializable {
                 return;
             } else {
                 Outsourced newPart = new Outsourced(id, name, price, inv, min, max, companyName);
-                PartDAO.updatePart(newPart);
+                newPart.setVersion(loadedVersion);
+                saved = PartDAO.updatePart(newPart);
             }
         }
+        if (!saved) {
+            AlertCreator.showAlert(Alert.AlertType.ERROR, "UPDATE CONFLICT", "Part not saved",
+                    "This part was changed or deleted by another user after you opened it, or it could not be saved. "
+                            + "Your changes were not saved; please open the part again to see its current details.");
+        }
 
         // Return user to main menu
         SceneNavigator.navigateToMainMenu(actionEvent);
@@ -218,19 +233,18 @@ public class modifyPartController implements Initializable {
     }
 
     /**
-     * Initializes the controller, populating the form fields with the details of the selected part.
-     * It determines whether the selected part is {@link InHouse} or {@link Outsourced}
+     * Resets the controller each time the "Modify Part" menu is shown, populating the form fields
+     * with the details of the selected part. It determines whether the selected part is {@link InHouse} or {@link Outsourced}
      * based on the `MainController.selectedInHouse` and `MainController.selectedOutsourced` values,
      * and sets the appropriate radio button and {@link #swapField} accordingly.
-     *
-     * @param url The location used to resolve relative paths for the root object, or {@code null} if the location is not known.
-     * @param resourceBundle The resources used to localize the root object, or {@code null} if the root object was not localized.
      */
     @Override
-    public void initialize(URL url, ResourceBundle resourceBundle) {
+    public void resetView() {
         if (MainController.selectedInHouse == null) {
             // Selected part is Outsourced
+            selectedInHouse = null;
             selectedOutsourced = MainController.selectedOutsourced;
+            loadedVersion = selectedOutsourced.getVersion();
             nameField.setText(selectedOutsourced.getName());
             idField.setText(String.valueOf(selectedOutsourced.getId()));
             invField.setText(String.valueOf(selectedOutsourced.getStock()));
@@ -241,11 +255,13 @@ public class modifyPartController implements Initializable {
             outsourcedButton.setSelected(true);
             // The following line might be problematic if getAllParts() is large or if objects are not strictly identical
             // (e.g., if re-fetched from DB). Consider finding by ID for robustness.
-            index = PartDAO.getAllParts().indexOf(selectedOutsourced);
+            index = Catalog.arePartsFresh() ? Catalog.getParts().indexOf(selectedOutsourced) : -1;
             swapLabel.setText("Company Name"); // Ensure label is set correctly on init
         } else {
             // Selected part is In-House
+            selectedOutsourced = null;
             selectedInHouse = MainController.selectedInHouse;
+            loadedVersion = selectedInHouse.getVersion();
             nameField.setText(selectedInHouse.getName());
             idField.setText(String.valueOf(selectedInHouse.getId()));
             invField.setText(String.valueOf(selectedInHouse.getStock()));
@@ -255,7 +271,7 @@ public class modifyPartController implements Initializable {
             swapField.setText(String.valueOf(selectedInHouse.getMachineId()));
             inHouseButton.setSelected(true);
             // Same note as above regarding index.
-            index = PartDAO.getAllParts().indexOf(selectedInHouse);
+            index = Catalog.arePartsFresh() ? Catalog.getParts().indexOf(selectedInHouse) : -1;
             swapLabel.setText("Machine ID"); // Ensure label is set correctly on init
         }
     }
@@ -6,11 +6,17 @@ import javafx.event.ActionEvent;
 import javafx.fxml.Initializable;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
+import kleve.PartAndProductManager.DAO.Catalog;
 import kleve.PartAndProductManager.DAO.PartDAO;
 import kleve.PartAndProductManager.DAO.ProductDAO;
+import kleve.PartAndProductManager.DAO.SearchCriteria;
 import kleve.PartAndProductManager.datamodel.Part;
 import kleve.PartAndProductManager.datamodel.Product;
 import kleve.PartAndProductManager.utilities.AlertCreator;
+import kleve.PartAndProductManager.utilities.CatalogView;
+import kleve.PartAndProductManager.utilities.DebouncedSearch;
+import kleve.PartAndProductManager.utilities.LazyTableList;
+import kleve.PartAndProductManager.utilities.ResettableController;
 import kleve.PartAndProductManager.utilities.SceneNavigator;
 
 import java.io.IOException;
@@ -27,7 +33,7 @@ import java.util.ResourceBundle;
  *
  * @author Jonathan Kleve
  */
-public class modifyProductController implements Initializable {
+public class modifyProductController implements Initializable, ResettableController {
 
     /**
      * Text field for displaying the product's ID.
@@ -39,6 +45,16 @@ public class modifyProductController implements Initializable {
      */
     public TextField partSearchField;
 
+    /**
+     * Shows the cached parts in the {@link #partSearchTable}, filtered by the current search.
+     */
+    private CatalogView<Part> partView;
+
+    /**
+     * Searches parts as the user types in the {@link #partSearchField}.
+     */
+    private DebouncedSearch<Part> partSearch;
+
     /**
      * Text field for the product's name.
      */
@@ -144,10 +160,17 @@ public class modifyProductController implements Initializable {
      */
     public Product selectedProduct;
 
+    /**
+     * The version of the selected product's row when the form was filled. The update is only saved if the row
+     * still has this version, i.e., nobody else has saved the product in the meantime.
+     */
+    public int loadedVersion;
+
     /**
      * Handles the action when the "Save" button is clicked.
      * This method validates the input fields for correct format and logical constraints (e.g., min &lt;= max, min &lt;= inv &lt;= max).
      * If all validations pass, it updates the {@link Product} object in the database and navigates the user back to the main menu.
+     * If another user saved or deleted the product after the form was filled, the changes are not saved and the user is told so.
      *
      * @param actionEvent The event triggered by clicking the save button.
      * @throws IOException If the FXML file for the main view cannot be loaded.
@@ -188,7 +211,12 @@ public class modifyProductController implements Initializable {
 
         // Update the product in the database
         Product newProduct = new Product(aParts, selectedProduct.getId(), name, price, inv, min, max);
-        ProductDAO.updateProduct(newProduct);
+        newProduct.setVersion(loadedVersion);
+        if (!ProductDAO.updateProduct(newProduct)) {
+            AlertCreator.showAlert(Alert.AlertType.ERROR, "UPDATE CONFLICT", "Product not saved",
+                    "This product was changed or deleted by another user after you opened it, or it could not be saved. "
+                            + "Your changes were not saved; please open the product again to see its current details.");
+        }
 
         // Return user to main screen
         SceneNavigator.navigateToMainMenu(actionEvent);
@@ -264,32 +292,33 @@ public class modifyProductController implements Initializable {
 
     /**
      * Handles the action when the user presses Enter in the part search field.
-     * This method attempts to search for parts by ID (if the input is numeric)
-     * or by name (if the input is text). The {@link #partSearchTable} is then
+     * The search is answered from the cached {@link Catalog} when it is fresh and otherwise from the database
+     * through {@code PartDAO.searchParts(SearchCriteria, QueryHandle)}, so that both honour the same
+     * {@link SearchCriteria} filters. The {@link #partSearchTable} is then
      * updated to display the matching parts. A warning alert is shown if no
      * matching results are found or if invalid characters are used in the search.
      *
      * @param actionEvent The event triggered by pressing Enter in the search field.
      */
     public void onPartSearchFieldText(ActionEvent actionEvent) {
-        ObservableList<Part> matchedParts = FXCollections.observableArrayList();
+        partSearch.cancel(); // The explicit search below supersedes any search started while typing
         String searchText = partSearchField.getText();
 
-        if (searchText.contains("%") || searchText.contains("_")) {
+        if (SearchCriteria.containsWildcards(searchText)) {
             AlertCreator.showAlert(Alert.AlertType.WARNING, "Invalid Input", "Warning", "Search cannot contain % or _ characters.");
             return;
         }
 
-        try {
-            int searchId = Integer.parseInt(searchText);
-            Part p = PartDAO.getPart(searchId);
-            if (p != null) {
-                matchedParts.add(p);
+        int localMatches = searchPartsLocally(searchText);
+        if (localMatches >= 0) {
+            if (localMatches == 0) {
+                AlertCreator.showAlert(Alert.AlertType.WARNING, "No Results", "Warning", "No matching results found.");
             }
-        } catch (NumberFormatException e) {
-            matchedParts = PartDAO.getPart(searchText); // Search by name
+            return;
         }
 
+        ObservableList<Part> matchedParts = PartDAO.searchParts(SearchCriteria.parse(searchText), null);
+
         if (matchedParts.isEmpty()) {
             AlertCreator.showAlert(Alert.AlertType.WARNING, "No Results", "Warning", "No matching results found.");
         }
@@ -304,9 +333,23 @@ public class modifyProductController implements Initializable {
     }
 
     /**
-     * Initializes the controller, populating the form fields with the selected product's data
-     * and setting up the table views for part searching and displaying associated parts.
-     * This method is called automatically after the FXML file has been loaded.
+     * Runs a part search in memory over the cached {@link Catalog} if the cache is fresh,
+     * filtering the {@link #partSearchTable} instead of querying the database.
+     *
+     * @param searchText The search text (see {@link SearchCriteria} for the supported filters).
+     * @return The number of matching parts, or -1 if the cache is stale and the database must be searched.
+     */
+    private int searchPartsLocally(String searchText) {
+        if (!Catalog.arePartsFresh()) {
+            return -1;
+        }
+        return partView.show(SearchCriteria.parse(searchText).partPredicate());
+    }
+
+    /**
+     * Initializes the controller, setting up the columns of the table views for part searching
+     * and displaying associated parts. This method is called automatically after the FXML file has been loaded,
+     * which happens only once because the view is cached; the form and tables are filled by {@link #resetView()}.
      *
      * @param url The location used to resolve relative paths for the root object, or {@code null} if the location is not known.
      * @param resourceBundle The resources used to localize the root object, or {@code null} if the root object was not localized.
@@ -321,15 +364,39 @@ public class modifyProductController implements Initializable {
      */
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
-        // Initialize the part search table with all available parts
-        partSearchTable.setItems(PartDAO.getAllParts());
+        // Initialize the part search table columns
         partIdCol.setCellValueFactory(new PropertyValueFactory<>("id"));
         partNameCol.setCellValueFactory(new PropertyValueFactory<>("name"));
         partInvCol.setCellValueFactory(new PropertyValueFactory<>("stock"));
         partPriceCol.setCellValueFactory(new PropertyValueFactory<>("price"));
 
+        // Initialize the associated parts table columns
+        aPartIdCol.setCellValueFactory(new PropertyValueFactory<>("id"));
+        aPartNameCol.setCellValueFactory(new PropertyValueFactory<>("name"));
+        aPartInvCol.setCellValueFactory(new PropertyValueFactory<>("stock"));
+        aPartPriceCol.setCellValueFactory(new PropertyValueFactory<>("price"));
+
+        // Search as the user types; pressing Enter still runs the search immediately
+        partView = new CatalogView<>(partSearchTable, Catalog::getParts, Catalog::arePartsPartial,
+                new LazyTableList<>(PartDAO::countParts, PartDAO::getPartsWindow));
+        partSearch = new DebouncedSearch<>(partSearchField, "Part", this::searchPartsLocally,
+                (text, handle) -> PartDAO.searchParts(SearchCriteria.parse(text), handle), partView::showAll, partSearchTable::setItems);
+    }
+
+    /**
+     * Resets the "Modify Product" menu each time it is shown, populating the form fields with the data
+     * of the product selected on the main menu ({@link MainController#selectedProduct}), the part search
+     * table with all available parts, and the associated parts table with the product's current parts.
+     */
+    @Override
+    public void resetView() {
+        partSearchField.clear();
+        partSearch.cancel();
+        partView.showAll();
+
         // Get the product selected from the main view
         selectedProduct = MainController.selectedProduct;
+        loadedVersion = selectedProduct.getVersion();
 
         // Populate the product details fields
         idField.setText(String.valueOf(selectedProduct.getId()));
@@ -343,9 +410,5 @@ public class modifyProductController implements Initializable {
         // Directly assign the ObservableList returned by getProductParts to aParts
         aParts = ProductDAO.getProductParts(selectedProduct.getId());
         aPartTable.setItems(aParts);
-        aPartIdCol.setCellValueFactory(new PropertyValueFactory<>("id"));
-        aPartNameCol.setCellValueFactory(new PropertyValueFactory<>("name"));
-        aPartInvCol.setCellValueFactory(new PropertyValueFactory<>("stock"));
-        aPartPriceCol.setCellValueFactory(new PropertyValueFactory<>("price"));
     }
 }
\ No newline at end of file
@@ -6,6 +6,8 @@ import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
 import kleve.PartAndProductManager.DAO.PartDAO;
 import kleve.PartAndProductManager.datamodel.Part;
+import kleve.PartAndProductManager.utilities.LazyTableList;
+import kleve.PartAndProductManager.utilities.ResettableController;
 import kleve.PartAndProductManager.utilities.SceneNavigator;
 
 import java.io.IOException;
@@ -20,7 +22,7 @@ import java.util.ResourceBundle;
  *
  * @author Jonathan Kleve
  */
-public class partReportController implements Initializable {
+public class partReportController implements Initializable, ResettableController {
 
     /**
      * Label to display the date and time when the report was generated.
@@ -52,6 +54,11 @@ public class partReportController implements Initializable {
      */
     public TableView<Part> partTableView;
 
+    /**
+     * The report rows, loaded from the database in windows as the table is scrolled.
+     */
+    private LazyTableList<Part> reportRows;
+
 
     /**
      * Handles the "Back" button click event.
@@ -66,16 +73,29 @@ public class partReportController implements Initializable {
 
     /**
      * Initializes the {@code partReportController}.
-     * This method is automatically called after the FXML file has been loaded.
-     * It sets the current date and time on the {@link #dateTimeStampLabel} and
-     * populates the {@link #partTableView} with all available parts,
-     * retrieved from the {@link PartDAO}.
+     * This method is automatically called after the FXML file has been loaded, which happens only once
+     * because the view is cached. It sets up the table columns; the data is loaded by {@link #resetView()}.
      *
      * @param url             The location used to resolve relative paths for the root object, or {@code null} if the location is not known.
      * @param resourceBundle  The resources used to localize the root object, or {@code null} if the root object was not localized.
      */
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
+        idCol.setCellValueFactory(new PropertyValueFactory<>("id"));
+        nameCol.setCellValueFactory(new PropertyValueFactory<>("name"));
+        stockCol.setCellValueFactory(new PropertyValueFactory<>("stock"));
+
+        reportRows = new LazyTableList<>(PartDAO::countParts, PartDAO::getPartsWindow);
+        reportRows.attach(partTableView);
+    }
+
+    /**
+     * Regenerates the report each time it is shown.
+     * It sets the current date and time on the {@link #dateTimeStampLabel} and
+     * populates the {@link #partTableView} with all available parts, counted now and loaded as they are scrolled into view.
+     */
+    @Override
+    public void resetView() {
         // Set the report generation date and time
         LocalDateTime now = LocalDateTime.now();
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
@@ -83,9 +103,6 @@ public class partReportController implements Initializable {
         dateTimeStampLabel.setText("Report Generated: " + formattedDateTime);
 
         // Populate the table view with part data
-        partTableView.setItems(PartDAO.getAllParts());
-        idCol.setCellValueFactory(new PropertyValueFactory<>("id"));
-        nameCol.setCellValueFactory(new PropertyValueFactory<>("name"));
-        stockCol.setCellValueFactory(new PropertyValueFactory<>("stock"));
+        reportRows.refresh();
     }
 }
\ No newline at end of file
@@ -9,6 +9,8 @@ import javafx.scene.control.TableView;
 import javafx.scene.control.cell.PropertyValueFactory;
 import kleve.PartAndProductManager.DAO.ProductDAO;
 import kleve.PartAndProductManager.datamodel.Product;
+import kleve.PartAndProductManager.utilities.LazyTableList;
+import kleve.PartAndProductManager.utilities.ResettableController;
 import kleve.PartAndProductManager.utilities.SceneNavigator;
 
 import java.io.IOException;
@@ -25,7 +27,7 @@ import java.util.ResourceBundle;
  *
  * @author Jonathan Kleve
  */
-public class productReportController implements Initializable {
+public class productReportController implements Initializable, ResettableController {
 
     /**
      * Label to display the date and time when the report was generated.
@@ -57,6 +59,11 @@ public class productReportController implements Initializable {
      */
     public TableView<Product> productTableView;
 
+    /**
+     * The report rows, loaded from the database in windows as the table is scrolled.
+     */
+    private LazyTableList<Product> reportRows;
+
 
     /**
      * Handles the "Back" button click event.
@@ -71,16 +78,29 @@ public class productReportController implements Initializable {
 
     /**
      * Initializes the {@code productReportController}.
-     * This method is automatically called after the FXML file has been loaded.
-     * It sets the current date and time on the {@link #dateTimeStampLabel} and
-     * populates the {@link #productTableView} with all available products,
-     * retrieved from the {@link ProductDAO}.
+     * This method is automatically called after the FXML file has been loaded, which happens only once
+     * because the view is cached. It sets up the table columns; the data is loaded by {@link #resetView()}.
      *
      * @param url             The location used to resolve relative paths for the root object, or {@code null} if the location is not known.
      * @param resourceBundle  The resources used to localize the root object, or {@code null} if the root object was not localized.
      */
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
+        idCol.setCellValueFactory(new PropertyValueFactory<>("id"));
+        nameCol.setCellValueFactory(new PropertyValueFactory<>("name"));
+        stockCol.setCellValueFactory(new PropertyValueFactory<>("stock"));
+
+        reportRows = new LazyTableList<>(ProductDAO::countProducts, ProductDAO::getProductsWindow);
+        reportRows.attach(productTableView);
+    }
+
+    /**
+     * Regenerates the report each time it is shown.
+     * It sets the current date and time on the {@link #dateTimeStampLabel} and
+     * populates the {@link #productTableView} with all available products, counted now and loaded as they are scrolled into view.
+     */
+    @Override
+    public void resetView() {
         // Set the report generation date and time
         LocalDateTime now = LocalDateTime.now();
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
@@ -88,9 +108,6 @@ public class productReportController implements Initializable {
         dateTimeStampLabel.setText("Report Generated: " + formattedDateTime);
 
         // Populate the table view with product data
-        productTableView.setItems(ProductDAO.getAllProducts());
-        idCol.setCellValueFactory(new PropertyValueFactory<>("id"));
-        nameCol.setCellValueFactory(new PropertyValueFactory<>("name"));
-        stockCol.setCellValueFactory(new PropertyValueFactory<>("stock"));
+        reportRows.refresh();
     }
 }
\ No newline at end of file
@@ -32,6 +32,11 @@ public class reportMenuController {
      */
     public Button goButton3;
 
+    /**
+     * Button to navigate to the live performance diagnostics view.
+     */
+    public Button goButton4;
+
     /**
      * Handles the exit button click event.
      * Navigates the user back to the main menu.
@@ -71,4 +76,14 @@ public class reportMenuController {
     public void onGoButton3Click(ActionEvent actionEvent) throws IOException {
         SceneNavigator.loadScene(actionEvent, "/kleve/PartAndProductManager/week-updated-report-view.fxml", "Week Updated Report");
     }
+
+    /**
+     * Handles the go button 4 click event.
+     * Navigates the user to the live performance diagnostics view.
+     * @param actionEvent The ActionEvent triggered by the button click.
+     * @throws IOException If the diagnostics FXML file cannot be loaded.
+     */
+    public void onGoButton4Click(ActionEvent actionEvent) throws IOException {
+        SceneNavigator.loadScene(actionEvent, "/kleve/PartAndProductManager/diagnostics-view.fxml", "Performance Diagnostics");
+    }
 }
\ No newline at end of file
@@ -11,6 +11,8 @@ import javafx.scene.control.TableView;
 import javafx.scene.control.cell.PropertyValueFactory;
 import kleve.PartAndProductManager.DAO.ReportDAO;
 import kleve.PartAndProductManager.datamodel.ReportItem;
+import kleve.PartAndProductManager.utilities.LazyTableList;
+import kleve.PartAndProductManager.utilities.ResettableController;
 import kleve.PartAndProductManager.utilities.SceneNavigator;
 
 import java.io.IOException;
@@ -25,7 +27,7 @@ import java.util.ResourceBundle;
  *
  * @author Jonathan Kleve
  */
-public class weekUpdatedReportController implements Initializable {
+public class weekUpdatedReportController implements Initializable, ResettableController {
 
     /**
      * Label to display the date and time when the report was generated.
@@ -67,6 +69,16 @@ public class weekUpdatedReportController implements Initializable {
      */
     public TableView<ReportItem> weekUpdatedTableView;
 
+    /**
+     * The earliest last-updated time included in the report, fixed when the report is generated.
+     */
+    private LocalDateTime since;
+
+    /**
+     * The report rows, loaded from the database in windows as the table is scrolled.
+     */
+    private LazyTableList<ReportItem> reportRows;
+
 
     /**
      * Handles the "Back" button click event.
@@ -81,16 +93,33 @@ public class weekUpdatedReportController implements Initializable {
 
     /**
      * Initializes the {@code weekUpdatedReportController}.
-     * This method is automatically called after the FXML file has been loaded.
-     * It sets the current date and time on the {@link #dateTimeStampLabel} and
-     * populates the {@link #weekUpdatedTableView} with items (parts and products)
-     * that have been updated within the past week, retrieved from the {@link ReportDAO}.
+     * This method is automatically called after the FXML file has been loaded, which happens only once
+     * because the view is cached. It sets up the table columns; the data is loaded by {@link #resetView()}.
      *
      * @param url             The location used to resolve relative paths for the root object, or {@code null} if the location is not known.
      * @param resourceBundle  The resources used to localize the root object, or {@code null} if the root object was not localized.
      */
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
+        typeCol.setCellValueFactory(new PropertyValueFactory<>("type"));
+        idCol.setCellValueFactory(new PropertyValueFactory<>("id"));
+        nameCol.setCellValueFactory(new PropertyValueFactory<>("name"));
+        stockCol.setCellValueFactory(new PropertyValueFactory<>("stock"));
+        lastUpdatedCol.setCellValueFactory(new PropertyValueFactory<>("lastUpdated"));
+
+        reportRows = new LazyTableList<>(() -> ReportDAO.countItemsUpdatedSince(since),
+                (offset, limit, sortProperty, ascending) -> ReportDAO.getItemsUpdatedSince(since, offset, limit, sortProperty, ascending));
+        reportRows.attach(weekUpdatedTableView);
+    }
+
+    /**
+     * Regenerates the report each time it is shown.
+     * It sets the current date and time on the {@link #dateTimeStampLabel} and
+     * populates the {@link #weekUpdatedTableView} with items (parts and products)
+     * that have been updated within the past week, retrieved from the {@link ReportDAO} as they are scrolled into view.
+     */
+    @Override
+    public void resetView() {
         // Set the report generation date and time
         LocalDateTime now = LocalDateTime.now();
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
@@ -98,11 +127,7 @@ public class weekUpdatedReportController implements Initializable {
         dateTimeStampLabel.setText("Report Generated: " + formattedDateTime);
 
         // Populate the table view with data
-        weekUpdatedTableView.setItems(ReportDAO.getItemsUpdatedLastWeek());
-        typeCol.setCellValueFactory(new PropertyValueFactory<>("type"));
-        idCol.setCellValueFactory(new PropertyValueFactory<>("id"));
-        nameCol.setCellValueFactory(new PropertyValueFactory<>("name"));
-        stockCol.setCellValueFactory(new PropertyValueFactory<>("stock"));
-        lastUpdatedCol.setCellValueFactory(new PropertyValueFactory<>("lastUpdated"));
+        since = ReportDAO.oneWeekAgo();
+        reportRows.refresh();
     }
 }
\ No newline at end of file
@@ -0,0 +1,39 @@
+package kleve.PartAndProductManager.datamodel;
+
+/**
+ * Why the stock of a part or product changed, as recorded with each {@link StockMovement}.
+ * The name of the reason is stored in the `reason` column of the stock_movements table.
+ *
+ * @author Jonathan Kleve
+ */
+public enum MovementReason {
+    /**
+     * The item was created with its initial stock.
+     */
+    OPENING,
+
+    /**
+     * Goods were received, e.g., a delivery from a supplier.
+     */
+    RECEIPT,
+
+    /**
+     * Goods were used up, sold or shipped.
+     */
+    CONSUMPTION,
+
+    /**
+     * Parts were used to assemble products, or products were assembled from parts.
+     */
+    ASSEMBLY,
+
+    /**
+     * The stock was changed by a relative amount without a more specific reason.
+     */
+    ADJUSTMENT,
+
+    /**
+     * The stock was overwritten with a new level, e.g., from a count or an edit of the item.
+     */
+    CORRECTION
+}
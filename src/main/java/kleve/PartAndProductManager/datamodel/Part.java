@@ -1,5 +1,6 @@
 package kleve.PartAndProductManager.datamodel;
 
+import java.time.LocalDateTime;
 import java.util.Objects;
 
 /**
@@ -17,6 +18,9 @@ public abstract class Part {
     private int stock;
     private int min;
     private int max;
+    private LocalDateTime createDate;
+    private LocalDateTime lastUpdated;
+    private int version;
 
     /**
      * Constructs a new Part object with the specified details.
@@ -145,6 +149,61 @@ public abstract class Part {
         this.max = max;
     }
 
+    /**
+     * Retrieves when the part was added to the database.
+     *
+     * @return The creation time, or {@code null} if the part has not been saved or was read without it.
+     */
+    public LocalDateTime getCreateDate() {
+        return createDate;
+    }
+
+    /**
+     * Sets when the part was added to the database.
+     *
+     * @param createDate The creation time.
+     */
+    public void setCreateDate(LocalDateTime createDate) {
+        this.createDate = createDate;
+    }
+
+    /**
+     * Retrieves when the part was last written to the database.
+     *
+     * @return The time of the last update, or {@code null} if the part has not been saved or was read without it.
+     */
+    public LocalDateTime getLastUpdated() {
+        return lastUpdated;
+    }
+
+    /**
+     * Sets when the part was last written to the database.
+     *
+     * @param lastUpdated The time of the last update.
+     */
+    public void setLastUpdated(LocalDateTime lastUpdated) {
+        this.lastUpdated = lastUpdated;
+    }
+
+    /**
+     * Retrieves the version of the part's row when it was loaded. Every update of the row increments it,
+     * and an update is only written if the row still has the version the part was loaded with.
+     *
+     * @return The row version.
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Sets the version of the part's row, e.g., to the version the part was loaded with before it was edited.
+     *
+     * @param version The row version.
+     */
+    public void setVersion(int version) {
+        this.version = version;
+    }
+
     /**
      * Compares this Part object with another object for equality.
      * Two Part objects are considered equal if they are the same instance
@@ -0,0 +1,64 @@
+package kleve.PartAndProductManager.datamodel;
+
+/**
+ * The kinds of {@link Part}, as stored in the `part_type` column of the parts table.
+ * The column is the discriminator that decides which subclass a row is read as.
+ *
+ * @author Jonathan Kleve
+ */
+public enum PartType {
+    /**
+     * A part made in house, an {@link InHouse}.
+     */
+    IN_HOUSE(1),
+
+    /**
+     * A part bought from another company, an {@link Outsourced}.
+     */
+    OUTSOURCED(2);
+
+    private final int code;
+
+    PartType(int code) {
+        this.code = code;
+    }
+
+    /**
+     * Retrieves the value stored in the `part_type` column for this type.
+     *
+     * @return The type code.
+     */
+    public int getCode() {
+        return code;
+    }
+
+    /**
+     * Looks up the type stored as the given code.
+     *
+     * @param code The value of the `part_type` column.
+     * @return The matching {@link PartType}, or {@code null} if the code is unknown.
+     */
+    public static PartType fromCode(int code) {
+        for (PartType type : values()) {
+            if (type.code == code) {
+                return type;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Determines the type of a part from its class.
+     *
+     * @param part The part.
+     * @return {@link #IN_HOUSE} for an {@link InHouse}, {@link #OUTSOURCED} for an {@link Outsourced}, otherwise {@code null}.
+     */
+    public static PartType of(Part part) {
+        if (part instanceof InHouse) {
+            return IN_HOUSE;
+        } else if (part instanceof Outsourced) {
+            return OUTSOURCED;
+        }
+        return null;
+    }
+}
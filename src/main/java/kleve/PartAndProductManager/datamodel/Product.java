@@ -3,20 +3,33 @@ package kleve.PartAndProductManager.datamodel;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
 /**
  * The `Product` class represents a product that the store sells.
- * Each product can have one or more {@link Part} objects associated with it.
+ * Each product can have one or more {@link Part} objects associated with it; a part the product uses several units of
+ * appears once per unit in {@link #getAssociatedParts()}, and {@link #getPartQuantities()} reports the units per part.
+ * The associated parts may be loaded lazily: a product created for a list screen carries a loader
+ * instead of its parts, and the parts are only loaded the first time {@link #getAssociatedParts()} is called.
  *
  * @author Jonathan Kleve
  */
 public class Product {
     private ObservableList<Part> associatedParts;
+    private Supplier<ObservableList<Part>> associatedPartsLoader;
     private int id;
     private String name;
     private double price;
     private int stock;
     private int min;
     private int max;
+    private LocalDateTime createDate;
+    private LocalDateTime lastUpdated;
+    private int version;
 
     /**
      * Constructs a new `Product` object with the specified attributes.
@@ -150,14 +163,75 @@ public class Product {
         this.name= name;
     }
 
+    /**
+     * Retrieves when the product was added to the database.
+     *
+     * @return The creation time, or {@code null} if the product has not been saved or was read without it.
+     */
+    public LocalDateTime getCreateDate() {
+        return createDate;
+    }
+
+    /**
+     * Sets when the product was added to the database.
+     *
+     * @param createDate The creation time.
+     */
+    public void setCreateDate(LocalDateTime createDate) {
+        this.createDate = createDate;
+    }
+
+    /**
+     * Retrieves when the product was last written to the database.
+     *
+     * @return The time of the last update, or {@code null} if the product has not been saved or was read without it.
+     */
+    public LocalDateTime getLastUpdated() {
+        return lastUpdated;
+    }
+
+    /**
+     * Sets when the product was last written to the database.
+     *
+     * @param lastUpdated The time of the last update.
+     */
+    public void setLastUpdated(LocalDateTime lastUpdated) {
+        this.lastUpdated = lastUpdated;
+    }
+
+    /**
+     * Retrieves the version of the product's row when it was loaded. Every update of the row increments it,
+     * and an update is only written if the row still has the version the product was loaded with.
+     *
+     * @return The row version.
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Sets the version of the product's row, e.g., to the version the product was loaded with before it was edited.
+     *
+     * @param version The row version.
+     */
+    public void setVersion(int version) {
+        this.version = version;
+    }
+
     /**
      * Retrieves the {@link ObservableList} of {@link Part} objects associated with this product.
+     * If the parts are loaded lazily and have not been loaded yet, they are loaded now.
      * If the list of associated parts is currently `null`, it initializes an empty `ObservableList`
      * before returning it.
      *
      * @return An {@link ObservableList} of {@link Part} objects associated with the product.
      */
     public ObservableList<Part> getAssociatedParts() {
+        if (associatedParts == null && associatedPartsLoader != null) {
+            Supplier<ObservableList<Part>> loader = associatedPartsLoader;
+            associatedPartsLoader = null;
+            associatedParts = loader.get();
+        }
         if (associatedParts == null) {
             associatedParts = FXCollections.observableArrayList();
         }
@@ -166,10 +240,62 @@ public class Product {
 
     /**
      * Sets the {@link ObservableList} of {@link Part} objects associated with this product.
+     * Any pending lazy load is discarded.
      *
      * @param associatedParts The new {@link ObservableList} of {@link Part} objects to associate with the product.
      */
     public void setAssociatedParts(ObservableList<Part> associatedParts) {
         this.associatedParts = associatedParts;
+        this.associatedPartsLoader = null;
+    }
+
+    /**
+     * Makes the associated parts load lazily: they are discarded now and loaded by the given loader
+     * the first time {@link #getAssociatedParts()} is called.
+     *
+     * @param loader Loads the associated parts of this product.
+     */
+    public void setAssociatedPartsLoader(Supplier<ObservableList<Part>> loader) {
+        this.associatedParts = null;
+        this.associatedPartsLoader = loader;
+    }
+
+    /**
+     * Checks whether the associated parts are in memory, i.e., {@link #getAssociatedParts()} will not query the database.
+     *
+     * @return {@code true} if the associated parts have been loaded or set; {@code false} if they are still pending.
+     */
+    public boolean areAssociatedPartsLoaded() {
+        return associatedPartsLoader == null;
+    }
+
+    /**
+     * Retrieves how many units of a part this product uses.
+     *
+     * @param partId The ID of the part.
+     * @return The quantity of the part; 0 if the product does not use it.
+     */
+    public int getPartQuantity(int partId) {
+        int quantity = 0;
+        for (Part part : getAssociatedParts()) {
+            if (part.getId() == partId) {
+                quantity++;
+            }
+        }
+        return quantity;
+    }
+
+    /**
+     * Retrieves the distinct parts this product uses with the number of units of each,
+     * in the order the parts first appear in the associated parts.
+     *
+     * @return An unmodifiable {@link Map} from part to quantity.
+     */
+    public Map<Part, Integer> getPartQuantities() {
+        Map<Part, Integer> quantities = new LinkedHashMap<>();
+        for (Part part : getAssociatedParts()) {
+            quantities.merge(part, 1, Integer::sum);
+        }
+        return Collections.unmodifiableMap(quantities);
     }
 }
\ No newline at end of file
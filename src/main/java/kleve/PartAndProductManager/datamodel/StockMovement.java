@@ -0,0 +1,116 @@
+package kleve.PartAndProductManager.datamodel;
+
+import java.time.LocalDateTime;
+
+/**
+ * Represents one entry of the stock ledger: a single change of the stock of a {@link Part} or a {@link Product}.
+ * Movements are never changed once recorded, so this class is immutable. Replaying the movements of an item
+ * in ID order reproduces its stock.
+ *
+ * @author Jonathan Kleve
+ */
+public class StockMovement {
+    private final long id;
+    private final String itemType; // "Part" or "Product"
+    private final int itemId;
+    private final int delta;
+    private final int stockAfter;
+    private final MovementReason reason;
+    private final int userId;
+    private final LocalDateTime movedAt;
+
+    /**
+     * Constructs a new `StockMovement` with the specified details.
+     *
+     * @param id The position of the movement in the ledger; later movements have higher IDs.
+     * @param itemType A string indicating the category of the item, "Part" or "Product".
+     * @param itemId The ID of the part or product.
+     * @param delta The number of units added (positive) or removed (negative).
+     * @param stockAfter The stock of the item after the movement.
+     * @param reason Why the stock changed.
+     * @param userId The ID of the user who made the change.
+     * @param movedAt The {@link LocalDateTime} when the change was made.
+     */
+    public StockMovement(long id, String itemType, int itemId, int delta, int stockAfter, MovementReason reason, int userId, LocalDateTime movedAt) {
+        this.id = id;
+        this.itemType = itemType;
+        this.itemId = itemId;
+        this.delta = delta;
+        this.stockAfter = stockAfter;
+        this.reason = reason;
+        this.userId = userId;
+        this.movedAt = movedAt;
+    }
+
+    /**
+     * Retrieves the position of the movement in the ledger.
+     *
+     * @return The ID of the movement.
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Retrieves the type of the item (e.g., "Part" or "Product").
+     *
+     * @return A string representing the type of the item.
+     */
+    public String getItemType() {
+        return itemType;
+    }
+
+    /**
+     * Retrieves the ID of the part or product whose stock changed.
+     *
+     * @return The ID of the item.
+     */
+    public int getItemId() {
+        return itemId;
+    }
+
+    /**
+     * Retrieves the change of the stock.
+     *
+     * @return The number of units added (positive) or removed (negative).
+     */
+    public int getDelta() {
+        return delta;
+    }
+
+    /**
+     * Retrieves the stock the item had after the movement.
+     *
+     * @return The stock after the movement.
+     */
+    public int getStockAfter() {
+        return stockAfter;
+    }
+
+    /**
+     * Retrieves why the stock changed.
+     *
+     * @return The {@link MovementReason} of the movement.
+     */
+    public MovementReason getReason() {
+        return reason;
+    }
+
+    /**
+     * Retrieves the user who made the change.
+     *
+     * @return The ID of the user.
+     */
+    public int getUserId() {
+        return userId;
+    }
+
+    /**
+     * Retrieves the timestamp indicating when the change was made.
+     *
+     * @return The {@link LocalDateTime} of the movement.
+     */
+    public LocalDateTime getMovedAt() {
+        return movedAt;
+    }
+}
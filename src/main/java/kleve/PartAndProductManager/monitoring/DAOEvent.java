@@ -0,0 +1,82 @@
+package kleve.PartAndProductManager.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder event emitted for every DAO operation.
+ * The event duration covers the whole DAO call, including any nested DAO calls it makes,
+ * so a recording shows both the outer operation and the round trips it caused.
+ * <p>
+ * Use {@link #start(String, String, int)} at the top of a DAO method and {@link #end(int)}
+ * when it finishes. When no recording has the event enabled both calls reduce to an
+ * {@link #isEnabled()} check, which the JIT folds away.
+ * </p>
+ *
+ * @author Jonathan Kleve
+ */
+@Name("kleve.PartAndProductManager.DAOOperation")
+@Label("DAO Operation")
+@Category({"Part and Product Manager", "Database"})
+@Description("A single PartDAO, ProductDAO, ReportDAO or UserDAO call.")
+@StackTrace(false)
+public class DAOEvent extends jdk.jfr.Event {
+
+    /**
+     * The DAO method that was called (e.g., "getPart").
+     */
+    @Label("Operation")
+    public String operation;
+
+    /**
+     * The entity type the operation works on (e.g., "Part", "Product", "ReportItem", "User").
+     */
+    @Label("Entity Type")
+    public String entityType;
+
+    /**
+     * The number of ids passed into the operation (0 for searches and full listings).
+     */
+    @Label("Id Count")
+    public int idCount;
+
+    /**
+     * The number of rows read or written by the operation.
+     */
+    @Label("Row Count")
+    public int rowCount;
+
+    /**
+     * Creates and begins a DAO event.
+     *
+     * @param operation The DAO method that is being called.
+     * @param entityType The entity type the operation works on.
+     * @param idCount The number of ids passed into the operation.
+     * @return The started event; pass the row count to {@link #end(int)} when the operation finishes.
+     */
+    public static DAOEvent start(String operation, String entityType, int idCount) {
+        DAOEvent event = new DAOEvent();
+        if (event.isEnabled()) {
+            event.operation = operation;
+            event.entityType = entityType;
+            event.idCount = idCount;
+            event.begin();
+        }
+        return event;
+    }
+
+    /**
+     * Ends and commits the event if a recording has it enabled.
+     *
+     * @param rowCount The number of rows read or written by the operation.
+     */
+    public void end(int rowCount) {
+        if (isEnabled()) {
+            this.rowCount = rowCount;
+            commit();
+        }
+    }
+}
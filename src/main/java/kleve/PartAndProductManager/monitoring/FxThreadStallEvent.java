@@ -0,0 +1,30 @@
+package kleve.PartAndProductManager.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Java Flight Recorder event emitted when the JavaFX application thread takes too long
+ * to run a heartbeat task posted by the {@link PerformanceMonitor}.
+ * A stall means the user interface was frozen for at least the recorded time.
+ *
+ * @author Jonathan Kleve
+ */
+@Name("kleve.PartAndProductManager.FxThreadStall")
+@Label("FX Thread Stall")
+@Category({"Part and Product Manager", "User Interface"})
+@Description("The JavaFX application thread did not respond to a heartbeat in time.")
+@StackTrace(false)
+public class FxThreadStallEvent extends jdk.jfr.Event {
+
+    /**
+     * How long the heartbeat waited before the JavaFX application thread ran it.
+     */
+    @Label("Stall Time")
+    @Timespan(Timespan.NANOSECONDS)
+    public long stallTime;
+}
@@ -0,0 +1,79 @@
+package kleve.PartAndProductManager.monitoring;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the most recent latency samples in a fixed-size ring buffer and computes percentiles over them.
+ * This class is not thread-safe; {@link PerformanceMonitor} guards it with its own lock.
+ *
+ * @author Jonathan Kleve
+ */
+public class LatencyHistogram {
+    private final long[] samples;
+    private int next;
+    private int size;
+    private long totalCount;
+    private long maxNanos;
+
+    /**
+     * Constructs a new histogram that keeps up to {@code capacity} of the most recent samples.
+     *
+     * @param capacity The number of samples to keep.
+     */
+    public LatencyHistogram(int capacity) {
+        this.samples = new long[capacity];
+    }
+
+    /**
+     * Records a latency sample, replacing the oldest sample once the buffer is full.
+     *
+     * @param nanos The latency in nanoseconds.
+     */
+    public void record(long nanos) {
+        samples[next] = nanos;
+        next = (next + 1) % samples.length;
+        if (size < samples.length) {
+            size++;
+        }
+        totalCount++;
+        maxNanos = Math.max(maxNanos, nanos);
+    }
+
+    /**
+     * Retrieves the number of samples recorded since the histogram was created.
+     *
+     * @return The total sample count.
+     */
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    /**
+     * Retrieves the largest sample recorded since the histogram was created.
+     *
+     * @return The maximum latency in nanoseconds.
+     */
+    public long getMaxNanos() {
+        return maxNanos;
+    }
+
+    /**
+     * Computes percentiles over the samples currently in the buffer.
+     *
+     * @param percentiles The percentiles to compute, each between 0 and 100.
+     * @return The latency in nanoseconds for each requested percentile, or zeros when there are no samples.
+     */
+    public long[] percentiles(double... percentiles) {
+        long[] result = new long[percentiles.length];
+        if (size == 0) {
+            return result;
+        }
+        long[] sorted = Arrays.copyOf(samples, size);
+        Arrays.sort(sorted);
+        for (int i = 0; i < percentiles.length; i++) {
+            int rank = (int) Math.ceil(percentiles[i] / 100.0 * size) - 1;
+            result[i] = sorted[Math.max(0, Math.min(size - 1, rank))];
+        }
+        return result;
+    }
+}
@@ -0,0 +1,65 @@
+package kleve.PartAndProductManager.monitoring;
+
+/**
+ * Latency summary for a single DAO operation, shown as one row of the diagnostics table.
+ * All times are in milliseconds.
+ *
+ * @author Jonathan Kleve
+ */
+public class OperationLatency {
+    private final String operation;
+    private final long count;
+    private final double p50Millis;
+    private final double p95Millis;
+    private final double p99Millis;
+    private final double maxMillis;
+
+    /**
+     * Constructs a new latency summary.
+     *
+     * @param operation The DAO operation name, qualified by entity type (e.g., "Part.getPart").
+     * @param count The number of calls recorded.
+     * @param p50Millis The median latency.
+     * @param p95Millis The 95th percentile latency.
+     * @param p99Millis The 99th percentile latency.
+     * @param maxMillis The largest latency recorded.
+     */
+    public OperationLatency(String operation, long count, double p50Millis, double p95Millis, double p99Millis, double maxMillis) {
+        this.operation = operation;
+        this.count = count;
+        this.p50Millis = p50Millis;
+        this.p95Millis = p95Millis;
+        this.p99Millis = p99Millis;
+        this.maxMillis = maxMillis;
+    }
+
+    /** @return The DAO operation name. */
+    public String getOperation() {
+        return operation;
+    }
+
+    /** @return The number of calls recorded. */
+    public long getCount() {
+        return count;
+    }
+
+    /** @return The median latency in milliseconds. */
+    public double getP50Millis() {
+        return p50Millis;
+    }
+
+    /** @return The 95th percentile latency in milliseconds. */
+    public double getP95Millis() {
+        return p95Millis;
+    }
+
+    /** @return The 99th percentile latency in milliseconds. */
+    public double getP99Millis() {
+        return p99Millis;
+    }
+
+    /** @return The largest latency in milliseconds. */
+    public double getMaxMillis() {
+        return maxMillis;
+    }
+}
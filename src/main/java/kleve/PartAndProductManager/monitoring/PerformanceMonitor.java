@@ -0,0 +1,282 @@
+package kleve.PartAndProductManager.monitoring;
+
+import javafx.application.Platform;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingStream;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Collects live performance statistics in-process from a Java Flight Recorder {@link RecordingStream}.
+ * The monitor consumes {@link DAOEvent}s for DAO latency percentiles and connection utilization,
+ * {@link UpdateConflictEvent}s for the rate of rejected concurrent edits, the JDK's garbage collection and heap summary events, and {@link FxThreadStallEvent}s produced
+ * by a heartbeat that it posts to the JavaFX application thread.
+ * <p>
+ * Most DAO calls share a single JDBC connection rather than a pool, so connection saturation
+ * is reported as the share of the monitoring window during which DAO calls were executing.
+ * </p>
+ * <p>
+ * The monitor is started the first time it is requested and keeps running until {@link #stop()} is called,
+ * so an operator can leave the diagnostics screen, reproduce a slow interaction and come back to the numbers.
+ * </p>
+ *
+ * @author Jonathan Kleve
+ */
+public class PerformanceMonitor {
+
+    /**
+     * How far back the windowed statistics (GC pauses, connection utilization, FX stalls, update conflicts) look.
+     */
+    public static final Duration WINDOW = Duration.ofSeconds(60);
+
+    /**
+     * The number of recent latency samples kept for each DAO operation.
+     */
+    private static final int LATENCY_SAMPLES = 1024;
+
+    /**
+     * How often the heartbeat is posted to the JavaFX application thread.
+     */
+    private static final long HEARTBEAT_MILLIS = 250;
+
+    /**
+     * How late a heartbeat may run before it is reported as a stall.
+     */
+    private static final long STALL_THRESHOLD_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    /**
+     * The running monitor, or {@code null} if monitoring is not active.
+     */
+    private static PerformanceMonitor instance;
+
+    private final RecordingStream recordingStream = new RecordingStream();
+    private final ScheduledExecutorService heartbeat = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "fx-heartbeat");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean heartbeatPending = new AtomicBoolean();
+
+    private final LatencyHistogram allLatencies = new LatencyHistogram(LATENCY_SAMPLES);
+    private final Map<String, LatencyHistogram> latencyByOperation = new TreeMap<>();
+    private final Deque<Sample> daoIntervals = new ArrayDeque<>();
+    private final Deque<Sample> gcPauses = new ArrayDeque<>();
+    private final Deque<Sample> fxStalls = new ArrayDeque<>();
+    private final Deque<Sample> updateConflicts = new ArrayDeque<>();
+    private long heapUsedBytes;
+    private long heapCommittedBytes;
+
+    /**
+     * Retrieves the running monitor, starting one if monitoring is not active.
+     *
+     * @return The running {@link PerformanceMonitor}.
+     */
+    public static synchronized PerformanceMonitor getInstance() {
+        if (instance == null) {
+            instance = new PerformanceMonitor();
+            instance.start();
+        }
+        return instance;
+    }
+
+    /**
+     * Checks whether monitoring is active.
+     *
+     * @return {@code true} if a monitor is running; {@code false} otherwise.
+     */
+    public static synchronized boolean isRunning() {
+        return instance != null;
+    }
+
+    /**
+     * Stops the running monitor, if any, and releases its recording.
+     */
+    public static synchronized void stop() {
+        if (instance != null) {
+            instance.heartbeat.shutdownNow();
+            instance.recordingStream.close();
+            instance = null;
+        }
+    }
+
+    /**
+     * Subscribes to the events the monitor needs and starts the recording stream and the heartbeat.
+     */
+    private void start() {
+        recordingStream.setMaxAge(WINDOW);
+        recordingStream.enable(DAOEvent.class);
+        recordingStream.enable(FxThreadStallEvent.class);
+        recordingStream.enable(UpdateConflictEvent.class);
+        recordingStream.enable("jdk.GarbageCollection");
+        recordingStream.enable("jdk.GCHeapSummary");
+
+        recordingStream.onEvent("kleve.PartAndProductManager.DAOOperation", this::onDaoEvent);
+        recordingStream.onEvent("kleve.PartAndProductManager.FxThreadStall", this::onFxStall);
+        recordingStream.onEvent("kleve.PartAndProductManager.UpdateConflict", this::onUpdateConflict);
+        recordingStream.onEvent("jdk.GarbageCollection", this::onGarbageCollection);
+        recordingStream.onEvent("jdk.GCHeapSummary", this::onHeapSummary);
+        recordingStream.startAsync();
+
+        heartbeat.scheduleAtFixedRate(this::postHeartbeat, HEARTBEAT_MILLIS, HEARTBEAT_MILLIS, TimeUnit.MILLISECONDS);
+        System.out.println("Performance monitoring started.");
+    }
+
+    /**
+     * Posts a task to the JavaFX application thread and emits a {@link FxThreadStallEvent}
+     * if the task runs later than the stall threshold. Only one heartbeat is outstanding at a time
+     * so a frozen application thread does not pile up heartbeats.
+     */
+    private void postHeartbeat() {
+        if (!heartbeatPending.compareAndSet(false, true)) {
+            return;
+        }
+        long posted = System.nanoTime();
+        Platform.runLater(() -> {
+            long lag = System.nanoTime() - posted;
+            heartbeatPending.set(false);
+            if (lag > STALL_THRESHOLD_NANOS) {
+                FxThreadStallEvent stallEvent = new FxThreadStallEvent();
+                stallEvent.stallTime = lag;
+                stallEvent.commit();
+            }
+        });
+    }
+
+    private synchronized void onDaoEvent(RecordedEvent event) {
+        long nanos = event.getDuration().toNanos();
+        String operation = event.getString("entityType") + "." + event.getString("operation");
+        allLatencies.record(nanos);
+        latencyByOperation.computeIfAbsent(operation, key -> new LatencyHistogram(LATENCY_SAMPLES)).record(nanos);
+        record(daoIntervals, new Sample(event.getStartTime(), event.getEndTime(), event.getDuration()));
+    }
+
+    private synchronized void onFxStall(RecordedEvent event) {
+        record(fxStalls, new Sample(event.getStartTime(), event.getEndTime(), event.getDuration("stallTime")));
+    }
+
+    private synchronized void onUpdateConflict(RecordedEvent event) {
+        record(updateConflicts, new Sample(event.getStartTime(), event.getEndTime(), Duration.ZERO));
+    }
+
+    private synchronized void onGarbageCollection(RecordedEvent event) {
+        record(gcPauses, new Sample(event.getStartTime(), event.getEndTime(), event.getDuration("sumOfPauses")));
+    }
+
+    private synchronized void onHeapSummary(RecordedEvent event) {
+        if ("After GC".equals(event.getString("when"))) {
+            heapUsedBytes = event.getLong("heapUsed");
+            heapCommittedBytes = event.getLong("heapSpace.committedSize");
+        }
+    }
+
+    /**
+     * Takes a point-in-time snapshot of the collected statistics and discards windowed samples that have aged out.
+     *
+     * @return A {@link PerformanceSnapshot} of the current statistics.
+     */
+    public synchronized PerformanceSnapshot snapshot() {
+        Instant now = Instant.now();
+        Instant windowStart = now.minus(WINDOW);
+        pruneBefore(daoIntervals, windowStart);
+        pruneBefore(gcPauses, windowStart);
+        pruneBefore(fxStalls, windowStart);
+        pruneBefore(updateConflicts, windowStart);
+
+        List<OperationLatency> operations = new ArrayList<>();
+        for (Map.Entry<String, LatencyHistogram> entry : latencyByOperation.entrySet()) {
+            operations.add(summarize(entry.getKey(), entry.getValue()));
+        }
+
+        long gcTotalNanos = 0;
+        long gcMaxNanos = 0;
+        for (Sample pause : gcPauses) {
+            gcTotalNanos += pause.value().toNanos();
+            gcMaxNanos = Math.max(gcMaxNanos, pause.value().toNanos());
+        }
+
+        long stallMaxNanos = 0;
+        for (Sample stall : fxStalls) {
+            stallMaxNanos = Math.max(stallMaxNanos, stall.value().toNanos());
+        }
+
+        return new PerformanceSnapshot(summarize("All operations", allLatencies), operations,
+                gcPauses.size(), toMillis(gcTotalNanos), toMillis(gcMaxNanos),
+                heapUsedBytes, heapCommittedBytes, connectionBusyPercent(windowStart, now),
+                fxStalls.size(), toMillis(stallMaxNanos), updateConflicts.size());
+    }
+
+    /**
+     * Computes the share of the window covered by DAO calls. Nested DAO calls (e.g., getAllParts calling getPart)
+     * overlap their caller, so the intervals are merged before their lengths are summed.
+     */
+    private double connectionBusyPercent(Instant windowStart, Instant now) {
+        List<Sample> intervals = new ArrayList<>(daoIntervals);
+        intervals.sort((a, b) -> a.start().compareTo(b.start()));
+        long busyNanos = 0;
+        Instant coveredUntil = windowStart;
+        for (Sample interval : intervals) {
+            Instant start = interval.start().isAfter(coveredUntil) ? interval.start() : coveredUntil;
+            Instant end = interval.end().isBefore(now) ? interval.end() : now;
+            if (end.isAfter(start)) {
+                busyNanos += Duration.between(start, end).toNanos();
+                coveredUntil = end;
+            }
+        }
+        return 100.0 * busyNanos / WINDOW.toNanos();
+    }
+
+    /**
+     * Adds a windowed sample and discards the samples that have aged out, so the windows stay bounded
+     * while the monitor runs without the diagnostics screen taking snapshots.
+     */
+    private static void record(Deque<Sample> samples, Sample sample) {
+        samples.addLast(sample);
+        pruneBefore(samples, Instant.now().minus(WINDOW));
+    }
+
+    /**
+     * Discards samples that ended before the window. Samples arrive roughly in order, so pruning stops at the first one still inside it.
+     */
+    private static void pruneBefore(Deque<Sample> samples, Instant windowStart) {
+        Iterator<Sample> iterator = samples.iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().end().isBefore(windowStart)) {
+                iterator.remove();
+            } else {
+                break;
+            }
+        }
+    }
+
+    private static OperationLatency summarize(String operation, LatencyHistogram histogram) {
+        long[] percentiles = histogram.percentiles(50, 95, 99);
+        return new OperationLatency(operation, histogram.getTotalCount(),
+                toMillis(percentiles[0]), toMillis(percentiles[1]), toMillis(percentiles[2]), toMillis(histogram.getMaxNanos()));
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    /**
+     * A timed sample taken from a recorded event.
+     *
+     * @param start When the event started.
+     * @param end When the event ended.
+     * @param value The measured duration (call latency, longest GC pause or stall time); zero for events that only count.
+     */
+    private record Sample(Instant start, Instant end, Duration value) {
+    }
+}
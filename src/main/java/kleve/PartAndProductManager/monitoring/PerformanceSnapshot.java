@@ -0,0 +1,110 @@
+package kleve.PartAndProductManager.monitoring;
+
+import java.util.List;
+
+/**
+ * An immutable point-in-time view of the statistics collected by {@link PerformanceMonitor}.
+ * Times are in milliseconds and sizes are in bytes.
+ *
+ * @author Jonathan Kleve
+ */
+public class PerformanceSnapshot {
+    private final OperationLatency allOperations;
+    private final List<OperationLatency> operations;
+    private final int gcPauseCount;
+    private final double gcPauseTotalMillis;
+    private final double gcPauseMaxMillis;
+    private final long heapUsedBytes;
+    private final long heapCommittedBytes;
+    private final double connectionBusyPercent;
+    private final int fxStallCount;
+    private final double fxStallMaxMillis;
+    private final int updateConflictCount;
+
+    /**
+     * Constructs a new snapshot.
+     *
+     * @param allOperations Latency summary across every DAO operation.
+     * @param operations Latency summaries per DAO operation.
+     * @param gcPauseCount The number of garbage collections within the monitoring window.
+     * @param gcPauseTotalMillis The total garbage collection pause time within the monitoring window.
+     * @param gcPauseMaxMillis The longest garbage collection pause within the monitoring window.
+     * @param heapUsedBytes The heap in use after the last garbage collection.
+     * @param heapCommittedBytes The heap committed after the last garbage collection.
+     * @param connectionBusyPercent The share of the monitoring window during which the database connection was executing DAO calls.
+     * @param fxStallCount The number of JavaFX application thread stalls within the monitoring window.
+     * @param fxStallMaxMillis The longest JavaFX application thread stall within the monitoring window.
+     * @param updateConflictCount The number of updates rejected because of concurrent edits within the monitoring window.
+     */
+    public PerformanceSnapshot(OperationLatency allOperations, List<OperationLatency> operations,
+                               int gcPauseCount, double gcPauseTotalMillis, double gcPauseMaxMillis,
+                               long heapUsedBytes, long heapCommittedBytes, double connectionBusyPercent,
+                               int fxStallCount, double fxStallMaxMillis, int updateConflictCount) {
+        this.allOperations = allOperations;
+        this.operations = List.copyOf(operations);
+        this.gcPauseCount = gcPauseCount;
+        this.gcPauseTotalMillis = gcPauseTotalMillis;
+        this.gcPauseMaxMillis = gcPauseMaxMillis;
+        this.heapUsedBytes = heapUsedBytes;
+        this.heapCommittedBytes = heapCommittedBytes;
+        this.connectionBusyPercent = connectionBusyPercent;
+        this.fxStallCount = fxStallCount;
+        this.fxStallMaxMillis = fxStallMaxMillis;
+        this.updateConflictCount = updateConflictCount;
+    }
+
+    /** @return Latency summary across every DAO operation. */
+    public OperationLatency getAllOperations() {
+        return allOperations;
+    }
+
+    /** @return Latency summaries per DAO operation, sorted by operation name. */
+    public List<OperationLatency> getOperations() {
+        return operations;
+    }
+
+    /** @return The number of garbage collections within the monitoring window. */
+    public int getGcPauseCount() {
+        return gcPauseCount;
+    }
+
+    /** @return The total garbage collection pause time within the monitoring window. */
+    public double getGcPauseTotalMillis() {
+        return gcPauseTotalMillis;
+    }
+
+    /** @return The longest garbage collection pause within the monitoring window. */
+    public double getGcPauseMaxMillis() {
+        return gcPauseMaxMillis;
+    }
+
+    /** @return The heap in use after the last garbage collection. */
+    public long getHeapUsedBytes() {
+        return heapUsedBytes;
+    }
+
+    /** @return The heap committed after the last garbage collection. */
+    public long getHeapCommittedBytes() {
+        return heapCommittedBytes;
+    }
+
+    /** @return The share of the monitoring window during which the database connection was busy. */
+    public double getConnectionBusyPercent() {
+        return connectionBusyPercent;
+    }
+
+    /** @return The number of JavaFX application thread stalls within the monitoring window. */
+    public int getFxStallCount() {
+        return fxStallCount;
+    }
+
+    /** @return The longest JavaFX application thread stall within the monitoring window. */
+    public double getFxStallMaxMillis() {
+        return fxStallMaxMillis;
+    }
+
+    /** @return The number of updates rejected because of concurrent edits within the monitoring window. */
+    public int getUpdateConflictCount() {
+        return updateConflictCount;
+    }
+}
@@ -0,0 +1,56 @@
+package kleve.PartAndProductManager.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Java Flight Recorder event emitted for every {@code SceneNavigator.loadScene} call.
+ * The load time covers FXML parsing and controller initialization for views that were not cached yet,
+ * and resetting the controller (which includes any DAO calls it makes) for cached views; the render time covers attaching the scene to the stage
+ * and showing it.
+ *
+ * @author Jonathan Kleve
+ */
+@Name("kleve.PartAndProductManager.SceneLoad")
+@Label("Scene Load")
+@Category({"Part and Product Manager", "User Interface"})
+@Description("Navigation to a new FXML view.")
+@StackTrace(false)
+public class SceneLoadEvent extends jdk.jfr.Event {
+
+    /**
+     * The path of the FXML file that was loaded.
+     */
+    @Label("FXML Path")
+    public String fxmlPath;
+
+    /**
+     * The title given to the stage.
+     */
+    @Label("Title")
+    public String title;
+
+    /**
+     * Whether the view was taken from the view cache instead of being parsed.
+     */
+    @Label("Cached")
+    public boolean cached;
+
+    /**
+     * Time spent loading the FXML or taking it from the cache, and initializing or resetting its controller.
+     */
+    @Label("Load Time")
+    @Timespan(Timespan.NANOSECONDS)
+    public long loadTime;
+
+    /**
+     * Time spent setting the scene on the stage and showing it.
+     */
+    @Label("Render Time")
+    @Timespan(Timespan.NANOSECONDS)
+    public long renderTime;
+}
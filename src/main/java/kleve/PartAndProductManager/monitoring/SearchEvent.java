@@ -0,0 +1,45 @@
+package kleve.PartAndProductManager.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder event emitted for every part or product search, whether run on Enter or while typing.
+ * The event duration covers the whole search, from reading the search text to updating the table.
+ *
+ * @author Jonathan Kleve
+ */
+@Name("kleve.PartAndProductManager.Search")
+@Label("Search")
+@Category({"Part and Product Manager", "User Interface"})
+@Description("A part or product search, run on Enter or while typing.")
+@StackTrace(false)
+public class SearchEvent extends jdk.jfr.Event {
+
+    /**
+     * What was searched, "Part" or "Product".
+     */
+    @Label("Target")
+    public String target;
+
+    /**
+     * The text the user searched for.
+     */
+    @Label("Query")
+    public String query;
+
+    /**
+     * Whether the search text was treated as an id rather than a name.
+     */
+    @Label("By Id")
+    public boolean byId;
+
+    /**
+     * The number of matching results.
+     */
+    @Label("Result Count")
+    public int resultCount;
+}
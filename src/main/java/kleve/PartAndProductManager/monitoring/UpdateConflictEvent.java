@@ -0,0 +1,65 @@
+package kleve.PartAndProductManager.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder event emitted when an update of a part or product is rejected because the row
+ * was changed by someone else after the entity was loaded (an optimistic concurrency conflict).
+ * A high rate means users keep editing the same items at the same time.
+ *
+ * @author Jonathan Kleve
+ */
+@Name("kleve.PartAndProductManager.UpdateConflict")
+@Label("Update Conflict")
+@Category({"Part and Product Manager", "Database"})
+@Description("An update was rejected because the row's version no longer matched the version it was loaded with.")
+@StackTrace(false)
+public class UpdateConflictEvent extends jdk.jfr.Event {
+
+    /**
+     * The entity type of the row (e.g., "Part" or "Product").
+     */
+    @Label("Entity Type")
+    public String entityType;
+
+    /**
+     * The ID of the row.
+     */
+    @Label("Entity Id")
+    public int entityId;
+
+    /**
+     * The version the entity was loaded with.
+     */
+    @Label("Expected Version")
+    public int expectedVersion;
+
+    /**
+     * The version the row has now.
+     */
+    @Label("Current Version")
+    public int currentVersion;
+
+    /**
+     * Emits an event for a rejected update if a recording has it enabled.
+     *
+     * @param entityType The entity type of the row.
+     * @param entityId The ID of the row.
+     * @param expectedVersion The version the entity was loaded with.
+     * @param currentVersion The version the row has now.
+     */
+    public static void emit(String entityType, int entityId, int expectedVersion, int currentVersion) {
+        UpdateConflictEvent event = new UpdateConflictEvent();
+        if (event.isEnabled()) {
+            event.entityType = entityType;
+            event.entityId = entityId;
+            event.expectedVersion = expectedVersion;
+            event.currentVersion = currentVersion;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package kleve.PartAndProductManager.utilities;
+
+import javafx.collections.ObservableList;
+import javafx.collections.transformation.FilteredList;
+import javafx.collections.transformation.SortedList;
+import javafx.scene.control.TableView;
+
+import java.util.function.BooleanSupplier;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Shows a cached list in a {@link TableView} through a {@link FilteredList} and a {@link SortedList},
+ * so that searching only changes the filter predicate instead of replacing the table's items.
+ * The sorted list follows the table's column sorting.
+ * <p>
+ * When the cache is reloaded the source list changes, so the source is looked up again on every call
+ * and the filtered and sorted lists are rebuilt when it differs from the list they wrap.
+ * </p>
+ * <p>
+ * A table too large to cache is shown through a {@link LazyTableList} instead. It cannot be filtered
+ * in memory, so searches of such a table go to the database.
+ * </p>
+ *
+ * @param <T> The type of the items in the table.
+ * @author Jonathan Kleve
+ */
+public class CatalogView<T> {
+    private final TableView<T> table;
+    private final Supplier<ObservableList<T>> source;
+    private final BooleanSupplier partial;
+    private final LazyTableList<T> lazyItems;
+    private FilteredList<T> filtered;
+    private SortedList<T> sorted;
+
+    /**
+     * Creates a view that shows the given source list in the given table.
+     *
+     * @param table The table showing the list.
+     * @param source Supplies the current cached list (e.g., {@code Catalog::getParts}).
+     * @param partial Reports whether the table is too large to cache (e.g., {@code Catalog::arePartsPartial}).
+     * @param lazyItems The lazily loaded list shown when the table is too large to cache.
+     */
+    public CatalogView(TableView<T> table, Supplier<ObservableList<T>> source, BooleanSupplier partial, LazyTableList<T> lazyItems) {
+        this.table = table;
+        this.source = source;
+        this.partial = partial;
+        this.lazyItems = lazyItems;
+    }
+
+    /**
+     * Shows the items accepted by the predicate. If the table is too large to cache, every row is shown
+     * through the lazily loaded list instead, reloaded from the database.
+     *
+     * @param predicate The filter to apply, or {@code null} to show every item.
+     * @return The number of items shown.
+     */
+    public int show(Predicate<? super T> predicate) {
+        if (partial.getAsBoolean()) {
+            lazyItems.attach(table);
+            lazyItems.refresh();
+            return lazyItems.size();
+        }
+
+        ObservableList<T> items = source.get();
+        if (filtered == null || filtered.getSource() != items) {
+            if (sorted != null) {
+                sorted.comparatorProperty().unbind();
+            }
+            filtered = new FilteredList<>(items);
+            sorted = new SortedList<>(filtered);
+            sorted.comparatorProperty().bind(table.comparatorProperty());
+        }
+        filtered.setPredicate(predicate);
+        if (table.getItems() != sorted) {
+            table.setItems(sorted);
+        }
+        return filtered.size();
+    }
+
+    /**
+     * Brings the table up to date after this application wrote to the database. A cached list needs nothing,
+     * because the {@code Catalog} applies each change to it in place and the change flows through the filtered
+     * and sorted lists as a single row update. A lazily loaded list, or the result of a database search,
+     * is shown again with the given filter.
+     *
+     * @param predicate The current search filter, or {@code null} to show every item.
+     */
+    public void refreshAfterWrite(Predicate<? super T> predicate) {
+        if (sorted == null || table.getItems() != sorted) {
+            show(predicate);
+        }
+    }
+
+    /**
+     * Shows every item.
+     *
+     * @return The number of items shown.
+     */
+    public int showAll() {
+        return show(null);
+    }
+}
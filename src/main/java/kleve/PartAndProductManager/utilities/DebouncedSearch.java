@@ -0,0 +1,154 @@
+package kleve.PartAndProductManager.utilities;
+
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
+import javafx.collections.ObservableList;
+import javafx.scene.control.TextField;
+import javafx.util.Duration;
+import kleve.PartAndProductManager.DAO.QueryHandle;
+import kleve.PartAndProductManager.DAO.SearchCriteria;
+import kleve.PartAndProductManager.monitoring.SearchEvent;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
+
+/**
+ * Runs a search as the user types in a {@link TextField}.
+ * <p>
+ * A search is first offered to an in-memory search over the cached catalog, which answers it
+ * immediately on the JavaFX application thread. Only when the cache cannot answer it is the database queried.
+ * A database search starts only once the user has stopped typing for {@link #DELAY}, so a burst of keystrokes
+ * results in a single query. Searches run on a background thread and their results are delivered
+ * on the JavaFX application thread. When the text changes again, the query still running for the
+ * previous text is cancelled through its {@link QueryHandle}, and any result that arrives for
+ * superseded text is dropped.
+ * </p>
+ *
+ * @param <T> The type of the items searched for.
+ * @author Jonathan Kleve
+ */
+public class DebouncedSearch<T> {
+
+    /**
+     * How long the text must stay unchanged before a search starts.
+     */
+    public static final Duration DELAY = Duration.millis(250);
+
+    /**
+     * Runs the searches of every field. The application shares a single JDBC connection,
+     * so running searches in parallel would only queue them on the connection.
+     */
+    private static final ExecutorService searchExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "search");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final String target;
+    private final ToIntFunction<String> localSearch;
+    private final BiFunction<String, QueryHandle, ObservableList<T>> search;
+    private final Runnable showAll;
+    private final Consumer<ObservableList<T>> onResult;
+    private final PauseTransition pause = new PauseTransition(DELAY);
+
+    /**
+     * Identifies the most recent search; a result is only delivered if no newer search has started since.
+     * Only read and written on the JavaFX application thread.
+     */
+    private long generation;
+    private QueryHandle runningQuery;
+
+    /**
+     * Creates a search that follows the text of the given field.
+     *
+     * @param field The search field to follow.
+     * @param target What is searched, "Part" or "Product"; recorded in the {@link SearchEvent}.
+     * @param localSearch Runs the search in memory and shows its result, returning the number of matches,
+     *                    or returns -1 without showing anything if the cache cannot answer it.
+     * @param search Runs the search for the given text in the database on a background thread, cancellable through the given handle.
+     * @param showAll Shows the unfiltered list when the field is cleared and the cache cannot answer.
+     * @param onResult Receives the items matched by the database on the JavaFX application thread.
+     */
+    public DebouncedSearch(TextField field, String target, ToIntFunction<String> localSearch,
+                           BiFunction<String, QueryHandle, ObservableList<T>> search,
+                           Runnable showAll, Consumer<ObservableList<T>> onResult) {
+        this.target = target;
+        this.localSearch = localSearch;
+        this.search = search;
+        this.showAll = showAll;
+        this.onResult = onResult;
+        pause.setOnFinished(event -> submit(field.getText()));
+        field.textProperty().addListener((observable, oldText, newText) -> onTextChanged(newText));
+    }
+
+    /**
+     * Cancels the pending or running search, if any, so that its result is never delivered.
+     * Called before a search is run explicitly (e.g., when the user presses Enter) and when the view is reset.
+     */
+    public void cancel() {
+        pause.stop();
+        generation++;
+        if (runningQuery != null) {
+            runningQuery.cancel();
+            runningQuery = null;
+        }
+    }
+
+    private void onTextChanged(String text) {
+        cancel();
+        if (SearchCriteria.containsWildcards(text)) {
+            // Text containing wildcards is left for the Enter handler, which explains why it cannot be searched
+            return;
+        }
+        SearchEvent searchEvent = new SearchEvent();
+        searchEvent.begin();
+        int localMatches = localSearch.applyAsInt(text);
+        if (localMatches >= 0) {
+            commit(searchEvent, text, localMatches);
+        } else if (text == null || text.isBlank()) {
+            showAll.run();
+        } else {
+            pause.playFromStart();
+        }
+    }
+
+    private void submit(String text) {
+        long searchGeneration = ++generation;
+        QueryHandle handle = new QueryHandle();
+        runningQuery = handle;
+
+        searchExecutor.execute(() -> {
+            if (handle.isCancelled()) {
+                return;
+            }
+            SearchEvent searchEvent = new SearchEvent();
+            searchEvent.begin();
+            ObservableList<T> results = search.apply(text, handle);
+            if (handle.isCancelled()) {
+                return;
+            }
+            commit(searchEvent, text, results.size());
+
+            Platform.runLater(() -> {
+                if (searchGeneration == generation) {
+                    runningQuery = null;
+                    onResult.accept(results);
+                }
+            });
+        });
+    }
+
+    private void commit(SearchEvent searchEvent, String text, int resultCount) {
+        searchEvent.end();
+        if (searchEvent.shouldCommit()) {
+            searchEvent.target = target;
+            searchEvent.query = text;
+            searchEvent.byId = text != null && text.trim().matches("-?\\d+");
+            searchEvent.resultCount = resultCount;
+            searchEvent.commit();
+        }
+    }
+}
@@ -0,0 +1,300 @@
+package kleve.PartAndProductManager.utilities;
+
+import java.util.Arrays;
+
+/**
+ * A hash map from {@code int} keys to {@code int} values that stores both in primitive arrays,
+ * so lookups and updates neither box their arguments nor allocate entry objects.
+ * <p>
+ * Collisions are resolved by open addressing with linear probing, and removals shift the following
+ * entries back so that no tombstones accumulate. A key that is not present has the value 0, which
+ * makes the map convenient as a multiset: {@link #addTo(int, int)} adjusts a count and removes the key
+ * when the count reaches 0.
+ * </p>
+ * <p>
+ * The map is not thread-safe.
+ * </p>
+ *
+ * @author Jonathan Kleve
+ */
+public class IntIntHashMap {
+    private static final int FREE_KEY = 0;
+    private static final float LOAD_FACTOR = 0.6f;
+
+    /**
+     * Receives the entries of a map.
+     */
+    @FunctionalInterface
+    public interface EntryConsumer {
+        /**
+         * Receives one entry.
+         *
+         * @param key The key.
+         * @param value The value.
+         */
+        void accept(int key, int value);
+    }
+
+    private int[] keys;
+    private int[] values;
+    private int size;
+    private int resizeAt;
+
+    // Key 0 marks a free slot, so an entry with key 0 is kept outside the arrays
+    private boolean hasFreeKey;
+    private int freeKeyValue;
+
+    /**
+     * Creates an empty map.
+     */
+    public IntIntHashMap() {
+        this(8);
+    }
+
+    /**
+     * Creates an empty map sized to hold the given number of entries without resizing.
+     *
+     * @param expectedSize The number of entries expected.
+     */
+    public IntIntHashMap(int expectedSize) {
+        allocate(capacityFor(expectedSize));
+    }
+
+    /**
+     * Retrieves the value of a key.
+     *
+     * @param key The key.
+     * @return The value, or 0 if the key is not present.
+     */
+    public int get(int key) {
+        if (key == FREE_KEY) {
+            return hasFreeKey ? freeKeyValue : 0;
+        }
+        int slot = find(key);
+        return slot >= 0 ? values[slot] : 0;
+    }
+
+    /**
+     * Checks whether a key is present.
+     *
+     * @param key The key.
+     * @return {@code true} if the key is present; {@code false} otherwise.
+     */
+    public boolean containsKey(int key) {
+        return key == FREE_KEY ? hasFreeKey : find(key) >= 0;
+    }
+
+    /**
+     * Sets the value of a key.
+     *
+     * @param key The key.
+     * @param value The value.
+     */
+    public void put(int key, int value) {
+        if (key == FREE_KEY) {
+            if (!hasFreeKey) {
+                hasFreeKey = true;
+                size++;
+            }
+            freeKeyValue = value;
+            return;
+        }
+        int slot = slotOf(key);
+        while (keys[slot] != FREE_KEY) {
+            if (keys[slot] == key) {
+                values[slot] = value;
+                return;
+            }
+            slot = (slot + 1) & (keys.length - 1);
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size > resizeAt) {
+            rehash(keys.length * 2);
+        }
+    }
+
+    /**
+     * Adds a delta to the value of a key, treating a missing key as 0. The key is removed when its value becomes 0.
+     *
+     * @param key The key.
+     * @param delta The amount to add (negative to subtract).
+     * @return The new value.
+     */
+    public int addTo(int key, int delta) {
+        int value = get(key) + delta;
+        if (value == 0) {
+            remove(key);
+        } else {
+            put(key, value);
+        }
+        return value;
+    }
+
+    /**
+     * Removes a key.
+     *
+     * @param key The key.
+     * @return The value the key had, or 0 if it was not present.
+     */
+    public int remove(int key) {
+        if (key == FREE_KEY) {
+            if (!hasFreeKey) {
+                return 0;
+            }
+            hasFreeKey = false;
+            size--;
+            return freeKeyValue;
+        }
+        int slot = find(key);
+        if (slot < 0) {
+            return 0;
+        }
+        int removed = values[slot];
+        size--;
+
+        // Shift back any following entry whose probe sequence passes through the emptied slot
+        int mask = keys.length - 1;
+        int gap = slot;
+        int next = (gap + 1) & mask;
+        while (keys[next] != FREE_KEY) {
+            int home = slotOf(keys[next]);
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[gap] = FREE_KEY;
+        values[gap] = 0;
+        return removed;
+    }
+
+    /**
+     * Retrieves the number of entries.
+     *
+     * @return The number of keys present.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks whether the map is empty.
+     *
+     * @return {@code true} if no key is present; {@code false} otherwise.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Calculates the sum of all values, e.g., the total count of a multiset.
+     *
+     * @return The sum of the values.
+     */
+    public long sumOfValues() {
+        long sum = hasFreeKey ? freeKeyValue : 0;
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != FREE_KEY) {
+                sum += values[slot];
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Passes every entry to the consumer, in no particular order. The map must not be modified meanwhile.
+     *
+     * @param consumer Receives each key and value.
+     */
+    public void forEach(EntryConsumer consumer) {
+        if (hasFreeKey) {
+            consumer.accept(FREE_KEY, freeKeyValue);
+        }
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != FREE_KEY) {
+                consumer.accept(keys[slot], values[slot]);
+            }
+        }
+    }
+
+    /**
+     * Retrieves the keys, sorted in ascending order.
+     *
+     * @return A new array containing every key.
+     */
+    public int[] keys() {
+        int[] result = new int[size];
+        int index = 0;
+        if (hasFreeKey) {
+            result[index++] = FREE_KEY;
+        }
+        for (int key : keys) {
+            if (key != FREE_KEY) {
+                result[index++] = key;
+            }
+        }
+        Arrays.sort(result);
+        return result;
+    }
+
+    /**
+     * Creates an independent copy of the map.
+     *
+     * @return A new map with the same entries.
+     */
+    public IntIntHashMap copy() {
+        IntIntHashMap copy = new IntIntHashMap(0);
+        copy.keys = keys.clone();
+        copy.values = values.clone();
+        copy.size = size;
+        copy.resizeAt = resizeAt;
+        copy.hasFreeKey = hasFreeKey;
+        copy.freeKeyValue = freeKeyValue;
+        return copy;
+    }
+
+    private int find(int key) {
+        int slot = slotOf(key);
+        while (keys[slot] != FREE_KEY) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & (keys.length - 1);
+        }
+        return -1;
+    }
+
+    private int slotOf(int key) {
+        int hash = key * 0x9E3779B9; // Fibonacci hashing spreads sequential IDs across the table
+        return (hash ^ (hash >>> 16)) & (keys.length - 1);
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity];
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        size = hasFreeKey ? 1 : 0;
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (oldKeys[slot] != FREE_KEY) {
+                put(oldKeys[slot], oldValues[slot]);
+            }
+        }
+    }
+
+    static int capacityFor(int expectedSize) {
+        int capacity = 8;
+        while (capacity * LOAD_FACTOR < expectedSize) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+}
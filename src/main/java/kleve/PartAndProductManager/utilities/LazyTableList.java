@@ -0,0 +1,253 @@
+package kleve.PartAndProductManager.utilities;
+
+import javafx.application.Platform;
+import javafx.collections.ObservableListBase;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import javafx.scene.control.cell.PropertyValueFactory;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.IntSupplier;
+
+/**
+ * A read-only list for a {@link TableView} that loads its rows from the database in pages as they are displayed.
+ * <p>
+ * The list knows its total row count from a count query, so the table's scroll bar covers every row,
+ * but it only holds the pages the table has recently displayed. A row that has not been loaded yet is
+ * {@code null}, which the table shows as an empty row; its page is loaded on a background thread together
+ * with the neighbouring pages, and the rows are filled in when it arrives. Pages are kept in least-recently-used
+ * order and the oldest are evicted beyond {@link #MAX_CACHED_PAGES}, so memory stays bounded however large the table is.
+ * </p>
+ * <p>
+ * Sorting is pushed down to the database: once {@link #attach(TableView)} has installed the list's sort policy,
+ * clicking a column header reloads the pages ordered by that column. Only the first sort column is used,
+ * and only columns whose cell value factory is a {@link PropertyValueFactory} can be sorted; the DAO maps
+ * the property name to a column.
+ * </p>
+ * <p>
+ * Apart from the background loading, the list is used on the JavaFX application thread only.
+ * </p>
+ *
+ * @param <T> The type of the rows.
+ * @author Jonathan Kleve
+ */
+public class LazyTableList<T> extends ObservableListBase<T> {
+
+    /**
+     * The number of rows loaded by one query.
+     */
+    public static final int PAGE_SIZE = 100;
+
+    /**
+     * The number of pages kept in memory.
+     */
+    public static final int MAX_CACHED_PAGES = 30;
+
+    /**
+     * Loads a window of rows from the database.
+     *
+     * @param <T> The type of the rows.
+     */
+    @FunctionalInterface
+    public interface WindowLoader<T> {
+        /**
+         * Loads up to {@code limit} rows starting at {@code offset} in the given order.
+         *
+         * @param offset The index of the first row.
+         * @param limit The maximum number of rows to load.
+         * @param sortProperty The property to sort by, or {@code null} for the default order.
+         * @param ascending Whether to sort in ascending order.
+         * @return The loaded rows.
+         */
+        List<T> load(int offset, int limit, String sortProperty, boolean ascending);
+    }
+
+    /**
+     * Loads the pages of every lazy table. The application shares a single JDBC connection, so a second thread would only wait for it.
+     */
+    private static final ExecutorService pageLoader = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "table-page-loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final IntSupplier counter;
+    private final WindowLoader<T> loader;
+    private final Map<Integer, List<T>> pages = new LinkedHashMap<>(MAX_CACHED_PAGES * 2, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, List<T>> eldest) {
+            return size() > MAX_CACHED_PAGES;
+        }
+    };
+    private final Set<Integer> loadingPages = new HashSet<>();
+    private int size;
+    private String sortProperty;
+    private boolean ascending = true;
+
+    /**
+     * Identifies the current contents; pages loaded for an older row count or sort order are discarded.
+     */
+    private long generation;
+
+    /**
+     * The page most recently displayed. Read by the loader thread to skip pages the user has already scrolled past.
+     */
+    private volatile int currentPage;
+
+    /**
+     * Creates an empty list; call {@link #refresh()} to count the rows.
+     *
+     * @param counter Counts the rows in the database.
+     * @param loader Loads a window of rows from the database.
+     */
+    public LazyTableList(IntSupplier counter, WindowLoader<T> loader) {
+        this.counter = counter;
+        this.loader = loader;
+    }
+
+    /**
+     * Shows this list in the given table and installs a sort policy that pushes sorting down to the database.
+     * The policy falls back to the table's default policy whenever the table shows a different list,
+     * so a table can switch between this list and a fully loaded one.
+     *
+     * @param table The table to show the list in.
+     */
+    public void attach(TableView<T> table) {
+        table.setSortPolicy(sortedTable -> {
+            if (sortedTable.getItems() != this) {
+                return TableView.DEFAULT_SORT_POLICY.call(sortedTable);
+            }
+            if (sortedTable.getSortOrder().isEmpty()) {
+                sort(null, true);
+                return true;
+            }
+            TableColumn<T, ?> column = sortedTable.getSortOrder().get(0);
+            Object cellValueFactory = column.getCellValueFactory();
+            String property = cellValueFactory instanceof PropertyValueFactory<?, ?> factory ? factory.getProperty() : null;
+            if (property == null) {
+                return false;
+            }
+            sort(property, column.getSortType() == TableColumn.SortType.ASCENDING);
+            return true;
+        });
+        if (table.getItems() != this) {
+            table.setItems(this);
+        }
+    }
+
+    /**
+     * Counts the rows again and discards every loaded page, so the rows are reloaded as they are displayed.
+     */
+    public void refresh() {
+        int oldSize = size;
+        int newSize = counter.getAsInt();
+        resetPages();
+        size = newSize;
+
+        beginChange();
+        if (oldSize > 0) {
+            nextRemove(0, Collections.nCopies(oldSize, null));
+        }
+        if (newSize > 0) {
+            nextAdd(0, newSize);
+        }
+        endChange();
+    }
+
+    /**
+     * Changes the order of the rows and discards every loaded page.
+     *
+     * @param property The property to sort by, or {@code null} for the default order.
+     * @param ascending Whether to sort in ascending order.
+     */
+    public void sort(String property, boolean ascending) {
+        if (Objects.equals(property, sortProperty) && ascending == this.ascending) {
+            return;
+        }
+        sortProperty = property;
+        this.ascending = ascending;
+        resetPages();
+        if (size > 0) {
+            beginChange();
+            nextReplace(0, size, Collections.nCopies(size, null));
+            endChange();
+        }
+    }
+
+    private void resetPages() {
+        generation++;
+        pages.clear();
+        loadingPages.clear();
+    }
+
+    /**
+     * Retrieves a row, requesting its page and the neighbouring pages if they are not loaded.
+     *
+     * @param index The index of the row.
+     * @return The row, or {@code null} if its page has not been loaded yet.
+     */
+    @Override
+    public T get(int index) {
+        Objects.checkIndex(index, size);
+        int page = index / PAGE_SIZE;
+        currentPage = page;
+        List<T> rows = pages.get(page);
+        if (rows == null) {
+            request(page);
+        }
+        // Prefetch around the viewport so that scrolling in either direction finds the rows loaded
+        request(page - 1);
+        request(page + 1);
+
+        int offset = index % PAGE_SIZE;
+        return rows != null && offset < rows.size() ? rows.get(offset) : null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    private void request(int page) {
+        if (page < 0 || page * PAGE_SIZE >= size || pages.containsKey(page) || !loadingPages.add(page)) {
+            return;
+        }
+        long requestGeneration = generation;
+        String requestSortProperty = sortProperty;
+        boolean requestAscending = ascending;
+
+        pageLoader.execute(() -> {
+            // Skip pages the user has scrolled far past while they waited in the queue
+            List<T> rows = Math.abs(page - currentPage) > MAX_CACHED_PAGES / 2 ? null
+                    : loader.load(page * PAGE_SIZE, PAGE_SIZE, requestSortProperty, requestAscending);
+            Platform.runLater(() -> onPageLoaded(page, requestGeneration, rows));
+        });
+    }
+
+    private void onPageLoaded(int page, long requestGeneration, List<T> rows) {
+        if (requestGeneration != generation) {
+            return;
+        }
+        loadingPages.remove(page);
+        if (rows == null) {
+            return;
+        }
+        pages.put(page, rows);
+
+        int from = page * PAGE_SIZE;
+        int to = Math.min(from + rows.size(), size);
+        if (to > from) {
+            beginChange();
+            nextReplace(from, to, Collections.nCopies(to - from, null));
+            endChange();
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package kleve.PartAndProductManager.utilities;
+
+/**
+ * Lifecycle for controllers whose views are cached and reused by {@link SceneNavigator}.
+ * A cached view's FXML is parsed and its {@code initialize} method runs only once, so anything
+ * that must be fresh each time the view is shown (database data, text the user typed last time,
+ * the item selected on the main menu) belongs in {@link #resetView()} instead.
+ *
+ * @author Jonathan Kleve
+ */
+public interface ResettableController {
+
+    /**
+     * Called on the JavaFX application thread every time the view is about to be shown.
+     * Implementations should return the view to the state a freshly loaded view would be in
+     * and re-read any state passed in by other controllers.
+     */
+    void resetView();
+}
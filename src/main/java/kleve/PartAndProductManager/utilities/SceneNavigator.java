@@ -7,18 +7,138 @@ import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.stage.Screen; // Corrected import
 import javafx.stage.Stage;
+import kleve.PartAndProductManager.monitoring.SceneLoadEvent;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Utility class for navigating between JavaFX scenes.
+ * <p>
+ * Views are parsed once and then cached: the FXML, its scene graph and its controller are reused
+ * on every later navigation. {@link #preloadViews()} parses every view on a background thread at
+ * startup so that even the first navigation does not wait for FXML parsing. Controllers of cached
+ * views implement {@link ResettableController} to refresh their data each time they are shown.
+ * </p>
  */
 public class SceneNavigator {
 
+    /**
+     * Every view reached through {@link #loadScene(ActionEvent, String, String)}.
+     * The login view is shown directly by the application and is not cached.
+     */
+    public static final List<String> VIEW_PATHS = List.of(
+            "/kleve/PartAndProductManager/main-menu-view.fxml",
+            "/kleve/PartAndProductManager/add-part-view.fxml",
+            "/kleve/PartAndProductManager/modify-part-view.fxml",
+            "/kleve/PartAndProductManager/add-product-view.fxml",
+            "/kleve/PartAndProductManager/modify-product-view.fxml",
+            "/kleve/PartAndProductManager/report-menu-view.fxml",
+            "/kleve/PartAndProductManager/part-report-view.fxml",
+            "/kleve/PartAndProductManager/product-report-view.fxml",
+            "/kleve/PartAndProductManager/week-updated-report-view.fxml",
+            "/kleve/PartAndProductManager/diagnostics-view.fxml");
+
+    /**
+     * Parsed views by FXML path. A view that is still being preloaded is an incomplete future,
+     * so a navigation that arrives first simply waits for it instead of parsing the FXML twice.
+     */
+    private static final Map<String, CompletableFuture<CachedView>> viewCache = new ConcurrentHashMap<>();
+
+    /**
+     * A parsed view: its root node, its controller and, once it has been shown, the scene wrapping it.
+     * Scenes must be created on the JavaFX application thread, so the scene is created on first navigation.
+     */
+    private static final class CachedView {
+        private final Parent root;
+        private final Object controller;
+        private Scene scene;
+
+        private CachedView(Parent root, Object controller) {
+            this.root = root;
+            this.controller = controller;
+        }
+    }
+
+    /**
+     * Parses every view in {@link #VIEW_PATHS} on a background thread and caches the results.
+     * Views that are already cached are skipped. Nodes may be built off the JavaFX application thread
+     * as long as they are not yet part of a showing window, so this is safe to run while the login view is shown.
+     */
+    public static void preloadViews() {
+        ExecutorService preloader = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "view-preloader");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long start = System.nanoTime();
+        for (String fxmlPath : VIEW_PATHS) {
+            viewCache.computeIfAbsent(fxmlPath, path -> CompletableFuture.supplyAsync(() -> parseView(path), preloader));
+        }
+        CompletableFuture.allOf(viewCache.values().toArray(new CompletableFuture<?>[0]))
+                .whenComplete((ignored, throwable) -> {
+                    preloader.shutdown();
+                    System.out.println("Preloaded " + VIEW_PATHS.size() + " views in " + (System.nanoTime() - start) / 1_000_000 + " ms.");
+                });
+    }
+
+    /**
+     * Parses an FXML view and runs its controller's {@code initialize} method.
+     *
+     * @param fxmlPath The path to the FXML file.
+     * @return The parsed view.
+     */
+    private static CachedView parseView(String fxmlPath) {
+        try {
+            FXMLLoader loader = new FXMLLoader(SceneNavigator.class.getResource(fxmlPath));
+            Parent root = loader.load();
+            return new CachedView(root, loader.getController());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Retrieves a view from the cache, parsing it now if it has not been preloaded.
+     * A view whose preload failed is parsed again so the failure is reported to the caller.
+     *
+     * @param fxmlPath The path to the FXML file.
+     * @return The parsed view.
+     * @throws IOException If the FXML file cannot be loaded.
+     */
+    private static CachedView getView(String fxmlPath) throws IOException {
+        CompletableFuture<CachedView> cached = viewCache.get(fxmlPath);
+        if (cached != null) {
+            try {
+                return cached.join();
+            } catch (CompletionException e) {
+                viewCache.remove(fxmlPath, cached);
+                System.err.println("Preloading " + fxmlPath + " failed, loading it again: " + e.getCause());
+            }
+        }
+        try {
+            CachedView view = parseView(fxmlPath);
+            viewCache.put(fxmlPath, CompletableFuture.completedFuture(view));
+            return view;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
     /**
      * Navigates to a new scene based on the provided FXML file path.
      * The new scene replaces the current scene on the existing stage.
      * The new window is centered on the screen.
+     * The view is taken from the cache (and its controller reset through {@link ResettableController})
+     * or parsed and cached if this is its first use.
+     * Each call is recorded as a {@link SceneLoadEvent} when Java Flight Recorder is running.
      *
      * @param event The ActionEvent that triggered the navigation (e.g., button click).
      * @param fxmlPath The path to the FXML file for the target scene (e.g., "/kleve/testtwo/main-menu-view.fxml").
@@ -26,9 +146,21 @@ public class SceneNavigator {
      * @throws IOException If the FXML file cannot be loaded.
      */
     public static void loadScene(ActionEvent event, String fxmlPath, String title) throws IOException {
-        Parent root = FXMLLoader.load(SceneNavigator.class.getResource(fxmlPath));
+        SceneLoadEvent sceneLoadEvent = new SceneLoadEvent();
+        sceneLoadEvent.begin();
+        long loadStart = System.nanoTime();
+
+        boolean cached = viewCache.containsKey(fxmlPath);
+        CachedView view = getView(fxmlPath);
+        if (view.controller instanceof ResettableController) {
+            ((ResettableController) view.controller).resetView();
+        }
+        long renderStart = System.nanoTime();
         Stage stage = (Stage) ((Node) event.getSource()).getScene().getWindow();
-        Scene scene = new Scene(root);
+        if (view.scene == null) {
+            view.scene = new Scene(view.root);
+        }
+        Scene scene = view.scene;
         stage.setTitle(title);
         stage.setScene(scene);
 
@@ -40,6 +172,16 @@ public class SceneNavigator {
         stage.setX((screenWidth - windowWidth) / 2);
         stage.setY((screenHeight - windowHeight) / 2);
         stage.show();
+
+        sceneLoadEvent.end();
+        if (sceneLoadEvent.shouldCommit()) {
+            sceneLoadEvent.fxmlPath = fxmlPath;
+            sceneLoadEvent.title = title;
+            sceneLoadEvent.cached = cached;
+            sceneLoadEvent.loadTime = renderStart - loadStart;
+            sceneLoadEvent.renderTime = System.nanoTime() - renderStart;
+            sceneLoadEvent.commit();
+        }
     }
 
     /**
@@ -0,0 +1,80 @@
+package kleve.PartAndProductManager.utilities;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A fixed set of locks shared by {@code int} keys, so that work on the same key is serialized while work on
+ * different keys mostly runs in parallel, without a lock object per key and without a global lock.
+ * <p>
+ * A key always maps to the same stripe. Two keys may share a stripe, in which case they are serialized too;
+ * with enough stripes this is rare. Code that needs several stripes at once must take them in ascending
+ * stripe order (see {@link #stripeOf(int)}) to avoid deadlocks.
+ * </p>
+ *
+ * @author Jonathan Kleve
+ */
+public class StripedLocks {
+    private final ReentrantLock[] locks;
+    private final int mask;
+
+    /**
+     * Creates the locks.
+     *
+     * @param minimumStripes The minimum number of stripes; it is rounded up to a power of two.
+     */
+    public StripedLocks(int minimumStripes) {
+        int stripes = Integer.highestOneBit(Math.max(1, minimumStripes - 1)) << 1;
+        locks = new ReentrantLock[stripes];
+        for (int i = 0; i < stripes; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        mask = stripes - 1;
+    }
+
+    /**
+     * Retrieves the stripe a key maps to.
+     *
+     * @param key The key.
+     * @return The index of the key's stripe.
+     */
+    public int stripeOf(int key) {
+        int hash = key * 0x9E3779B9; // Spreads consecutive IDs over the stripes
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    /**
+     * Retrieves the lock of a key.
+     *
+     * @param key The key.
+     * @return The lock of the key's stripe.
+     */
+    public ReentrantLock lockFor(int key) {
+        return locks[stripeOf(key)];
+    }
+
+    /**
+     * Retrieves the locks of several keys, each stripe once, in the order they must be taken.
+     *
+     * @param keys The keys.
+     * @return The locks of the keys' stripes in ascending stripe order.
+     */
+    public ReentrantLock[] locksFor(int[] keys) {
+        boolean[] needed = new boolean[locks.length];
+        int count = 0;
+        for (int key : keys) {
+            int stripe = stripeOf(key);
+            if (!needed[stripe]) {
+                needed[stripe] = true;
+                count++;
+            }
+        }
+        ReentrantLock[] ordered = new ReentrantLock[count];
+        int next = 0;
+        for (int stripe = 0; stripe < locks.length; stripe++) {
+            if (needed[stripe]) {
+                ordered[next++] = locks[stripe];
+            }
+        }
+        return ordered;
+    }
+}
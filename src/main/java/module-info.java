@@ -2,6 +2,7 @@ module kleve.PartAndProductManager {
     requires javafx.controls;
     requires javafx.fxml;
     requires java.sql;
+    requires jdk.jfr;
 
 
     opens kleve.PartAndProductManager to javafx.fxml;
@@ -0,0 +1,45 @@
+-- The tables as the application originally expected them to be created by hand.
+-- IF NOT EXISTS lets the baseline adopt a database that was set up manually;
+-- later migrations bring either kind of database to the same schema.
+
+CREATE TABLE IF NOT EXISTS users (
+    user_id INT NOT NULL AUTO_INCREMENT,
+    user_name VARCHAR(50) NOT NULL,
+    password VARCHAR(100) NOT NULL,
+    PRIMARY KEY (user_id)
+);
+
+CREATE TABLE IF NOT EXISTS parts (
+    id INT NOT NULL AUTO_INCREMENT,
+    name VARCHAR(100) NOT NULL,
+    price DECIMAL(10, 2) NOT NULL,
+    stock INT NOT NULL,
+    min INT NOT NULL,
+    max INT NOT NULL,
+    machine_id INT NULL,
+    company_name VARCHAR(100) NULL,
+    create_date DATETIME NULL,
+    created_by INT NULL,
+    last_updated DATETIME NULL,
+    last_updated_by INT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS products (
+    id INT NOT NULL AUTO_INCREMENT,
+    name VARCHAR(100) NOT NULL,
+    price DECIMAL(10, 2) NOT NULL,
+    stock INT NOT NULL,
+    min INT NOT NULL,
+    max INT NOT NULL,
+    create_date DATETIME NULL,
+    created_by INT NULL,
+    last_updated DATETIME NULL,
+    last_updated_by INT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS product_parts (
+    product_id INT NOT NULL,
+    part_id INT NOT NULL
+);
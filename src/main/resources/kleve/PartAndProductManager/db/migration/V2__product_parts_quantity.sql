@@ -0,0 +1,36 @@
+-- Stores the number of units of a part a product uses as a quantity on a single
+-- product_parts row, instead of one duplicate row per unit.
+--
+-- Existing duplicates are collapsed into one row per (product_id, part_id) whose
+-- quantity is the number of duplicates. The table is rebuilt rather than altered
+-- so that the collapse, the new primary key and the foreign keys are applied in
+-- one step; the old table is swapped out atomically by RENAME TABLE. Rows that
+-- point at a deleted part or product cannot satisfy the foreign keys and are
+-- dropped by the joins.
+--
+-- A database upgraded by the hand-run script this migration replaced already has
+-- the quantity column but none of the constraints; this script is skipped for it
+-- and migration 8 adds the missing constraints instead.
+
+CREATE TABLE product_parts_collapsed (
+    product_id INT NOT NULL,
+    part_id INT NOT NULL,
+    quantity INT NOT NULL DEFAULT 1,
+    PRIMARY KEY (product_id, part_id),
+    KEY idx_product_parts_part_id (part_id),
+    CONSTRAINT fk_product_parts_product FOREIGN KEY (product_id) REFERENCES products (id) ON DELETE CASCADE,
+    CONSTRAINT fk_product_parts_part FOREIGN KEY (part_id) REFERENCES parts (id) ON DELETE CASCADE,
+    CONSTRAINT chk_product_parts_quantity CHECK (quantity > 0)
+);
+
+INSERT INTO product_parts_collapsed (product_id, part_id, quantity)
+SELECT pp.product_id, pp.part_id, COUNT(*)
+FROM product_parts pp
+JOIN products p ON p.id = pp.product_id
+JOIN parts pt ON pt.id = pp.part_id
+GROUP BY pp.product_id, pp.part_id;
+
+RENAME TABLE product_parts TO product_parts_duplicates,
+             product_parts_collapsed TO product_parts;
+
+DROP TABLE product_parts_duplicates;
@@ -0,0 +1,18 @@
+-- Adds an explicit discriminator to the parts table. Rows were previously told
+-- apart by checking whether machine_id is nonzero or company_name is non-blank;
+-- part_type stores the answer once (1 = in-house, 2 = outsourced), so reads and
+-- type-filtered queries no longer inspect those columns.
+--
+-- Rows that are neither get 0 and are reported and skipped when read, as before.
+
+ALTER TABLE parts ADD COLUMN part_type TINYINT NOT NULL DEFAULT 0;
+
+UPDATE parts
+SET part_type = CASE
+    WHEN machine_id IS NOT NULL AND machine_id <> 0 THEN 1
+    WHEN company_name IS NOT NULL AND TRIM(company_name) <> '' THEN 2
+    ELSE 0
+END;
+
+-- Type-filtered listings read the index in ID order; faceted counts are answered from it alone.
+CREATE INDEX idx_parts_part_type ON parts (part_type);
@@ -0,0 +1,20 @@
+-- Adds the sequences IdAllocator reserves blocks of part and product IDs from.
+-- Each row holds the next ID not yet handed out for one table. A reservation
+-- moves it forward by a whole block in one statement, so a client that inserts
+-- many rows assigns their IDs itself instead of waiting for one generated key
+-- per row.
+--
+-- The sequences start after the highest existing ID. Rows inserted later with
+-- AUTO_INCREMENT are caught up with when the next block is reserved.
+
+CREATE TABLE IF NOT EXISTS id_sequences (
+    name VARCHAR(30) NOT NULL,
+    next_id INT NOT NULL,
+    PRIMARY KEY (name)
+);
+
+INSERT IGNORE INTO id_sequences (name, next_id)
+SELECT 'parts', COALESCE(MAX(id), 0) + 1 FROM parts;
+
+INSERT IGNORE INTO id_sequences (name, next_id)
+SELECT 'products', COALESCE(MAX(id), 0) + 1 FROM products;
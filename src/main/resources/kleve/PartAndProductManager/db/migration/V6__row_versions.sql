@@ -0,0 +1,9 @@
+-- Adds a row version to parts and products for optimistic concurrency control.
+-- Every update of a row increments its version and only succeeds if the version
+-- is still the one the editor loaded, so two users editing the same part or
+-- product cannot silently overwrite each other's changes. No row locks are held
+-- while a user edits.
+
+ALTER TABLE parts ADD COLUMN version INT NOT NULL DEFAULT 0;
+
+ALTER TABLE products ADD COLUMN version INT NOT NULL DEFAULT 0;
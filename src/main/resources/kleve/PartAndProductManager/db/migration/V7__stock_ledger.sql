@@ -0,0 +1,42 @@
+-- Adds the stock ledger: every change of a part's or product's stock is
+-- appended to stock_movements with its reason, user and time, in the same
+-- transaction as the change. The stock column of parts and products stays
+-- the current level, a projection of the ledger that normal reads use.
+--
+-- Movements are only ever inserted. Their AUTO_INCREMENT key makes every
+-- insert an append at the end of the clustered index, and history queries
+-- read the (item_type, item_id, id) index instead of the hot item rows.
+--
+-- stock_snapshots holds the stock of each item as of a movement, so a
+-- reconciliation replays only the movements after the latest snapshot.
+-- item_type is 1 for a part and 2 for a product.
+
+CREATE TABLE IF NOT EXISTS stock_movements (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    item_type TINYINT NOT NULL,
+    item_id INT NOT NULL,
+    delta INT NOT NULL,
+    stock_after INT NOT NULL,
+    reason VARCHAR(20) NOT NULL,
+    user_id INT NULL,
+    moved_at DATETIME NOT NULL,
+    PRIMARY KEY (id),
+    INDEX idx_stock_movements_item (item_type, item_id, id)
+);
+
+CREATE TABLE IF NOT EXISTS stock_snapshots (
+    item_type TINYINT NOT NULL,
+    item_id INT NOT NULL,
+    movement_id BIGINT NOT NULL,
+    stock INT NOT NULL,
+    taken_at DATETIME NOT NULL,
+    PRIMARY KEY (item_type, item_id, movement_id),
+    INDEX idx_stock_snapshots_movement_id (movement_id)
+);
+
+-- The stock existing items have now is their opening balance, as of movement 0.
+INSERT IGNORE INTO stock_snapshots (item_type, item_id, movement_id, stock, taken_at)
+SELECT 1, id, 0, stock, UTC_TIMESTAMP() FROM parts;
+
+INSERT IGNORE INTO stock_snapshots (item_type, item_id, movement_id, stock, taken_at)
+SELECT 2, id, 0, stock, UTC_TIMESTAMP() FROM products;
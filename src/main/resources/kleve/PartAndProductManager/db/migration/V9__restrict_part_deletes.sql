@@ -0,0 +1,13 @@
+-- Refuses to delete a part that a product still uses, instead of silently
+-- dropping the product's association with it.
+--
+-- Migration 2 created fk_product_parts_part with ON DELETE CASCADE. The delete
+-- guard in the application cannot see an association another workstation has
+-- just written, and the cascade then removed that association without warning.
+-- With ON DELETE RESTRICT the database rejects such a delete and the part is kept.
+-- Deleting a product still cascades to its associations.
+
+ALTER TABLE product_parts DROP FOREIGN KEY fk_product_parts_part;
+
+ALTER TABLE product_parts ADD CONSTRAINT fk_product_parts_part
+    FOREIGN KEY (part_id) REFERENCES parts (id) ON DELETE RESTRICT;
@@ -7,18 +7,20 @@ import org.junit.jupiter.api.*;
 
 import static org.junit.jupiter.api.Assertions.*;
 
-import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.util.List;
 import javafx.collections.ObservableList;
 
 /**
  * Unit tests (more accurately, integration tests) for the PartDAO class using JUnit 5.
- * This class assumes a working MySQL database connection via the JDBC utility.
- * IMPORTANT: These tests will modify your database. It's recommended to run them on a
- * development or test database, not a production one.
+ * This class assumes a working MySQL server reachable via the JDBC utility.
+ * The tests run in a private {@link TestDatabase} created from the empty schema snapshot,
+ * so they never modify capstone_db and can run at the same time as other test classes.
  */
 class PartDAOTest {
 
+    private static TestDatabase database;
+
     private InHouse testInHousePart;
     private Outsourced testOutsourcedPart;
 
@@ -27,9 +29,9 @@ class PartDAOTest {
      * Annotated with @BeforeAll for JUnit 5. Must be static.
      */
     @BeforeAll
-    static void setupAll() {
-        JDBC.openConnection(); // Open connection for all tests
-        System.out.println("Database connection opened for PartDAOTest suite.");
+    static void setupAll() throws SQLException {
+        database = TestDatabase.open("empty", TestDatabase.EMPTY); // Private database for all tests
+        System.out.println("Test database opened for PartDAOTest suite.");
 
         UserDAO.userId = 1;
         System.out.println("Dummy UserID set for testing: " + UserDAO.userId);
@@ -42,13 +44,13 @@ class PartDAOTest {
      */
     @BeforeEach
     void setupEach() {
-        // Clear the parts table before each test to ensure a clean state
-        try (PreparedStatement statement = JDBC.connection.prepareStatement("DELETE FROM parts")) {
-            statement.executeUpdate();
-            System.out.println("Parts table cleared before test.");
+        // Restore the empty snapshot before each test to ensure a clean state
+        try {
+            database.reset();
+            System.out.println("Test database reset before test.");
         } catch (SQLException e) {
             e.printStackTrace();
-            fail("Failed to clear parts table before test: " + e.getMessage());
+            fail("Failed to reset the test database before test: " + e.getMessage());
         }
 
         // Initialize fresh test part data for each test
@@ -65,7 +67,10 @@ class PartDAOTest {
     @DisplayName("1. Test adding an InHouse part successfully")
     void testAddInHousePart() {
         System.out.println("Running testAddInHousePart...");
-        PartDAO.addPart(testInHousePart);
+        InHouse addedPart = PartDAO.addPart(testInHousePart);
+        assertNotNull(addedPart, "addPart should return the persisted part");
+        assertTrue(addedPart.getId() > 0, "The returned part should carry its generated ID");
+        assertNotNull(addedPart.getCreateDate(), "The returned part should carry its creation time");
 
         ObservableList<Part> allParts = PartDAO.getAllParts();
         assertNotNull(allParts, "getAllParts should not return null");
@@ -91,9 +96,8 @@ class PartDAOTest {
     @DisplayName("2. Test looking up a part by ID")
     void testLookupPartById() {
         System.out.println("Running testLookupPartById...");
-        PartDAO.addPart(testInHousePart); // Add a part first
-        // Get the ID that was assigned by the DAO/DB after addition
-        int addedId = PartDAO.getAllParts().get(0).getId();
+        // Add a part first; it is returned with the ID that was assigned by the DB
+        int addedId = PartDAO.addPart(testInHousePart).getId();
 
         Part foundPart = PartDAO.getPart(addedId);
         assertNotNull(foundPart, "Part should be found by ID");
@@ -126,8 +130,7 @@ class PartDAOTest {
     @DisplayName("4. Test updating an existing part")
     void testUpdatePart() {
         System.out.println("Running testUpdatePart...");
-        PartDAO.addPart(testInHousePart); // Add original part
-        int originalId = PartDAO.getAllParts().get(0).getId(); // Get the ID
+        int originalId = PartDAO.addPart(testInHousePart).getId(); // Add original part and get its ID
 
         // Create an updated version of the part, ensuring ID is set correctly
         InHouse updatedPart = new InHouse(originalId, "Updated InHouse Part", 12.75, 7, 2, 15, 202);
@@ -151,8 +154,7 @@ class PartDAOTest {
     @DisplayName("5. Test deleting a part successfully")
     void testDeletePart() {
         System.out.println("Running testDeletePart...");
-        PartDAO.addPart(testInHousePart); // Add a part to delete
-        int partToDeleteId = PartDAO.getAllParts().get(0).getId(); // Get the ID
+        int partToDeleteId = PartDAO.addPart(testInHousePart).getId(); // Add a part to delete and get its ID
 
         boolean isDeleted = PartDAO.deletePart(partToDeleteId);
         assertTrue(isDeleted, "Part should be successfully deleted");
@@ -179,6 +181,78 @@ class PartDAOTest {
         System.out.println("TestGetAllParts Passed.");
     }
 
+    /**
+     * Test case for adding several parts with one batch.
+     */
+    @Test
+    @DisplayName("7. Test adding parts in bulk returns every generated ID")
+    void testAddParts() {
+        System.out.println("Running testAddParts...");
+        List<Part> addedParts = PartDAO.addParts(List.of(testInHousePart, testOutsourcedPart));
+        assertEquals(2, addedParts.size(), "Both parts should be returned");
+        assertSame(testInHousePart, addedParts.get(0), "Parts should be returned in the order given");
+        assertSame(testOutsourcedPart, addedParts.get(1), "Parts should be returned in the order given");
+        assertTrue(addedParts.get(0).getId() > 0, "The first part should carry its generated ID");
+        assertNotEquals(addedParts.get(0).getId(), addedParts.get(1).getId(), "Each part should get its own ID");
+
+        Part retrievedPart = PartDAO.getPart(addedParts.get(1).getId());
+        assertNotNull(retrievedPart, "A part added in bulk should be found by its returned ID");
+        assertTrue(retrievedPart instanceof Outsourced, "Retrieved part should be an Outsourced instance");
+        assertEquals(testOutsourcedPart.getCompanyName(), ((Outsourced) retrievedPart).getCompanyName(), "Retrieved company name should match");
+        System.out.println("TestAddParts Passed.");
+    }
+
+    /**
+     * Test case for adding parts with IDs assigned from reserved blocks.
+     */
+    @Test
+    @DisplayName("8. Test adding parts with the ID allocator")
+    void testAddPartsWithIdAllocator() throws SQLException {
+        System.out.println("Running testAddPartsWithIdAllocator...");
+        IdAllocator.enable(10);
+        try {
+            int reservedId = IdAllocator.nextId(IdAllocator.Sequence.PARTS);
+            testOutsourcedPart.setId(reservedId); // Assigned in memory before the insert, e.g., by an import
+            List<Part> addedParts = PartDAO.addParts(List.of(testInHousePart, testOutsourcedPart));
+            assertEquals(2, addedParts.size(), "Both parts should be returned");
+            assertEquals(reservedId, testOutsourcedPart.getId(), "A part with a reserved ID should keep it");
+            assertTrue(testInHousePart.getId() > reservedId, "A part without an ID should get the next one from the block");
+            assertNotNull(PartDAO.getPart(reservedId), "The part should be stored under its reserved ID");
+        } finally {
+            IdAllocator.disable();
+        }
+
+        Part autoIncrementPart = PartDAO.addPart(new InHouse(0, "Auto ID Part", 1.00, 1, 1, 1, 1));
+        assertNotNull(autoIncrementPart, "Adding a part should still work with the allocator off");
+        assertTrue(autoIncrementPart.getId() > testInHousePart.getId(), "Generated IDs should continue after the allocated ones");
+        System.out.println("TestAddPartsWithIdAllocator Passed.");
+    }
+
+    /**
+     * Test case for two users saving the same part: the second save is based on a stale version and is rejected.
+     */
+    @Test
+    @DisplayName("9. Test a stale update is rejected instead of overwriting a concurrent one")
+    void testStaleUpdateRejected() {
+        System.out.println("Running testStaleUpdateRejected...");
+        InHouse addedPart = PartDAO.addPart(testInHousePart);
+        int loadedVersion = addedPart.getVersion();
+
+        InHouse firstEdit = new InHouse(addedPart.getId(), "First Edit", 11.00, 6, 1, 10, 101);
+        firstEdit.setVersion(loadedVersion);
+        InHouse secondEdit = new InHouse(addedPart.getId(), "Second Edit", 12.00, 7, 1, 10, 101);
+        secondEdit.setVersion(loadedVersion); // Loaded before the first edit was saved
+
+        assertTrue(PartDAO.updatePart(firstEdit), "The first save should be written");
+        assertEquals(loadedVersion + 1, firstEdit.getVersion(), "A written update should increment the version");
+        assertFalse(PartDAO.updatePart(secondEdit), "The save based on the old version should be rejected");
+
+        Part storedPart = PartDAO.getPart(addedPart.getId());
+        assertEquals("First Edit", storedPart.getName(), "The first save should not be overwritten");
+        assertEquals(loadedVersion + 1, storedPart.getVersion(), "A rejected update should not change the version");
+        System.out.println("TestStaleUpdateRejected Passed.");
+    }
+
 
     /**
      * Clean up the database connection after all tests in this class are finished.
@@ -187,7 +261,7 @@ class PartDAOTest {
     @AfterAll
     static void tearDownAll() {
         // This method will run once after all tests in this class have completed.
-        JDBC.closeConnection(); // Close connection after all tests
-        System.out.println("Database connection closed after PartDAOTest suite.");
+        database.close(); // Drop the test database and close the connection after all tests
+        System.out.println("Test database dropped after PartDAOTest suite.");
     }
 }
\ No newline at end of file
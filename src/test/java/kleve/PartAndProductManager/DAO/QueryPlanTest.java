@@ -0,0 +1,315 @@
+package kleve.PartAndProductManager.DAO;
+
+import kleve.PartAndProductManager.datamodel.PartType;
+import org.junit.jupiter.api.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Query-plan regression tests: every SQL statement the DAOs run is EXPLAINed against a seeded database
+ * and its plan is checked against the access the statement was written for.
+ * <p>
+ * A statement expected to be an index lookup fails if any table in its plan is read by a full scan
+ * or if the optimizer estimates more rows than its bound; a statement that legitimately reads a whole table
+ * (e.g., a name search with a leading wildcard) is only checked against its row bound. Ordered statements
+ * can also require that no filesort is needed. When a DAO gains a statement, add it to {@link #statements()}.
+ * </p>
+ * Like {@link PartDAOTest}, these tests assume a working MySQL server reachable via the JDBC utility.
+ * They run in a private {@link TestDatabase} copied from the "plan" snapshot, which holds the seeded rows.
+ */
+class QueryPlanTest {
+
+    private static TestDatabase database;
+
+    private static final int SEED_PARTS = 2_000;
+    private static final int SEED_PRODUCTS = 500;
+    private static final int PARTS_PER_PRODUCT = 5;
+    private static final int SEED_USERS = 50;
+
+    /**
+     * Every twentieth seeded part is outsourced, so filtering by that type is selective enough to use the index.
+     */
+    private static final int OUTSOURCED_EVERY = 20;
+
+    /**
+     * Seeded rows are last updated up to this many days ago, so the week-updated report selects about one in fifteen.
+     */
+    private static final int UPDATED_DAYS = 120;
+
+    /**
+     * The access types that read a table through an index lookup or range rather than a scan.
+     */
+    private static final Set<String> LOOKUP_TYPES = Set.of("system", "const", "eq_ref", "ref", "range", "index_merge");
+
+    /**
+     * How a statement is expected to access its tables.
+     */
+    private enum Access {
+        /** Every table is read through an index lookup or range. */
+        LOOKUP,
+        /** Tables are read in index order (e.g., a window ordered by ID); a full index walk is allowed, a filesort is not. */
+        INDEX_ORDER,
+        /** The statement reads whole tables by design; only the row estimate is checked. */
+        SCAN
+    }
+
+    /**
+     * A DAO statement with parameter values and the plan expected for it.
+     *
+     * @param name The DAO method running the statement.
+     * @param sql The statement as the DAO runs it.
+     * @param access The expected access.
+     * @param maxRows The largest total row estimate accepted across the tables of the plan.
+     * @param parameters The values bound to the statement's parameters.
+     */
+    private record PlanCase(String name, String sql, Access access, long maxRows, Object... parameters) {
+    }
+
+    @BeforeAll
+    static void setupAll() throws SQLException {
+        database = TestDatabase.open("plan", QueryPlanTest::seed);
+        System.out.println("Test database opened for QueryPlanTest suite.");
+        assertTrue(SchemaMigrator.migrate(), "The schema should migrate and have every required index");
+    }
+
+    @AfterAll
+    static void tearDownAll() {
+        database.close();
+        System.out.println("Test database dropped after QueryPlanTest suite.");
+    }
+
+    @Test
+    @DisplayName("The required-index check reports nothing missing")
+    void testNoRequiredIndexMissing() {
+        assertEquals(List.of(), SchemaMigrator.findMissingIndexes(), "No required index should be missing");
+    }
+
+    @TestFactory
+    @DisplayName("Every DAO statement keeps its expected plan")
+    Stream<DynamicTest> testStatementPlans() {
+        return statements().stream().map(planCase -> DynamicTest.dynamicTest(planCase.name(), () -> assertPlan(planCase)));
+    }
+
+    private static List<PlanCase> statements() {
+        int partId = firstId("parts");
+        int productId = firstId("products");
+        Timestamp weekAgo = Timestamp.valueOf(ReportDAO.oneWeekAgo());
+        long window = 100;
+        long updatedBound = SEED_PARTS / 4;
+        String updatedSince = "SELECT id, name, 'Part' AS type, stock, last_updated FROM parts WHERE last_updated >= ?"
+                + " UNION ALL SELECT id, name, 'Product' AS type, stock, last_updated FROM products WHERE last_updated >= ?";
+
+        return List.of(
+                // PartDAO
+                new PlanCase("PartDAO.getPart(int)", "SELECT * FROM parts WHERE id = ?", Access.LOOKUP, 1, partId),
+                new PlanCase("PartDAO.getPart(String)", "SELECT * FROM parts WHERE LOWER(name) LIKE ?", Access.SCAN, SEED_PARTS * 2L, "%part 1%"),
+                new PlanCase("PartDAO.getAllParts", "SELECT * FROM parts", Access.SCAN, SEED_PARTS * 2L),
+                new PlanCase("PartDAO.getPartsWindow", "SELECT * FROM parts ORDER BY " + PartDAO.sortColumn("id") + " ASC, id ASC LIMIT ? OFFSET ?",
+                        Access.INDEX_ORDER, SEED_PARTS * 2L, window, 0),
+                new PlanCase("PartDAO.countParts", "SELECT COUNT(*) FROM parts", Access.SCAN, SEED_PARTS * 2L),
+                new PlanCase("PartDAO.getPartsByType", "SELECT * FROM parts WHERE part_type = ? ORDER BY id", Access.LOOKUP,
+                        SEED_PARTS / 4, PartType.OUTSOURCED.getCode()),
+                new PlanCase("PartDAO.countPartsByType(type)", "SELECT COUNT(*) FROM parts WHERE part_type = ?", Access.LOOKUP,
+                        SEED_PARTS / 4, PartType.OUTSOURCED.getCode()),
+                new PlanCase("PartDAO.countPartsByType()", "SELECT part_type, COUNT(*) FROM parts GROUP BY part_type",
+                        Access.INDEX_ORDER, SEED_PARTS * 2L),
+                new PlanCase("PartDAO.getPartProducts", "SELECT * FROM product_parts WHERE part_id = ?", Access.LOOKUP, 50, partId),
+                new PlanCase("PartDAO.isPartInUse", "SELECT EXISTS (SELECT 1 FROM product_parts WHERE part_id = ?)", Access.LOOKUP, 50, partId),
+                new PlanCase("PartDAO.countPartProducts", "SELECT COUNT(*) FROM product_parts WHERE part_id = ?", Access.LOOKUP, 50, partId),
+                new PlanCase("PartDAO.getPartProductIds", "SELECT product_id FROM product_parts WHERE part_id = ? ORDER BY product_id",
+                        Access.LOOKUP, 50, partId),
+                new PlanCase("PartDAO.updatePart", "UPDATE parts SET name = ?, stock = ?, version = version + 1 WHERE id = ? AND version = ?",
+                        Access.LOOKUP, 1, "Plan part", 1, partId, 0),
+                new PlanCase("PartDAO.deletePart", "DELETE FROM parts WHERE id = ?", Access.LOOKUP, 1, partId),
+
+                // ProductDAO
+                new PlanCase("ProductDAO.getProduct(int)", "SELECT * FROM products WHERE id = ?", Access.LOOKUP, 1, productId),
+                new PlanCase("ProductDAO.getProduct(String)", "SELECT * FROM products WHERE LOWER(name) LIKE ?", Access.SCAN,
+                        SEED_PRODUCTS * 2L, "%product 1%"),
+                new PlanCase("ProductDAO.getAllProducts", "SELECT * FROM products", Access.SCAN, SEED_PRODUCTS * 2L),
+                new PlanCase("ProductDAO.countProducts", "SELECT COUNT(*) FROM products", Access.SCAN, SEED_PRODUCTS * 2L),
+                new PlanCase("ProductDAO.getProductsWindow", "SELECT * FROM products ORDER BY id ASC, id ASC LIMIT ? OFFSET ?",
+                        Access.INDEX_ORDER, SEED_PRODUCTS * 2L, window, 0),
+                new PlanCase("ProductDAO.loadAssociatedParts", "SELECT pp.product_id, pp.quantity, p.* FROM product_parts pp"
+                        + " JOIN parts p ON p.id = pp.part_id WHERE pp.product_id IN (?,?,?)", Access.LOOKUP,
+                        3L * PARTS_PER_PRODUCT * 4 + 3, productId, productId + 1, productId + 2),
+                new PlanCase("ProductDAO.readPartQuantities", "SELECT part_id, quantity FROM product_parts WHERE product_id = ?",
+                        Access.LOOKUP, PARTS_PER_PRODUCT * 4, productId),
+                new PlanCase("ProductDAO.updateProduct (associations)", "DELETE FROM product_parts WHERE product_id = ? AND part_id = ?",
+                        Access.LOOKUP, 1, productId, partId),
+                new PlanCase("ProductDAO.updateProduct", "UPDATE products SET name = ?, stock = ?, version = version + 1 WHERE id = ? AND version = ?",
+                        Access.LOOKUP, 1, "Plan product", 1, productId, 0),
+                new PlanCase("ProductDAO.deleteProduct", "DELETE FROM products WHERE id = ?", Access.LOOKUP, 1, productId),
+                new PlanCase("AssociationIndex.load (versions)", "SELECT id, version FROM products", Access.SCAN, SEED_PRODUCTS * 2L),
+                new PlanCase("AssociationIndex.load", "SELECT product_id, part_id, quantity FROM product_parts", Access.SCAN,
+                        SEED_PRODUCTS * PARTS_PER_PRODUCT * 2L),
+
+                // ReportDAO
+                new PlanCase("ReportDAO.getItemsUpdatedLastWeek (parts)", "SELECT id, name, stock, last_updated FROM parts WHERE last_updated >= ?",
+                        Access.LOOKUP, updatedBound, weekAgo),
+                new PlanCase("ReportDAO.getItemsUpdatedLastWeek (products)", "SELECT id, name, stock, last_updated FROM products WHERE last_updated >= ?",
+                        Access.LOOKUP, updatedBound, weekAgo),
+                new PlanCase("ReportDAO.countItemsUpdatedSince", "SELECT COUNT(*) FROM (" + updatedSince + ") updated", Access.LOOKUP,
+                        updatedBound * 2, weekAgo, weekAgo),
+
+                // StockDAO and StockLedger
+                new PlanCase("StockDAO.adjustPartStock", "UPDATE parts SET stock = stock + ?, version = version + 1 WHERE id = ? AND stock + ? BETWEEN min AND max",
+                        Access.LOOKUP, 1, 1, partId, 1),
+                new PlanCase("StockDAO.adjustPartStock (read back)", "SELECT stock, min, version FROM parts WHERE id = ?", Access.LOOKUP, 1, partId),
+                new PlanCase("StockDAO.assembleProduct (lock product)", "SELECT stock, max, version FROM products WHERE id = ? FOR UPDATE",
+                        Access.LOOKUP, 1, productId),
+                new PlanCase("StockDAO.assembleProduct (lock parts)", "SELECT id, stock, min, version FROM parts WHERE id IN (?, ?, ?) ORDER BY id FOR UPDATE",
+                        Access.LOOKUP, 3, partId, partId + 7, partId + 14),
+                new PlanCase("StockDAO.assembleProduct (consume parts)", "UPDATE parts SET stock = stock - ?, version = version + 1 WHERE id = ?",
+                        Access.LOOKUP, 1, 2, partId),
+                new PlanCase("PartDAO.updatePart (lock stock)", "SELECT stock FROM parts WHERE id = ? AND version = ? FOR UPDATE",
+                        Access.LOOKUP, 1, partId, 0),
+                new PlanCase("StockLedger.getPartHistory", "SELECT id, item_id, delta, stock_after, reason, user_id, moved_at FROM stock_movements"
+                        + " WHERE item_type = ? AND item_id = ? ORDER BY id DESC LIMIT ?", Access.LOOKUP, window, 1, partId, 20),
+                new PlanCase("StockLedger.takeSnapshot (last snapshotted)", "SELECT COALESCE(MAX(movement_id), 0) FROM stock_snapshots",
+                        Access.SCAN, 1),
+                new PlanCase("StockLedger.takeSnapshot", "SELECT m.item_type, m.item_id, m.id, m.stock_after FROM stock_movements m"
+                        + " JOIN (SELECT MAX(id) AS last_id FROM stock_movements WHERE id > ? GROUP BY item_type, item_id) latest"
+                        + " ON m.id = latest.last_id", Access.LOOKUP, window, Long.MAX_VALUE - 1),
+
+                // IdAllocator
+                new PlanCase("IdAllocator.reserve", "UPDATE id_sequences SET next_id = LAST_INSERT_ID(GREATEST(next_id,"
+                        + " (SELECT COALESCE(MAX(id), 0) + 1 FROM parts))) + ? WHERE name = ?", Access.LOOKUP, 1, 100, "parts"),
+
+                // UserDAO
+                new PlanCase("UserDAO.loginUser", "SELECT password, user_id FROM users WHERE user_name = ?", Access.LOOKUP, 1, "plan_user_7")
+        );
+    }
+
+    private static void assertPlan(PlanCase planCase) throws SQLException {
+        long totalRows = 0;
+        List<String> plan = new ArrayList<>();
+        try (PreparedStatement statement = JDBC.connection.prepareStatement("EXPLAIN " + planCase.sql())) {
+            for (int i = 0; i < planCase.parameters().length; i++) {
+                statement.setObject(i + 1, planCase.parameters()[i]);
+            }
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    String table = resultSet.getString("table");
+                    String type = resultSet.getString("type");
+                    long rows = resultSet.getLong("rows");
+                    String extra = resultSet.getString("Extra");
+                    plan.add(table + ": type=" + type + ", key=" + resultSet.getString("key") + ", rows=" + rows + ", extra=" + extra);
+
+                    // Rows without a table (e.g., "No tables used") and materialized derived tables have no access of their own
+                    if (table == null || table.startsWith("<")) {
+                        continue;
+                    }
+                    totalRows += rows;
+                    if (planCase.access() == Access.LOOKUP) {
+                        assertTrue(type != null && LOOKUP_TYPES.contains(type),
+                                planCase.name() + " should read " + table + " through an index, but the plan is " + plan);
+                    }
+                    if (planCase.access() == Access.INDEX_ORDER) {
+                        assertFalse(extra != null && extra.contains("Using filesort"),
+                                planCase.name() + " should read " + table + " in index order, but the plan is " + plan);
+                    }
+                }
+            }
+        }
+        System.out.println(planCase.name() + " -> " + plan);
+        assertTrue(totalRows <= planCase.maxRows(),
+                planCase.name() + " should examine at most " + planCase.maxRows() + " rows, but the plan estimates " + totalRows + ": " + plan);
+    }
+
+    /**
+     * Loads a known data set into the snapshot. {@link TestDatabase} refreshes the table statistics afterwards
+     * so the optimizer plans against it.
+     */
+    private static void seed() throws SQLException {
+        LocalDateTime now = LocalDateTime.now();
+        try (PreparedStatement ps = JDBC.connection.prepareStatement("INSERT INTO parts (name, price, stock, min, max, machine_id, company_name,"
+                + " create_date, created_by, last_updated, last_updated_by, part_type) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+            for (int i = 0; i < SEED_PARTS; i++) {
+                boolean outsourced = i % OUTSOURCED_EVERY == 0;
+                ps.setString(1, "Part " + i);
+                ps.setDouble(2, 1.0 + i % 100);
+                ps.setInt(3, 10);
+                ps.setInt(4, 1);
+                ps.setInt(5, 100);
+                if (outsourced) {
+                    ps.setNull(6, Types.INTEGER);
+                } else {
+                    ps.setInt(6, 100 + i % 50);
+                }
+                ps.setString(7, outsourced ? "Supplier " + i % 20 : null);
+                ps.setTimestamp(8, Timestamp.valueOf(now));
+                ps.setInt(9, 1);
+                ps.setTimestamp(10, Timestamp.valueOf(now.minusDays(i % UPDATED_DAYS)));
+                ps.setInt(11, 1);
+                ps.setInt(12, outsourced ? PartType.OUTSOURCED.getCode() : PartType.IN_HOUSE.getCode());
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+
+        try (PreparedStatement ps = JDBC.connection.prepareStatement("INSERT INTO products (name, price, stock, min, max,"
+                + " create_date, created_by, last_updated, last_updated_by) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+            for (int i = 0; i < SEED_PRODUCTS; i++) {
+                ps.setString(1, "Product " + i);
+                ps.setDouble(2, 50.0 + i % 100);
+                ps.setInt(3, 5);
+                ps.setInt(4, 1);
+                ps.setInt(5, 50);
+                ps.setTimestamp(6, Timestamp.valueOf(now));
+                ps.setInt(7, 1);
+                ps.setTimestamp(8, Timestamp.valueOf(now.minusDays(i % UPDATED_DAYS)));
+                ps.setInt(9, 1);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+
+        int firstPart = firstId("parts");
+        int firstProduct = firstId("products");
+        try (PreparedStatement ps = JDBC.connection.prepareStatement("INSERT INTO product_parts (product_id, part_id, quantity) VALUES (?, ?, ?)")) {
+            for (int product = 0; product < SEED_PRODUCTS; product++) {
+                for (int unit = 0; unit < PARTS_PER_PRODUCT; unit++) {
+                    ps.setInt(1, firstProduct + product);
+                    ps.setInt(2, firstPart + (product * PARTS_PER_PRODUCT + unit * 7) % SEED_PARTS);
+                    ps.setInt(3, 1 + unit % 3);
+                    ps.addBatch();
+                }
+            }
+            ps.executeBatch();
+        }
+
+        try (PreparedStatement ps = JDBC.connection.prepareStatement("INSERT INTO users (user_name, password) VALUES (?, ?)")) {
+            for (int i = 0; i < SEED_USERS; i++) {
+                ps.setString(1, "plan_user_" + i);
+                ps.setString(2, "password");
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+
+        System.out.println("Seeded " + SEED_PARTS + " parts, " + SEED_PRODUCTS + " products and " + SEED_USERS + " users for QueryPlanTest.");
+    }
+
+    private static int firstId(String table) {
+        try (Statement statement = JDBC.connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT MIN(id) FROM " + table)) {
+            return resultSet.next() ? resultSet.getInt(1) : 0;
+        } catch (SQLException e) {
+            fail("Could not read the seeded " + table + ": " + e.getMessage());
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package kleve.PartAndProductManager.DAO;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import kleve.PartAndProductManager.datamodel.InHouse;
+import kleve.PartAndProductManager.datamodel.MovementReason;
+import kleve.PartAndProductManager.datamodel.Part;
+import kleve.PartAndProductManager.datamodel.Product;
+import kleve.PartAndProductManager.datamodel.StockMovement;
+import org.junit.jupiter.api.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Integration tests for the StockDAO class using JUnit 5.
+ * This class assumes a working MySQL server reachable via the JDBC utility.
+ * The tests run in a private {@link TestDatabase} created from the empty schema snapshot.
+ */
+class StockDAOTest {
+
+    private static TestDatabase database;
+
+    private int partId;
+
+    /**
+     * Opens the private test database once before all tests in this class.
+     */
+    @BeforeAll
+    static void setupAll() throws SQLException {
+        database = TestDatabase.open("empty", TestDatabase.EMPTY);
+        UserDAO.userId = 1;
+    }
+
+    /**
+     * Restores the empty snapshot and adds a part with stock 50, minimum 10 and maximum 100 before each test.
+     */
+    @BeforeEach
+    void setupEach() throws SQLException {
+        database.reset();
+        partId = PartDAO.addPart(new InHouse(0, "Stock Test Part", 2.50, 50, 10, 100, 301)).getId();
+    }
+
+    /**
+     * Test case for receiving and consuming stock within the limits.
+     */
+    @Test
+    @DisplayName("1. Test adjusting stock within min and max")
+    void testAdjustWithinLimits() {
+        assertEquals(StockAdjustment.APPLIED, StockDAO.adjustPartStock(partId, 20), "Receiving 20 units should be applied");
+        assertEquals(StockAdjustment.APPLIED, StockDAO.adjustPartStock(partId, -35), "Consuming 35 units should be applied");
+        assertEquals(35, PartDAO.getPart(partId).getStock(), "Stock should be 50 + 20 - 35");
+    }
+
+    /**
+     * Test case for adjustments that would leave the range between min and max.
+     */
+    @Test
+    @DisplayName("2. Test adjustments outside min and max are rejected")
+    void testAdjustOutsideLimits() {
+        assertEquals(StockAdjustment.BELOW_MIN, StockDAO.adjustPartStock(partId, -41), "Going below the minimum should be rejected");
+        assertEquals(StockAdjustment.ABOVE_MAX, StockDAO.adjustPartStock(partId, 51), "Going above the maximum should be rejected");
+        assertEquals(StockAdjustment.NOT_FOUND, StockDAO.adjustPartStock(partId + 1000, 1), "An unknown part should be reported");
+        assertEquals(50, PartDAO.getPart(partId).getStock(), "Rejected adjustments should not change the stock");
+    }
+
+    /**
+     * Test case for many adjustments of the same part made at the same time: none of them may be lost.
+     */
+    @Test
+    @DisplayName("3. Test concurrent adjustments are all applied")
+    void testConcurrentAdjustments() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<StockAdjustment>> results = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                int delta = i % 2 == 0 ? 3 : -2; // Net +1 per pair, always within the limits
+                results.add(executor.submit(() -> StockDAO.adjustPartStock(partId, delta)));
+            }
+            int applied = 0;
+            int net = 0;
+            for (int i = 0; i < results.size(); i++) {
+                if (results.get(i).get() == StockAdjustment.APPLIED) {
+                    applied++;
+                    net += i % 2 == 0 ? 3 : -2;
+                }
+            }
+            assertTrue(applied > 0, "Adjustments should be applied");
+            assertEquals(50 + net, PartDAO.getPart(partId).getStock(), "Every applied adjustment should be counted once");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Test case for an edit screen opened before an adjustment: saving it must not overwrite the adjusted stock.
+     */
+    @Test
+    @DisplayName("4. Test an adjustment invalidates edits loaded before it")
+    void testAdjustmentIncrementsVersion() {
+        InHouse loaded = (InHouse) PartDAO.getPart(partId);
+        InHouse edit = new InHouse(partId, loaded.getName(), loaded.getPrice(), 50, 10, 100, 301);
+        edit.setVersion(loaded.getVersion());
+
+        assertEquals(StockAdjustment.APPLIED, StockDAO.adjustPartStock(partId, 5), "The adjustment should be applied");
+        assertFalse(PartDAO.updatePart(edit), "An edit loaded before the adjustment should be rejected");
+        assertEquals(55, PartDAO.getPart(partId).getStock(), "The adjusted stock should be kept");
+    }
+
+    /**
+     * Test case for the stock ledger: the opening stock, every adjustment and an edit of the stock are recorded
+     * with their reasons, and the newest movement holds the current stock.
+     */
+    @Test
+    @DisplayName("5. Test every stock change is recorded in the ledger")
+    void testLedgerRecordsMovements() {
+        assertEquals(StockAdjustment.APPLIED, StockDAO.adjustPartStock(partId, 20, MovementReason.RECEIPT), "The receipt should be applied");
+        assertEquals(StockAdjustment.BELOW_MIN, StockDAO.adjustPartStock(partId, -100, MovementReason.CONSUMPTION), "The consumption should be rejected");
+        InHouse loaded = (InHouse) PartDAO.getPart(partId);
+        InHouse edit = new InHouse(partId, loaded.getName(), loaded.getPrice(), 60, 10, 100, 301);
+        edit.setVersion(loaded.getVersion());
+        assertTrue(PartDAO.updatePart(edit), "The edit should be saved");
+
+        List<StockMovement> history = StockLedger.getPartHistory(partId, 10);
+        assertEquals(3, history.size(), "The opening stock, the receipt and the correction should be recorded, the rejected consumption not");
+        assertEquals(MovementReason.CORRECTION, history.get(0).getReason(), "The newest movement should be the edit");
+        assertEquals(-10, history.get(0).getDelta(), "The edit should be recorded as the difference to the stored stock");
+        assertEquals(60, history.get(0).getStockAfter(), "The newest movement should hold the current stock");
+        assertEquals(MovementReason.RECEIPT, history.get(1).getReason(), "The receipt should be recorded with its reason");
+        assertEquals(MovementReason.OPENING, history.get(2).getReason(), "The initial stock should be recorded");
+        assertEquals(60, history.stream().mapToInt(StockMovement::getDelta).sum(), "Replaying the movements should give the stock");
+    }
+
+    /**
+     * Test case for reconciling the stored stock with the ledger, before and after a snapshot,
+     * and for a stock changed without going through the DAOs.
+     */
+    @Test
+    @DisplayName("6. Test reconciliation replays the ledger from the latest snapshot")
+    void testReconcile() throws SQLException {
+        assertEquals(StockAdjustment.APPLIED, StockDAO.adjustPartStock(partId, 5), "The adjustment should be applied");
+        assertEquals(List.of(), StockLedger.reconcile(), "The ledger should match the stock without a snapshot");
+        assertTrue(StockLedger.takeSnapshot() >= 1, "The changed part should be snapshotted");
+        assertEquals(StockAdjustment.APPLIED, StockDAO.adjustPartStock(partId, -3), "The adjustment should be applied");
+        assertEquals(List.of(), StockLedger.reconcile(), "The ledger should match the stock after a snapshot");
+
+        try (PreparedStatement ps = JDBC.connection.prepareStatement("UPDATE parts SET stock = 99 WHERE id = ?")) {
+            ps.setInt(1, partId);
+            ps.executeUpdate();
+        }
+        assertEquals(List.of("Part " + partId + ": stored 99, ledger 52"), StockLedger.reconcile(),
+                "A stock changed by hand should be reported");
+    }
+
+    /**
+     * Test case for assembling a product: every associated part gives its quantity per unit, the product
+     * gains the units, and every change is recorded in the ledger.
+     */
+    @Test
+    @DisplayName("7. Test assembling a product consumes its parts")
+    void testAssembleProduct() {
+        int otherPartId = PartDAO.addPart(new InHouse(0, "Second Stock Test Part", 1.25, 30, 0, 100, 302)).getId();
+        int productId = addProduct(otherPartId);
+
+        assertEquals(StockAdjustment.APPLIED, StockDAO.assembleProduct(productId, 3), "Assembling 3 units should be applied");
+        assertEquals(44, PartDAO.getPart(partId).getStock(), "The part used twice per unit should lose 6 units");
+        assertEquals(27, PartDAO.getPart(otherPartId).getStock(), "The part used once per unit should lose 3 units");
+        assertEquals(8, ProductDAO.getProduct(productId).getStock(), "The product should gain 3 units");
+        assertEquals(MovementReason.ASSEMBLY, StockLedger.getPartHistory(partId, 1).get(0).getReason(), "The parts should be recorded as assembled");
+        assertEquals(3, StockLedger.getProductHistory(productId, 1).get(0).getDelta(), "The product should be recorded as assembled");
+        assertEquals(List.of(), StockLedger.reconcile(), "The ledger should match the stock after the assembly");
+    }
+
+    /**
+     * Test case for assemblies that cannot be made: none of the stock may change.
+     */
+    @Test
+    @DisplayName("8. Test an assembly short of parts changes nothing")
+    void testAssembleProductRejected() {
+        int otherPartId = PartDAO.addPart(new InHouse(0, "Second Stock Test Part", 1.25, 30, 0, 100, 302)).getId();
+        int productId = addProduct(otherPartId);
+
+        assertEquals(StockAdjustment.BELOW_MIN, StockDAO.assembleProduct(productId, 21), "42 units of the first part are not available above its minimum");
+        assertEquals(StockAdjustment.ABOVE_MAX, StockDAO.assembleProduct(productId, 26), "The product has room for 25 units only");
+        assertEquals(StockAdjustment.NOT_FOUND, StockDAO.assembleProduct(productId + 1000, 1), "An unknown product should be reported");
+        assertEquals(50, PartDAO.getPart(partId).getStock(), "A rejected assembly should not change the first part");
+        assertEquals(30, PartDAO.getPart(otherPartId).getStock(), "A rejected assembly should not change the second part");
+        assertEquals(5, ProductDAO.getProduct(productId).getStock(), "A rejected assembly should not change the product");
+
+        int emptyProductId = ProductDAO.addProduct(new Product(FXCollections.observableArrayList(), 0, "Partless Test Product", 9.99, 5, 0, 30)).getId();
+        assertEquals(StockAdjustment.NO_PARTS, StockDAO.assembleProduct(emptyProductId, 1), "A product without parts cannot be assembled");
+        assertEquals(5, ProductDAO.getProduct(emptyProductId).getStock(), "A product without parts should not gain stock");
+    }
+
+    /**
+     * Test case for adjustments of different parts made at the same time, which run in transactions of their own.
+     */
+    @Test
+    @DisplayName("9. Test concurrent adjustments of different parts are all applied")
+    void testConcurrentAdjustmentsOfDifferentParts() throws Exception {
+        int[] partIds = new int[4];
+        partIds[0] = partId;
+        for (int i = 1; i < partIds.length; i++) {
+            partIds[i] = PartDAO.addPart(new InHouse(0, "Stock Test Part " + i, 2.50, 50, 10, 100, 301)).getId();
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<StockAdjustment>> results = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                int id = partIds[i % partIds.length];
+                results.add(executor.submit(() -> StockDAO.adjustPartStock(id, 1)));
+            }
+            for (Future<StockAdjustment> result : results) {
+                assertEquals(StockAdjustment.APPLIED, result.get(), "Every adjustment should be applied");
+            }
+            for (int id : partIds) {
+                assertEquals(100, PartDAO.getPart(id).getStock(), "Each part should have received 50 units");
+            }
+            assertEquals(List.of(), StockLedger.reconcile(), "The ledger should match the stock");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Adds a product with stock 5 and maximum 30 made of two units of the part added before each test
+     * and one unit of another part.
+     */
+    private int addProduct(int otherPartId) {
+        ObservableList<Part> parts = FXCollections.observableArrayList(PartDAO.getPart(partId), PartDAO.getPart(partId), PartDAO.getPart(otherPartId));
+        return ProductDAO.addProduct(new Product(parts, 0, "Assembly Test Product", 19.99, 5, 0, 30)).getId();
+    }
+
+    /**
+     * Drops the private test database after all tests in this class.
+     */
+    @AfterAll
+    static void tearDownAll() {
+        database.close();
+    }
+}
@@ -0,0 +1,204 @@
+package kleve.PartAndProductManager.DAO;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A private MySQL database for one test class, so DAO tests never touch capstone_db and test classes
+ * can run at the same time (Surefire runs one class per core, each in its own JVM).
+ * <p>
+ * Each database is copied from a fixture snapshot: a template database that holds the migrated schema
+ * and the fixture's rows. A snapshot is built the first time its fixture is used and kept on the server
+ * for later runs; its name includes {@link SchemaMigrator#CURRENT_VERSION}, so a schema change builds a new one.
+ * Copying a snapshot (and restoring it between test methods with {@link #reset()}) costs a few
+ * {@code INSERT ... SELECT} statements, far less than migrating and loading the fixture again.
+ * </p>
+ * <p>
+ * While the database is open, {@link JDBC#connection} points to it, so DAO calls made by the test use it.
+ * The MySQL user needs the privileges to create and drop databases.
+ * </p>
+ */
+final class TestDatabase implements AutoCloseable {
+
+    /**
+     * Rows loaded into a snapshot when it is built, through {@link JDBC#connection}.
+     */
+    @FunctionalInterface
+    interface Fixture {
+        void load() throws SQLException;
+    }
+
+    /**
+     * The migrated schema with no rows.
+     */
+    static final Fixture EMPTY = () -> {
+    };
+
+    private static final String SNAPSHOT_PREFIX = "capstone_snapshot_";
+    private static final String TEST_PREFIX = "capstone_test_";
+
+    private final String name;
+    private final String snapshot;
+    private final List<String> tables;
+
+    private TestDatabase(String name, String snapshot, List<String> tables) {
+        this.name = name;
+        this.snapshot = snapshot;
+        this.tables = tables;
+    }
+
+    /**
+     * Creates a private database from the snapshot of a fixture, building the snapshot first if needed,
+     * and points {@link JDBC#connection} to it.
+     *
+     * @param fixtureName The name of the fixture; snapshots are shared by every test using the same name.
+     * @param fixture Loads the fixture's rows into a freshly migrated schema.
+     * @return The open test database.
+     * @throws SQLException If the databases cannot be created.
+     */
+    static TestDatabase open(String fixtureName, Fixture fixture) throws SQLException {
+        JDBC.openConnection("");
+        if (JDBC.connection == null) {
+            throw new SQLException("No connection to the MySQL server");
+        }
+        String snapshot = SNAPSHOT_PREFIX + fixtureName + "_v" + SchemaMigrator.CURRENT_VERSION;
+        buildSnapshot(snapshot, fixture);
+
+        String name = TEST_PREFIX + ProcessHandle.current().pid() + "_" + Integer.toHexString(ThreadLocalRandom.current().nextInt());
+        List<String> tables = listTables(snapshot);
+        Connection connection = JDBC.connection;
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE DATABASE " + name);
+            connection.setCatalog(name);
+            statement.execute("SET FOREIGN_KEY_CHECKS = 0");
+            for (String table : tables) {
+                statement.execute(showCreateTable(snapshot, table));
+                statement.execute("INSERT INTO " + table + " SELECT * FROM " + snapshot + "." + table);
+                statement.execute("ANALYZE TABLE " + table); // Statistics are not copied with the rows
+            }
+            statement.execute("SET FOREIGN_KEY_CHECKS = 1");
+        }
+        TestDatabase database = new TestDatabase(name, snapshot, tables);
+        database.forgetCachedState();
+        return database;
+    }
+
+    /**
+     * Restores every table to the snapshot, e.g., before each test method.
+     *
+     * @throws SQLException If a table cannot be restored.
+     */
+    void reset() throws SQLException {
+        try (Statement statement = JDBC.connection.createStatement()) {
+            statement.execute("SET FOREIGN_KEY_CHECKS = 0");
+            for (String table : tables) {
+                statement.execute("TRUNCATE TABLE " + table);
+                statement.execute("INSERT INTO " + table + " SELECT * FROM " + snapshot + "." + table);
+            }
+            statement.execute("SET FOREIGN_KEY_CHECKS = 1");
+        }
+        forgetCachedState();
+    }
+
+    /**
+     * Drops the database and closes the connection.
+     */
+    @Override
+    public void close() {
+        try (Statement statement = JDBC.connection.createStatement()) {
+            statement.execute("DROP DATABASE IF EXISTS " + name);
+        } catch (SQLException e) {
+            System.err.println("Could not drop test database " + name + ": " + e.getMessage());
+        }
+        forgetCachedState();
+        JDBC.closeConnection();
+    }
+
+    /**
+     * The caches are static, so entities a previous database (or test method) loaded must not be served from them.
+     */
+    private void forgetCachedState() {
+        IdentityMap.clear();
+        IdAllocator.discardBlocks();
+        AssociationIndex.invalidate();
+        Catalog.invalidateParts();
+        Catalog.invalidateProducts();
+    }
+
+    /**
+     * Builds the snapshot unless it exists. A named lock keeps JVMs running at the same time from building it twice;
+     * the marker table is created last, so a snapshot left half-built by a failed run is rebuilt.
+     */
+    private static void buildSnapshot(String snapshot, Fixture fixture) throws SQLException {
+        Connection connection = JDBC.connection;
+        try (Statement statement = connection.createStatement()) {
+            try (ResultSet lock = statement.executeQuery("SELECT GET_LOCK('" + snapshot + "', 300)")) {
+                if (!lock.next() || lock.getInt(1) != 1) {
+                    throw new SQLException("Timed out waiting for snapshot " + snapshot);
+                }
+            }
+            try {
+                if (hasMarker(snapshot)) {
+                    return;
+                }
+                statement.execute("DROP DATABASE IF EXISTS " + snapshot);
+                statement.execute("CREATE DATABASE " + snapshot);
+                connection.setCatalog(snapshot);
+                if (!SchemaMigrator.migrate()) {
+                    throw new SQLException("Could not migrate snapshot " + snapshot);
+                }
+                fixture.load();
+                for (String table : listTables(snapshot)) {
+                    statement.execute("ANALYZE TABLE " + table);
+                }
+                statement.execute("CREATE TABLE snapshot_ready (built_on DATETIME NOT NULL)");
+            } finally {
+                statement.executeQuery("SELECT RELEASE_LOCK('" + snapshot + "')").close();
+            }
+        }
+    }
+
+    private static List<String> listTables(String database) throws SQLException {
+        List<String> tables = new ArrayList<>();
+        try (PreparedStatement statement = JDBC.connection.prepareStatement(
+                "SELECT table_name FROM information_schema.tables WHERE table_schema = ? AND table_type = 'BASE TABLE' ORDER BY table_name")) {
+            statement.setString(1, database);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    String table = resultSet.getString(1);
+                    if (!table.equals("snapshot_ready")) {
+                        tables.add(table);
+                    }
+                }
+            }
+        }
+        return tables;
+    }
+
+    private static boolean hasMarker(String database) throws SQLException {
+        try (PreparedStatement statement = JDBC.connection.prepareStatement(
+                "SELECT 1 FROM information_schema.tables WHERE table_schema = ? AND table_name = 'snapshot_ready'")) {
+            statement.setString(1, database);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next();
+            }
+        }
+    }
+
+    /**
+     * Reads the DDL of a snapshot table; run in the test database, it recreates the table with its indexes and foreign keys.
+     */
+    private static String showCreateTable(String database, String table) throws SQLException {
+        try (Statement statement = JDBC.connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SHOW CREATE TABLE " + database + "." + table)) {
+            resultSet.next();
+            return resultSet.getString(2);
+        }
+    }
+}